@@ -0,0 +1,83 @@
+#!/usr/bin/env python3
+"""Compare a JMH JSON result file against the recorded baseline.
+
+    python3 benchmarks/compare.py results.json
+    python3 benchmarks/compare.py results.json --baseline benchmarks/baselines/baseline.json --threshold 15
+
+Scores are average time per operation, so higher is slower. A benchmark is
+reported as a regression when it is slower than the baseline by more than the
+threshold percentage AND the difference is larger than the two error margins
+combined; the script then exits with status 1. Benchmarks present in only one
+of the files are listed but do not fail the comparison.
+"""
+
+import argparse
+import json
+import os
+import sys
+
+DEFAULT_BASELINE = os.path.join(os.path.dirname(os.path.abspath(__file__)), "baselines", "baseline.json")
+
+
+def load(path):
+    with open(path) as f:
+        results = {}
+        for run in json.load(f):
+            params = run.get("params") or {}
+            key = run["benchmark"]
+            if params:
+                key += "(" + ", ".join(f"{k}={v}" for k, v in sorted(params.items())) + ")"
+            metric = run["primaryMetric"]
+            error = metric.get("scoreError")
+            results[key] = (metric["score"], 0.0 if error in (None, "NaN") else float(error), metric["scoreUnit"])
+        return results
+
+
+def short(name):
+    # com.bin.pos.benchmarks.JwtBenchmark.parseCached -> JwtBenchmark.parseCached
+    head, _, params = name.partition("(")
+    parts = head.split(".")
+    return ".".join(parts[-2:]) + ("(" + params if params else "")
+
+
+def main():
+    parser = argparse.ArgumentParser(description="Compare JMH results against a baseline")
+    parser.add_argument("results", help="JMH result file written with -rf json")
+    parser.add_argument("--baseline", default=DEFAULT_BASELINE, help="baseline JMH result file")
+    parser.add_argument("--threshold", type=float, default=10.0, help="allowed slowdown in percent")
+    args = parser.parse_args()
+
+    baseline = load(args.baseline)
+    current = load(args.results)
+
+    regressions = 0
+    width = max(len(short(name)) for name in baseline.keys() | current.keys())
+    print(f"{'benchmark':<{width}}  {'baseline':>12}  {'current':>12}  {'change':>8}")
+    for name in sorted(baseline.keys() | current.keys()):
+        if name not in current:
+            print(f"{short(name):<{width}}  {'':>12}  {'missing':>12}")
+            continue
+        if name not in baseline:
+            print(f"{short(name):<{width}}  {'new':>12}  {current[name][0]:>12.1f}")
+            continue
+
+        base_score, base_error, unit = baseline[name]
+        score, error, current_unit = current[name]
+        if unit != current_unit:
+            print(f"{short(name):<{width}}  unit changed from {unit} to {current_unit}")
+            continue
+
+        change = (score - base_score) / base_score * 100.0
+        regressed = change > args.threshold and score - base_score > base_error + error
+        regressions += regressed
+        print(f"{short(name):<{width}}  {base_score:>12.1f}  {score:>12.1f}  {change:>+7.1f}%"
+              f"{'  REGRESSION' if regressed else ''}  {unit}")
+
+    if regressions:
+        print(f"\n{regressions} benchmark(s) slower than the baseline by more than {args.threshold:g}%")
+        return 1
+    return 0
+
+
+if __name__ == "__main__":
+    sys.exit(main())
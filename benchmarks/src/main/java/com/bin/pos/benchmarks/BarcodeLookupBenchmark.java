@@ -0,0 +1,96 @@
+package com.bin.pos.benchmarks;
+
+import com.bin.pos.dal.dto.BarcodeScanDTO;
+import com.bin.pos.dal.model.InventoryItem;
+import com.bin.pos.dal.repository.InventoryRepository;
+import com.bin.pos.service.BarcodeLookupService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Warm barcode scans against a catalogue already loaded into BarcodeLookupService
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BarcodeLookupBenchmark {
+
+    private static final int SCANNED = 1024;
+
+    @Param({"10000"})
+    public int catalogueSize;
+
+    private BarcodeLookupService service;
+    private String[] numericCodes;
+    private String[] otherCodes;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        List<InventoryItem> items = new ArrayList<>(catalogueSize);
+        for (int n = 1; n <= catalogueSize; n++) {
+            InventoryItem item = Fixtures.item(n);
+            // One product in ten carries an in-house code instead of an EAN
+            if (n % 10 == 0) {
+                item.getProduct().setBarcode("SKU-" + n);
+            }
+            items.add(item);
+        }
+
+        service = new BarcodeLookupService(repository(items));
+        service.reload();
+
+        numericCodes = new String[SCANNED];
+        otherCodes = new String[SCANNED];
+        for (int i = 0; i < SCANNED; i++) {
+            int n = 1 + (int) ((i * 7919L) % catalogueSize);
+            numericCodes[i] = n % 10 == 0 ? items.get(n - 2).getProduct().getBarcode() : items.get(n - 1).getProduct().getBarcode();
+            otherCodes[i] = "SKU-" + (10 * (1 + i % (catalogueSize / 10)));
+        }
+    }
+
+    @Benchmark
+    public Optional<BarcodeScanDTO> lookupNumeric() {
+        next = (next + 1) & (SCANNED - 1);
+        return service.lookup(numericCodes[next]);
+    }
+
+    @Benchmark
+    public Optional<BarcodeScanDTO> lookupOther() {
+        next = (next + 1) & (SCANNED - 1);
+        return service.lookup(otherCodes[next]);
+    }
+
+    // Only the catalogue load is needed; a scan that misses would query the database
+    private static InventoryRepository repository(List<InventoryItem> items) {
+        return (InventoryRepository) Proxy.newProxyInstance(InventoryRepository.class.getClassLoader(),
+                new Class<?>[]{InventoryRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findAllWithBarcode" -> items;
+                    case "findSellableByBarcode" -> Collections.emptyList();
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "InventoryRepository(benchmark)";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,76 @@
+package com.bin.pos.benchmarks;
+
+import com.bin.pos.dal.dto.DTOConverter;
+import com.bin.pos.dal.dto.InventoryItemDTO;
+import com.bin.pos.dal.dto.TransactionDTO;
+import com.bin.pos.dal.model.InventoryItem;
+import com.bin.pos.dal.model.Product;
+import com.bin.pos.dal.model.SalesTransaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO conversion for the transaction detail view and the inventory views
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConversionBenchmark {
+
+    private final DTOConverter converter = new DTOConverter();
+    private InventoryItem item;
+
+    // Only the transaction benchmark varies with basket size
+    @State(Scope.Benchmark)
+    public static class Basket {
+        @Param({"1", "10", "50"})
+        public int lines;
+
+        private SalesTransaction transaction;
+
+        @Setup
+        public void setUp() {
+            transaction = Fixtures.sale(lines);
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        item = Fixtures.item(42);
+    }
+
+    @Benchmark
+    public TransactionDTO transactionToDTO(Basket basket) {
+        return converter.convertToDTO(basket.transaction);
+    }
+
+    // From a loaded entity, as for create and update responses
+    @Benchmark
+    public InventoryItemDTO inventoryItemFromEntity() {
+        return new InventoryItemDTO(item);
+    }
+
+    // From projected columns, as for the list views
+    @Benchmark
+    public InventoryItemDTO inventoryItemFromColumns() {
+        Product product = item.getProduct();
+        return new InventoryItemDTO(item.getId(), item.getItemId(),
+                product.getId(), product.getProductId(), product.getName(), product.getDescription(),
+                product.getUnitPrice(), product.getCategory(), product.getBarcode(), product.getStatus(),
+                item.getQuantity(), item.getPrice(), item.getUnit(), item.getCreatedAt(), item.getUpdatedAt());
+    }
+}
@@ -0,0 +1,133 @@
+package com.bin.pos.benchmarks;
+
+import com.bin.pos.dal.model.Customer;
+import com.bin.pos.dal.model.CustomerType;
+import com.bin.pos.dal.model.InventoryItem;
+import com.bin.pos.dal.model.OrderItem;
+import com.bin.pos.dal.model.OrderTransaction;
+import com.bin.pos.dal.model.PaymentMethod;
+import com.bin.pos.dal.model.Product;
+import com.bin.pos.dal.model.SalesTransaction;
+import com.bin.pos.dal.model.ServiceTransactionItem;
+import com.bin.pos.dal.model.TransactionItem;
+import com.bin.pos.dal.model.TransactionStatus;
+import com.bin.pos.dal.model.User;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Detached entities shaped like a typical basket; nothing here touches a database
+ */
+public final class Fixtures {
+
+    private static final BigDecimal TAX_RATE = new BigDecimal("0.15");
+
+    private Fixtures() {
+    }
+
+    public static Product product(int n) {
+        Product product = new Product();
+        product.setId((long) n);
+        product.setProductId("P" + n);
+        product.setName("Product " + n);
+        product.setDescription("Description of product " + n);
+        product.setUnitPrice(price(n));
+        product.setCategory("Category " + (n % 20));
+        product.setBarcode(String.format("50%011d", n));
+        return product;
+    }
+
+    public static InventoryItem item(int n) {
+        InventoryItem item = new InventoryItem();
+        item.setId((long) n);
+        item.setItemId("I" + n);
+        item.setProduct(product(n));
+        item.setPrice(price(n));
+        item.setQuantity(100 + n % 50);
+        item.setUnit("each");
+        item.setCreatedAt(LocalDateTime.of(2024, 1, 1, 9, 0));
+        item.setUpdatedAt(LocalDateTime.of(2024, 1, 1, 9, 0));
+        return item;
+    }
+
+    public static Customer customer() {
+        Customer customer = new Customer();
+        customer.setId(1L);
+        customer.setCustomerId("C1");
+        customer.setName("Walk-in Customer");
+        customer.setEmail("walkin@example.com");
+        customer.setPhone("0000000000");
+        customer.setType(CustomerType.REGULAR);
+        return customer;
+    }
+
+    /**
+     * A completed sale with the given number of product lines and one service line
+     */
+    public static SalesTransaction sale(int lines) {
+        SalesTransaction transaction = new SalesTransaction();
+        transaction.setId(1L);
+        transaction.setTransactionId("TRX-BENCH");
+        transaction.setCustomer(customer());
+        transaction.setCreationTime(LocalDateTime.of(2024, 1, 1, 12, 0));
+        transaction.setCompletionTime(LocalDateTime.of(2024, 1, 1, 12, 1));
+        transaction.setStatus(TransactionStatus.COMPLETED);
+        transaction.setPaymentMethod(PaymentMethod.CASH);
+        transaction.setTaxRate(TAX_RATE);
+
+        for (int n = 1; n <= lines; n++) {
+            TransactionItem line = new TransactionItem();
+            line.setId((long) n);
+            line.setSalesTransaction(transaction);
+            line.setItem(item(n));
+            line.setQuantity(1 + n % 3);
+            line.setUnitPrice(price(n));
+            line.setDiscountAmount(n % 5 == 0 ? new BigDecimal("0.50") : BigDecimal.ZERO);
+            transaction.getItems().add(line);
+        }
+
+        ServiceTransactionItem service = new ServiceTransactionItem();
+        service.setId(1L);
+        service.setSalesTransaction(transaction);
+        service.setQuantity(1);
+        service.setUnitPrice(new BigDecimal("4.99"));
+        service.setDiscountAmount(BigDecimal.ZERO);
+        transaction.getServiceItems().add(service);
+
+        transaction.setAmountPaid(transaction.getTotal());
+        return transaction;
+    }
+
+    public static OrderTransaction order(int lines) {
+        OrderTransaction order = new OrderTransaction();
+        order.setId(1L);
+        order.setOrderId("ORD-BENCH");
+        order.setTaxRate(TAX_RATE);
+        for (int n = 1; n <= lines; n++) {
+            OrderItem line = new OrderItem();
+            line.setId((long) n);
+            line.setOrder(order);
+            line.setItem(item(n));
+            line.setQuantity(1 + n % 3);
+            line.setUnitPrice(price(n));
+            line.setDiscountAmount(n % 5 == 0 ? new BigDecimal("0.50") : BigDecimal.ZERO);
+            order.getItems().add(line);
+        }
+        return order;
+    }
+
+    public static User user() {
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("cashier");
+        user.setPassword("not-used");
+        user.addRole("CASHIER");
+        return user;
+    }
+
+    // Prices with two decimals, as entered at the till
+    private static BigDecimal price(int n) {
+        return BigDecimal.valueOf(99 + (n * 37L) % 2000, 2);
+    }
+}
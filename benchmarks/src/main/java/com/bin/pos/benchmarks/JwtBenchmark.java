@@ -0,0 +1,96 @@
+package com.bin.pos.benchmarks;
+
+import com.bin.pos.config.security.JwtTokenUtil;
+import com.bin.pos.dal.model.User;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-request auth path: token parsing with and without the verified-token
+ * cache, claim validation, and token generation at login
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtBenchmark {
+
+    // Same length and shape as the configured secret, not the secret itself
+    private static final String SECRET = "6A576E5A7234753778214125442A472D4B6150645367566B5970337336763979";
+
+    private JwtTokenUtil cached;
+    private JwtTokenUtil uncached;
+    private User user;
+    private String token;
+    private String[] alternating;
+    private Claims claims;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        cached = tokenUtil(10000);
+        // A one-entry cache that two alternating tokens keep evicting: every parse checks the signature
+        uncached = tokenUtil(1);
+
+        user = Fixtures.user();
+        token = cached.generateToken(user);
+        User other = Fixtures.user();
+        other.setUsername("manager");
+        alternating = new String[]{token, cached.generateToken(other)};
+        claims = cached.getAllClaimsFromToken(token);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return cached.generateToken(user);
+    }
+
+    @Benchmark
+    public Claims parseCached() {
+        return cached.getAllClaimsFromToken(token);
+    }
+
+    @Benchmark
+    public Claims parseUncached() {
+        next ^= 1;
+        return uncached.getAllClaimsFromToken(alternating[next]);
+    }
+
+    @Benchmark
+    public Boolean validateClaims() {
+        return cached.validateToken(claims, user);
+    }
+
+    // Wire the component the way Spring would: injected fields, then the @PostConstruct hook
+    private static JwtTokenUtil tokenUtil(int verifiedCacheSize) {
+        JwtTokenUtil util = new JwtTokenUtil();
+        setField(util, "secret", SECRET);
+        setField(util, "verifiedCacheSize", verifiedCacheSize);
+        Method init = ReflectionUtils.findMethod(JwtTokenUtil.class, "init");
+        ReflectionUtils.makeAccessible(init);
+        ReflectionUtils.invokeMethod(init, util);
+        return util;
+    }
+
+    private static void setField(Object target, String name, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), name);
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+}
@@ -0,0 +1,63 @@
+package com.bin.pos.benchmarks;
+
+import com.bin.pos.dal.model.SalesTransaction;
+import com.bin.pos.dal.model.TransactionItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SalesTransaction totals: read back from the cache, and recomputed after a line changes
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MoneyMathBenchmark {
+
+    @Param({"1", "10", "50"})
+    public int lines;
+
+    private SalesTransaction transaction;
+
+    @Setup
+    public void setUp() {
+        transaction = Fixtures.sale(lines);
+    }
+
+    @Benchmark
+    public BigDecimal subtotal() {
+        return transaction.getSubtotal();
+    }
+
+    @Benchmark
+    public BigDecimal taxAmount() {
+        return transaction.getTaxAmount();
+    }
+
+    @Benchmark
+    public BigDecimal total() {
+        return transaction.getTotal();
+    }
+
+    // A scan or quantity change followed by the totals for the till display
+    @Benchmark
+    public BigDecimal totalAfterLineChange() {
+        TransactionItem line = transaction.getItems().get(0);
+        line.setQuantity(line.getQuantity() ^ 1);
+        return transaction.getTotal();
+    }
+}
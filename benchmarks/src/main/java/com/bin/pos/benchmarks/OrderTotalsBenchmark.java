@@ -0,0 +1,67 @@
+package com.bin.pos.benchmarks;
+
+import com.bin.pos.dal.model.OrderTransaction;
+import com.bin.pos.dal.repository.CustomerRepository;
+import com.bin.pos.dal.repository.InventoryRepository;
+import com.bin.pos.dal.repository.OrderRepository;
+import com.bin.pos.service.OrderService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OrderService.createOrder for an order that arrives with its lines, which
+ * totals them; the repositories are stand-ins, so no database is involved
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderTotalsBenchmark {
+
+    @Param({"1", "10", "50"})
+    public int lines;
+
+    private OrderService service;
+    private OrderTransaction order;
+
+    @Setup
+    public void setUp() {
+        // The fixture has an order id and no customer, so neither is looked up
+        order = Fixtures.order(lines);
+        service = new OrderService(stub(OrderRepository.class), stub(CustomerRepository.class),
+                stub(InventoryRepository.class), null, null);
+    }
+
+    @Benchmark
+    public BigDecimal createOrder() {
+        return service.createOrder(order).getTotalAmount();
+    }
+
+    // save hands the order back; nothing else should be reached
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> repository) {
+        return (T) Proxy.newProxyInstance(repository.getClassLoader(), new Class<?>[]{repository},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "save" -> args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> repository.getSimpleName() + "(benchmark)";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
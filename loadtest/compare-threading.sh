@@ -0,0 +1,14 @@
+#!/bin/sh
+# The same till load on Tomcat's platform threads, then on virtual threads (needs Java 21).
+#   loadtest/compare-threading.sh [tills] [duration seconds]    defaults 1000 and 60
+# Build loadtest/target/loadtest.jar first, see loadtest/pom.xml.
+cd "$(dirname "$0")" || exit 1
+TILLS=${1:-1000}
+DURATION=${2:-60}
+
+for virtual in false true; do
+    echo "== pos.threads.virtual=$virtual, $TILLS tills"
+    java -jar target/loadtest.jar --tills="$TILLS" --duration="$DURATION" --warmup=15 \
+        --pos.threads.virtual="$virtual" | sed -n '/^Sales paid/,$p'
+    echo
+done
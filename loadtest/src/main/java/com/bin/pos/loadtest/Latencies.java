@@ -0,0 +1,41 @@
+package com.bin.pos.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Response times for one step, in nanoseconds. Each till keeps its own and they are merged at the end.
+ */
+final class Latencies {
+
+    private long[] values = new long[1024];
+    private int size;
+
+    void add(long nanos) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = nanos;
+    }
+
+    void addAll(Latencies other) {
+        for (int i = 0; i < other.size; i++) {
+            add(other.values[i]);
+        }
+    }
+
+    int count() {
+        return size;
+    }
+
+    /**
+     * Nearest-rank percentile in milliseconds; sorts in place, so call once all samples are in
+     */
+    double percentileMillis(double percentile) {
+        if (size == 0) {
+            return 0;
+        }
+        Arrays.sort(values, 0, size);
+        int rank = (int) Math.ceil(percentile / 100.0 * size);
+        return values[Math.max(rank, 1) - 1] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,288 @@
+package com.bin.pos.loadtest;
+
+import com.bin.pos.PosApplication;
+import com.bin.pos.loadtest.PosClient.Reply;
+import com.bin.pos.loadtest.Till.Catalogue;
+import com.bin.pos.loadtest.Till.Step;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saturday-peak load against the sales API on one box.
+ *
+ * Boots the application on an in-memory H2 database (or the --jdbc-url given), seeds a catalogue and
+ * customers over HTTP, then runs concurrent tills through create, add items, pay and return on
+ * /api/sales. Reports throughput and latency per step, then checks every seeded item's stock against
+ * what the tills were told they sold and returned. Exits with 1 on any violation or unexpected error.
+ *
+ * Options, all --name=value:
+ *   tills (8), duration seconds (30), warmup seconds (5), products (200), customers (50),
+ *   stock per item (500), hot-items (10) with hot-stock (20) each, max-lines per sale (4),
+ *   return-percent (10), url of an already running instance instead of booting one,
+ *   jdbc-url, jdbc-username, jdbc-password, username and password for the till account.
+ * Any other --name=value is passed to the application, e.g. --pos.inventory.reservations.enabled=true
+ */
+public class SalesLoadTest {
+
+    private static final String H2_URL = "jdbc:h2:mem:loadtest;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=VALUE;DB_CLOSE_DELAY=-1";
+    private static final List<String> OPTIONS = List.of("tills", "duration", "warmup", "products", "customers",
+            "stock", "hot-items", "hot-stock", "max-lines", "return-percent", "url",
+            "jdbc-url", "jdbc-username", "jdbc-password", "username", "password");
+
+    private final Map<String, String> options = new HashMap<>();
+    private final List<String> applicationArgs = new ArrayList<>();
+    private final String tag = Long.toString(System.currentTimeMillis(), 36).toUpperCase();
+
+    public static void main(String[] args) throws Exception {
+        SalesLoadTest test = new SalesLoadTest(args);
+        int status;
+        ConfigurableApplicationContext context = null;
+        try {
+            String url = test.option("url", null);
+            if (url == null) {
+                context = test.boot();
+                url = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+            }
+            status = test.run(new PosClient(url));
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+        System.exit(status);
+    }
+
+    SalesLoadTest(String[] args) {
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            String name = arg.startsWith("--") && equals > 2 ? arg.substring(2, equals) : null;
+            if (name != null && OPTIONS.contains(name)) {
+                options.put(name, arg.substring(equals + 1));
+            } else {
+                applicationArgs.add(arg);
+            }
+        }
+    }
+
+    private ConfigurableApplicationContext boot() {
+        String jdbcUrl = option("jdbc-url", H2_URL);
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("server.port", 0);
+        properties.put("spring.datasource.url", jdbcUrl);
+        properties.put("spring.datasource.username", option("jdbc-username", "sa"));
+        properties.put("spring.datasource.password", option("jdbc-password", ""));
+        if (jdbcUrl.startsWith("jdbc:h2:")) {
+            properties.put("spring.datasource.driver-class-name", "org.h2.Driver");
+            properties.put("spring.jpa.properties.hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+            properties.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+        }
+        properties.put("spring.jpa.show-sql", false);
+        properties.put("spring.main.banner-mode", "off");
+        properties.put("logging.level.root", "WARN");
+        properties.put("logging.level.org.springframework", "WARN");
+        properties.put("logging.level.org.apache.catalina.loader", "ERROR");
+        properties.put("logging.level.org.hibernate.type.descriptor.sql", "WARN");
+
+        // As command-line arguments, so they win over application.yml; the caller's own come last and win over these
+        List<String> args = new ArrayList<>();
+        properties.forEach((name, value) -> {
+            if (applicationArgs.stream().noneMatch(arg -> arg.startsWith("--" + name + "="))) {
+                args.add("--" + name + "=" + value);
+            }
+        });
+        args.addAll(applicationArgs);
+
+        System.out.println("Booting the application on " + jdbcUrl);
+        return new SpringApplicationBuilder(PosApplication.class).run(args.toArray(String[]::new));
+    }
+
+    private int run(PosClient client) throws InterruptedException {
+        int tills = intOption("tills", 8);
+        int duration = intOption("duration", 30);
+        int warmup = intOption("warmup", 5);
+
+        client.signIn(option("username", "loadtest"), option("password", "loadtest-pw"));
+        Catalogue catalogue = seed(client);
+        Map<String, Integer> initial = stock(client);
+
+        System.out.printf("Running %d tills for %ds after a %ds warm-up against %s%n", tills, duration, warmup, client.baseUrl());
+        List<String> violations = Collections.synchronizedList(new ArrayList<>());
+        long measureFrom = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmup);
+        long deadline = measureFrom + TimeUnit.SECONDS.toNanos(duration);
+        List<Till> lanes = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int n = 0; n < tills; n++) {
+            Till till = new Till(n, client, catalogue, intOption("max-lines", 4), intOption("return-percent", 10),
+                    measureFrom, deadline, violations);
+            Thread thread = new Thread(till, "till-" + n);
+            lanes.add(till);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Map<Step, Latencies> latencies = new LinkedHashMap<>();
+        Map<String, Integer> sold = new HashMap<>();
+        Map<String, Integer> returned = new HashMap<>();
+        int completed = 0, rejectedSales = 0, rejectedLines = 0, returns = 0, requests = 0, errors = 0;
+        String firstError = null;
+        for (Till till : lanes) {
+            till.latencies.forEach((step, samples) -> latencies.computeIfAbsent(step, s -> new Latencies()).addAll(samples));
+            till.sold.forEach((item, units) -> sold.merge(item, units, Integer::sum));
+            till.returned.forEach((item, units) -> returned.merge(item, units, Integer::sum));
+            completed += till.completedSales;
+            rejectedSales += till.rejectedSales;
+            rejectedLines += till.rejectedLines;
+            returns += till.returns;
+            requests += till.requests;
+            errors += till.errors;
+            firstError = firstError != null ? firstError : till.firstError;
+        }
+
+        System.out.println();
+        System.out.printf("Sales paid %d, refused at payment %d, lines refused %d, returns %d, requests %d, errors %d%n",
+                completed, rejectedSales, rejectedLines, returns, requests, errors);
+        int measuredRequests = 0;
+        for (Step step : List.of(Step.CREATE, Step.ADD_ITEM, Step.PAY, Step.RETURN)) {
+            measuredRequests += latencies.get(step).count();
+        }
+        System.out.printf("Throughput %.1f sales/s, %.1f requests/s over the measured %ds%n",
+                latencies.get(Step.SALE).count() / (double) duration, measuredRequests / (double) duration, duration);
+        System.out.printf("%n%-10s %8s %9s %9s %9s%n", "step", "count", "p50 ms", "p99 ms", "max ms");
+        latencies.forEach((step, samples) -> System.out.printf("%-10s %8d %9.1f %9.1f %9.1f%n", step, samples.count(),
+                samples.percentileMillis(50), samples.percentileMillis(99), samples.percentileMillis(100)));
+
+        checkStock(client, initial, sold, returned, violations);
+
+        System.out.println();
+        if (firstError != null) {
+            System.out.println("First error: " + firstError);
+            System.out.println("Errors leave the tills unsure what was sold, so the stock check may be off");
+        }
+        if (violations.isEmpty()) {
+            System.out.println("No consistency violations");
+        } else {
+            System.out.println(violations.size() + " consistency violation(s):");
+            violations.stream().limit(20).forEach(v -> System.out.println("  " + v));
+        }
+        return violations.isEmpty() && errors == 0 ? 0 : 1;
+    }
+
+    /**
+     * Products with one inventory item each, and customers, all carrying this run's tag so repeat
+     * runs against the same database do not collide
+     */
+    private Catalogue seed(PosClient client) {
+        int products = intOption("products", 200);
+        int hotItems = Math.min(intOption("hot-items", 10), products);
+        int stock = intOption("stock", 500);
+        int hotStock = intOption("hot-stock", 20);
+        System.out.printf("Seeding %d products and %d customers%n", products, intOption("customers", 50));
+
+        List<String> hot = new ArrayList<>();
+        List<String> items = new ArrayList<>();
+        for (int n = 0; n < products; n++) {
+            String productId = "LT-" + tag + "-P" + n;
+            BigDecimal price = BigDecimal.valueOf(50 + n % 950, 2);
+            created(client.post("/api/products", Map.of("productId", productId, "name", "Load test product " + n,
+                    "unitPrice", price, "category", "Load test " + n % 10)), "product " + productId);
+
+            String itemId = "LT-" + tag + "-I" + n;
+            created(client.post("/api/inventory", Map.of("itemId", itemId, "quantity", n < hotItems ? hotStock : stock,
+                    "price", price, "unit", "each", "product", Map.of("productId", productId))), "item " + itemId);
+            (n < hotItems ? hot : items).add(itemId);
+        }
+        if (items.isEmpty()) {
+            items.addAll(hot);
+        }
+
+        List<Long> customers = new ArrayList<>();
+        for (int n = 0; n < intOption("customers", 50); n++) {
+            String customerId = "LT-" + tag + "-C" + n;
+            Reply customer = created(client.post("/api/customers", Map.of("customerId", customerId,
+                    "name", "Load test customer " + n, "email", customerId.toLowerCase() + "@loadtest.local",
+                    "phone", "555" + n, "type", "REGULAR")), "customer " + customerId);
+            customers.add(customer.body().get("id").asLong());
+        }
+        return new Catalogue(hot, items, customers);
+    }
+
+    // Stock of this run's items, by item id
+    private Map<String, Integer> stock(PosClient client) {
+        Reply inventory = client.get("/api/inventory");
+        if (!inventory.ok()) {
+            throw new IllegalStateException("Listing inventory failed: " + inventory.status() + " " + inventory.body());
+        }
+        Map<String, Integer> quantities = new HashMap<>();
+        for (JsonNode item : inventory.body()) {
+            String itemId = item.path("itemId").asText();
+            if (itemId.startsWith("LT-" + tag + "-")) {
+                quantities.put(itemId, item.path("quantity").asInt());
+            }
+        }
+        return quantities;
+    }
+
+    /**
+     * Every item must hold its seeded stock less what was sold plus what came back, and never go negative.
+     * Stock written back in batches (reservations enabled) may lag the sales, so a mismatch is re-read
+     * for a few seconds before it counts.
+     */
+    private void checkStock(PosClient client, Map<String, Integer> initial, Map<String, Integer> sold,
+                            Map<String, Integer> returned, List<String> violations) throws InterruptedException {
+        List<String> mismatches = new ArrayList<>();
+        for (int attempt = 0; attempt < 10; attempt++) {
+            mismatches.clear();
+            Map<String, Integer> current = stock(client);
+            initial.forEach((itemId, seeded) -> {
+                int expected = seeded - sold.getOrDefault(itemId, 0) + returned.getOrDefault(itemId, 0);
+                Integer actual = current.get(itemId);
+                if (actual == null) {
+                    mismatches.add(itemId + " is missing from the inventory");
+                } else if (actual < 0) {
+                    mismatches.add(itemId + " oversold: stock is " + actual);
+                } else if (actual != expected) {
+                    mismatches.add(itemId + " holds " + actual + " but seeded " + seeded + " - sold "
+                            + sold.getOrDefault(itemId, 0) + " + returned " + returned.getOrDefault(itemId, 0) + " = " + expected);
+                }
+            });
+            if (mismatches.isEmpty()) {
+                break;
+            }
+            Thread.sleep(1000);
+        }
+        violations.addAll(mismatches);
+        if (sold.keySet().stream().anyMatch(itemId -> !initial.containsKey(itemId))) {
+            violations.add("sales include items that were not seeded");
+        }
+    }
+
+    private static Reply created(Reply reply, String what) {
+        if (!reply.ok()) {
+            throw new IllegalStateException("Seeding " + what + " failed: " + reply.status() + " " + reply.body());
+        }
+        return reply;
+    }
+
+    private String option(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    private int intOption(String name, int defaultValue) {
+        String value = options.get(name);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+}
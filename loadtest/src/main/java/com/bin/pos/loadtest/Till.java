@@ -0,0 +1,190 @@
+package com.bin.pos.loadtest;
+
+import com.bin.pos.loadtest.PosClient.Reply;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.math.BigDecimal;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * One checkout lane: creates a sale, scans a few items, pays, and now and then takes the sale back,
+ * until the deadline. Keeps its own latencies and counters; the run merges them once the tills stop.
+ */
+final class Till implements Runnable {
+
+    enum Step {SALE, CREATE, ADD_ITEM, PAY, RETURN}
+
+    /**
+     * The seeded data the tills sell from. Hot items take half of all scans and run out of stock first.
+     */
+    record Catalogue(List<String> hotItems, List<String> items, List<Long> customers) {
+    }
+
+    private final PosClient client;
+    private final Catalogue catalogue;
+    private final int maxLines;
+    private final int returnPercent;
+    private final long measureFrom;
+    private final long deadline;
+    private final Random random;
+
+    final Map<Step, Latencies> latencies = new EnumMap<>(Step.class);
+    final Map<String, Integer> sold = new HashMap<>();
+    final Map<String, Integer> returned = new HashMap<>();
+    final List<String> violations;
+    int completedSales;
+    int rejectedSales;
+    int rejectedLines;
+    int returns;
+    int requests;
+    int errors;
+    String firstError;
+
+    Till(int number, PosClient client, Catalogue catalogue, int maxLines, int returnPercent,
+         long measureFrom, long deadline, List<String> violations) {
+        this.client = client;
+        this.catalogue = catalogue;
+        this.maxLines = maxLines;
+        this.returnPercent = returnPercent;
+        this.measureFrom = measureFrom;
+        this.deadline = deadline;
+        this.violations = violations;
+        this.random = new Random(number);
+        for (Step step : Step.values()) {
+            latencies.put(step, new Latencies());
+        }
+    }
+
+    @Override
+    public void run() {
+        while (System.nanoTime() < deadline) {
+            try {
+                sale();
+            } catch (RuntimeException e) {
+                error(e.toString());
+            }
+        }
+    }
+
+    private void sale() {
+        long start = System.nanoTime();
+        Long customer = catalogue.customers().get(random.nextInt(catalogue.customers().size()));
+        Reply created = timed(Step.CREATE, () -> client.post("/api/sales",
+                Map.of("customer", Map.of("id", customer), "items", List.of())));
+        if (created.status() != 201) {
+            error("create returned " + created.status() + " " + created.body());
+            return;
+        }
+        long id = created.body().get("id").asLong();
+
+        JsonNode basket = null;
+        int lines = 1 + random.nextInt(maxLines);
+        for (int line = 0; line < lines; line++) {
+            String path = "/api/sales/" + id + "/items?itemId=" + encode(pickItem()) + "&quantity=" + (1 + random.nextInt(3));
+            Reply added = timed(Step.ADD_ITEM, () -> client.post(path));
+            if (added.ok()) {
+                basket = added.body();
+            } else if (added.status() == 409) {
+                rejectedLines++;
+            } else {
+                error("add item returned " + added.status() + " " + added.body());
+            }
+        }
+        if (basket == null) {
+            cancel(id);
+            return;
+        }
+
+        BigDecimal total = new BigDecimal(basket.get("totalAmount").asText());
+        Reply paid = timed(Step.PAY, () -> client.post("/api/sales/" + id + "/payment?paymentMethod=CASH&amount=" + total));
+        if (paid.status() == 409) {
+            // Someone else sold the last units between scan and payment
+            rejectedSales++;
+            cancel(id);
+            return;
+        }
+        if (!paid.ok()) {
+            error("payment returned " + paid.status() + " " + paid.body());
+            return;
+        }
+        JsonNode sale = paid.body();
+        if (!"COMPLETED".equals(sale.path("status").asText())) {
+            violation("sale " + id + " was paid but is " + sale.path("status").asText());
+        }
+        if (new BigDecimal(sale.get("totalAmount").asText()).compareTo(total) != 0) {
+            violation("sale " + id + " was priced at " + total + " but paid at " + sale.get("totalAmount").asText());
+        }
+        count(sale, sold);
+        completedSales++;
+        record(Step.SALE, start);
+
+        if (random.nextInt(100) < returnPercent) {
+            Reply back = timed(Step.RETURN, () -> client.post("/api/sales/" + id + "/return"));
+            if (back.ok()) {
+                if (!"RETURNED".equals(back.body().path("status").asText())) {
+                    violation("sale " + id + " was returned but is " + back.body().path("status").asText());
+                }
+                count(back.body(), returned);
+                returns++;
+            } else {
+                error("return returned " + back.status() + " " + back.body());
+            }
+        }
+    }
+
+    private String pickItem() {
+        List<String> pool = !catalogue.hotItems().isEmpty() && random.nextBoolean() ? catalogue.hotItems() : catalogue.items();
+        return pool.get(random.nextInt(pool.size()));
+    }
+
+    // An empty or unpayable basket is voided so its reservations, if any, are released
+    private void cancel(long id) {
+        requests++;
+        Reply voided = client.post("/api/sales/" + id + "/void");
+        if (!voided.ok()) {
+            error("void returned " + voided.status() + " " + voided.body());
+        }
+    }
+
+    private static void count(JsonNode sale, Map<String, Integer> units) {
+        for (JsonNode line : sale.path("items")) {
+            units.merge(line.path("item").path("itemId").asText(), line.path("quantity").asInt(), Integer::sum);
+        }
+    }
+
+    private Reply timed(Step step, Supplier<Reply> call) {
+        long start = System.nanoTime();
+        requests++;
+        Reply reply = call.get();
+        record(step, start);
+        return reply;
+    }
+
+    private void record(Step step, long start) {
+        if (start >= measureFrom) {
+            latencies.get(step).add(System.nanoTime() - start);
+        }
+    }
+
+    private void violation(String message) {
+        violations.add(message);
+    }
+
+    private void error(String message) {
+        errors++;
+        if (firstError == null) {
+            firstError = message;
+        }
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
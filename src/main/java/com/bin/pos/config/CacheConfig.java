@@ -0,0 +1,52 @@
+package com.bin.pos.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read-through caches for the catalogue the tills read on every sale
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String PRODUCT_LIST = "productList";
+    public static final String PRODUCTS_BY_ID = "productsById";
+    public static final String PRODUCTS_BY_PRODUCT_ID = "productsByProductId";
+    public static final String SERVICE_LISTS = "serviceLists";
+    public static final String SERVICES_BY_ID = "servicesById";
+    public static final String SERVICES_BY_SERVICE_ID = "servicesByServiceId";
+    public static final String INVENTORY_ITEMS = "inventoryItems";
+    public static final String INVENTORY_ITEM_IDS = "inventoryItemIds";
+
+    public static final List<String> CACHE_NAMES = List.of(
+            PRODUCT_LIST, PRODUCTS_BY_ID, PRODUCTS_BY_PRODUCT_ID,
+            SERVICE_LISTS, SERVICES_BY_ID, SERVICES_BY_SERVICE_ID,
+            INVENTORY_ITEMS, INVENTORY_ITEM_IDS);
+
+    @Bean
+    public CacheManager cacheManager(
+            @Value("${pos.catalog.cache.maximum-size:10000}") long maximumSize,
+            @Value("${pos.catalog.cache.ttl-minutes:10}") long ttlMinutes) {
+        CaffeineCacheManager caffeineCacheManager = new CaffeineCacheManager();
+        caffeineCacheManager.setCacheNames(CACHE_NAMES);
+        // A miss is never stored, so something created on another instance is not hidden until the TTL
+        caffeineCacheManager.setAllowNullValues(false);
+        caffeineCacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttlMinutes, TimeUnit.MINUTES)
+                .recordStats());
+
+        // Evictions made inside a transaction wait for it to commit, so a rolled back write leaves the cache alone
+        return new TransactionAwareCacheManagerProxy(caffeineCacheManager);
+    }
+}
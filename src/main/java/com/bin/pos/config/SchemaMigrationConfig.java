@@ -0,0 +1,73 @@
+package com.bin.pos.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data fixes that have to run before Hibernate updates the schema, because the
+ * schema change would fail on the data as it is.
+ */
+@Configuration
+public class SchemaMigrationConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaMigrationConfig.class);
+
+    private static final String BARCODE_MIGRATION = "barcodeMigration";
+
+    private static final String BLANK_BARCODES_SQL =
+            "UPDATE products SET barcode = NULL WHERE barcode IS NOT NULL AND TRIM(barcode) = ''";
+    private static final String DUPLICATE_BARCODES_SQL =
+            "SELECT barcode, product_id FROM products WHERE barcode IN " +
+            "(SELECT barcode FROM products WHERE barcode IS NOT NULL GROUP BY barcode HAVING COUNT(*) > 1) " +
+            "ORDER BY barcode, id";
+
+    // Hibernate's schema update waits for the migrations below
+    @Bean
+    public static EntityManagerFactoryDependsOnPostProcessor migrationsBeforeSchemaUpdate() {
+        return new EntityManagerFactoryDependsOnPostProcessor(BARCODE_MIGRATION);
+    }
+
+    /**
+     * products.barcode is unique. Blank barcodes stored before writes turned them
+     * into NULL are cleared so they stop colliding; real duplicates need a person to
+     * decide, so they are reported and the constraint stays off until they are fixed.
+     */
+    @Bean(BARCODE_MIGRATION)
+    public InitializingBean barcodeMigration(DataSource dataSource) {
+        return () -> migrateBarcodes(new JdbcTemplate(dataSource));
+    }
+
+    private static void migrateBarcodes(JdbcTemplate jdbcTemplate) {
+        int cleared;
+        try {
+            cleared = jdbcTemplate.update(BLANK_BARCODES_SQL);
+        } catch (BadSqlGrammarException e) {
+            // A new database: Hibernate is about to create the table
+            return;
+        }
+        if (cleared > 0) {
+            log.info("Cleared {} blank product barcode(s)", cleared);
+        }
+
+        Map<String, List<String>> duplicates = new LinkedHashMap<>();
+        jdbcTemplate.query(DUPLICATE_BARCODES_SQL, rs -> {
+            duplicates.computeIfAbsent(rs.getString("barcode"), barcode -> new ArrayList<>())
+                    .add(rs.getString("product_id"));
+        });
+        duplicates.forEach((barcode, products) -> log.warn(
+                "Barcode {} is shared by products {}; products.barcode cannot be made unique until only one keeps it",
+                barcode, products));
+    }
+}
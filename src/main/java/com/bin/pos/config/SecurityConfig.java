@@ -2,9 +2,15 @@ package com.bin.pos.config;
 
 import com.bin.pos.config.security.JwtAuthenticationEntryPoint;
 import com.bin.pos.config.security.JwtRequestFilter;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authorization.AuthorityAuthorizationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -15,22 +21,31 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.filter.CorsFilter;
 
+import java.util.List;
+
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity
 public class SecurityConfig {
 
+    private static final List<String> FORWARDING_HEADERS = List.of("Forwarded", "X-Forwarded-For", "X-Real-IP");
+
     private final JwtAuthenticationEntryPoint jwtAuthEntryPoint;
     private final JwtRequestFilter jwtRequestFilter;
+    private final List<IpAddressMatcher> scrapeNetworks;
 
-    public SecurityConfig(JwtAuthenticationEntryPoint jwtAuthEntryPoint, JwtRequestFilter jwtRequestFilter) {
+    public SecurityConfig(JwtAuthenticationEntryPoint jwtAuthEntryPoint, JwtRequestFilter jwtRequestFilter,
+                          @Value("${pos.monitoring.scrape-networks:127.0.0.1/32,::1/128}") List<String> scrapeNetworks) {
         this.jwtAuthEntryPoint = jwtAuthEntryPoint;
         this.jwtRequestFilter = jwtRequestFilter;
+        this.scrapeNetworks = scrapeNetworks.stream().map(String::trim).map(IpAddressMatcher::new).toList();
     }
 
     @Bean
@@ -39,9 +54,14 @@ public class SecurityConfig {
                 .cors(Customizer.withDefaults())
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(auth -> auth
+                        // The dispatch that completes a streamed export; the request was authorized on the way in
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/h2-console/**").permitAll()
                         .requestMatchers("/swagger-ui/**", "/v3/api-docs/**").permitAll()
+                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/prometheus").access(scrapeAccess())
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .requestMatchers("/api/orders/**").hasAnyRole("ADMIN", "MANAGER", "EMPLOYEE")
                         .requestMatchers("/api/inventory/**").hasAnyRole("ADMIN", "MANAGER", "EMPLOYEE")
                         .requestMatchers("/api/service-offerings/**").hasAnyRole("ADMIN", "MANAGER", "EMPLOYEE")
@@ -50,6 +70,8 @@ public class SecurityConfig {
                         .requestMatchers("/api/jobs/**").hasAnyRole("ADMIN", "MANAGER", "EMPLOYEE")
                         .requestMatchers("/api/services/**").hasAnyRole("ADMIN", "MANAGER", "EMPLOYEE", "CASHIER")
                         .requestMatchers("/api/reports/**").hasAnyRole("ADMIN", "MANAGER")
+                        .requestMatchers("/api/purchase-orders/**").hasAnyRole("ADMIN", "MANAGER")
+                        .requestMatchers("/api/catalog/**").hasAnyRole("ADMIN", "MANAGER")
                         .requestMatchers("/api/users/**").hasRole("ADMIN")
                         .anyRequest().authenticated()
                 )
@@ -65,6 +87,24 @@ public class SecurityConfig {
         return http.build();
     }
 
+    /**
+     * Prometheus scrapes without a token, so only from pos.monitoring.scrape-networks; anyone else
+     * needs ADMIN. Behind a reverse proxy the remote address is the proxy's, so a request that
+     * carries forwarding headers is never let in by address.
+     */
+    private AuthorizationManager<RequestAuthorizationContext> scrapeAccess() {
+        AuthorizationManager<RequestAuthorizationContext> admin = AuthorityAuthorizationManager.hasRole("ADMIN");
+        return (authentication, context) -> {
+            HttpServletRequest request = context.getRequest();
+            boolean direct = FORWARDING_HEADERS.stream().noneMatch(header -> request.getHeader(header) != null);
+            String address = request.getRemoteAddr();
+            if (direct && scrapeNetworks.stream().anyMatch(network -> network.matches(address))) {
+                return new AuthorizationDecision(true);
+            }
+            return admin.check(authentication, context);
+        };
+    }
+
     @Bean
     public PasswordEncoder passwordEncoder() {
         return new BCryptPasswordEncoder();
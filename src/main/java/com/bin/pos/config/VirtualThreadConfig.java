@@ -0,0 +1,65 @@
+package com.bin.pos.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Opt-in: serve requests, and run @Async and streamed-response work, on virtual threads
+ * (pos.threads.virtual=true, Java 21 or later at runtime).
+ *
+ * A request waiting on MySQL then parks its virtual thread instead of holding one of Tomcat's
+ * 200 platform threads, so the number of open tills is no longer capped by the thread pool.
+ * The connection pool becomes the limit on concurrent database work; see spring.datasource.hikari.
+ * Virtual threads are created through reflection so the build stays on Java 17.
+ *
+ * The MySQL driver has to be Connector/J 9 or later: 8.0 enters a monitor in nearly every
+ * connection and statement call, which pins the carrier thread for the whole round trip.
+ *
+ * Run with -Djdk.tracePinnedThreads=short to report any code that blocks while pinned.
+ */
+@Configuration
+@ConditionalOnProperty(name = "pos.threads.virtual", havingValue = "true")
+public class VirtualThreadConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadRequestExecutor() {
+        Executor executor = virtualThreadExecutor("http-");
+        log.info("Serving requests on virtual threads");
+        return protocolHandler -> protocolHandler.setExecutor(executor);
+    }
+
+    // Replaces the auto-configured pool used by @Async and by MVC for streamed responses
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(virtualThreadExecutor("task-"));
+    }
+
+    private static Executor virtualThreadExecutor(String prefix) {
+        ThreadFactory factory = virtualThreadFactory(prefix);
+        return task -> factory.newThread(task).start();
+    }
+
+    // Thread.ofVirtual().name(prefix, 0).factory()
+    private static ThreadFactory virtualThreadFactory(String prefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> type = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            builder = type.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            return (ThreadFactory) type.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("pos.threads.virtual needs Java 21 or later, running on " + Runtime.version(), e);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.bin.pos.config.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Records how many SQL statements each request ran, per endpoint, so an N+1
+ * shows up as a jump in pos.db.statements rather than as a slow till.
+ * Work handed to another thread (streamed exports) is not counted.
+ */
+public class StatementCountFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+
+    public StatementCountFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        StatementCounter.begin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            int statements = StatementCounter.end();
+
+            // Same uri tag as http.server.requests: the mapped pattern, never the raw path
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            DistributionSummary.builder("pos.db.statements")
+                    .description("SQL statements run per HTTP request")
+                    .baseUnit("statements")
+                    .serviceLevelObjectives(1, 2, 5, 10, 20, 50, 100)
+                    .tag("method", request.getMethod())
+                    .tag("uri", pattern != null ? pattern.toString() : "UNKNOWN")
+                    .register(meterRegistry)
+                    .record(statements);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.bin.pos.config.metrics;
+
+/**
+ * Counts the SQL statements prepared on the current thread while a count is open,
+ * whether they come from Hibernate or from a JdbcTemplate. A batch counts once.
+ */
+public final class StatementCounter {
+
+    private static final ThreadLocal<int[]> COUNT = new ThreadLocal<>();
+
+    private StatementCounter() {
+    }
+
+    /**
+     * Start counting on this thread
+     */
+    public static void begin() {
+        COUNT.set(new int[1]);
+    }
+
+    /**
+     * Stop counting on this thread and return the number of statements seen since {@link #begin()}
+     */
+    public static int end() {
+        int[] count = COUNT.get();
+        COUNT.remove();
+        return count != null ? count[0] : 0;
+    }
+
+    static void statementPrepared() {
+        int[] count = COUNT.get();
+        if (count != null) {
+            count[0]++;
+        }
+    }
+}
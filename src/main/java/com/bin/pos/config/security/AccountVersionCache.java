@@ -0,0 +1,72 @@
+package com.bin.pos.config.security;
+
+import com.bin.pos.dal.repository.UserRepository;
+import com.bin.pos.service.TransactionHooks;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Current token version and status of every account, kept in memory so a
+ * token can be checked for revocation without reading the users table.
+ * UserService updates it after each committed role, status or password change.
+ */
+@Component
+public class AccountVersionCache {
+
+    private static final AccountState REVOKED = new AccountState(-1, false);
+
+    private final UserRepository userRepository;
+    private final Map<Long, AccountState> accounts = new ConcurrentHashMap<>();
+
+    @Autowired
+    public AccountVersionCache(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    @PostConstruct
+    void warm() {
+        userRepository.findAllAccountStates().forEach(state ->
+                accounts.put(state.getId(), new AccountState(state.getTokenVersion(), state.getActive())));
+    }
+
+    /**
+     * Whether a token issued for the given account version is still good
+     */
+    public boolean isCurrent(Long userId, long tokenVersion) {
+        AccountState state = accounts.get(userId);
+        if (state == null) {
+            // Accounts created by another instance since startup
+            AccountState loaded = userRepository.findAccountStateById(userId)
+                    .map(found -> new AccountState(found.getTokenVersion(), found.getActive()))
+                    .orElse(REVOKED);
+            AccountState existing = accounts.putIfAbsent(userId, loaded);
+            state = existing != null ? existing : loaded;
+        }
+        return state.active && state.version == tokenVersion;
+    }
+
+    /**
+     * Record an account's new version once the surrounding transaction commits
+     */
+    public void update(Long userId, long tokenVersion, boolean active) {
+        TransactionHooks.afterCommit(() -> accounts.put(userId, new AccountState(tokenVersion, active)));
+    }
+
+    public void revoke(Long userId) {
+        TransactionHooks.afterCommit(() -> accounts.put(userId, REVOKED));
+    }
+
+    private static final class AccountState {
+        private final long version;
+        private final boolean active;
+
+        private AccountState(long version, boolean active) {
+            this.version = version;
+            this.active = active;
+        }
+    }
+}
@@ -1,12 +1,17 @@
 package com.bin.pos.config.security;
 
 import com.bin.pos.config.security.JwtTokenUtil;
+import com.bin.pos.dal.model.User;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -22,44 +27,83 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
     private UserDetailsService userDetailsService;
     private JwtTokenUtil jwtTokenUtil;
+    private AccountVersionCache accountVersionCache;
+    private boolean statelessAuth;
+    private MeterRegistry meterRegistry;
 
     @Autowired
-    public JwtRequestFilter(UserDetailsService userDetailsService, JwtTokenUtil jwtTokenUtil) {
+    public JwtRequestFilter(UserDetailsService userDetailsService, JwtTokenUtil jwtTokenUtil,
+                            AccountVersionCache accountVersionCache,
+                            @Value("${jwt.stateless-auth:false}") boolean statelessAuth,
+                            MeterRegistry meterRegistry) {
         this.userDetailsService = userDetailsService;
         this.jwtTokenUtil = jwtTokenUtil;
+        this.accountVersionCache = accountVersionCache;
+        this.statelessAuth = statelessAuth;
+        this.meterRegistry = meterRegistry;
     }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
             throws ServletException, IOException {
 
+        // Time spent authenticating the request, apart from the request itself
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = authenticate(request);
+        sample.stop(meterRegistry.timer("pos.auth.jwt", "outcome", outcome));
+
+        chain.doFilter(request, response);
+    }
+
+    /**
+     * Set the authentication for a valid bearer token; returns the outcome for the timer
+     */
+    private String authenticate(HttpServletRequest request) {
         final String requestTokenHeader = request.getHeader("Authorization");
 
         String username = null;
-        String jwtToken = null;
+        Claims claims = null;
 
         // JWT Token is in the form "Bearer token". Remove Bearer word and get only the Token
         if (requestTokenHeader != null && requestTokenHeader.startsWith("Bearer ")) {
-            jwtToken = requestTokenHeader.substring(7);
+            String jwtToken = requestTokenHeader.substring(7);
             try {
-                username = jwtTokenUtil.getUsernameFromToken(jwtToken);
+                // Parsed and verified once; the claims are reused below
+                claims = jwtTokenUtil.getAllClaimsFromToken(jwtToken);
+                username = claims.getSubject();
             } catch (IllegalArgumentException e) {
                 logger.warn("Unable to get JWT Token");
+                return "invalid";
             } catch (ExpiredJwtException e) {
                 logger.warn("JWT Token has expired");
+                return "expired";
             } catch (Exception e) {
                 logger.warn("Invalid JWT Token");
+                return "invalid";
             }
         } else {
             logger.debug("JWT Token does not begin with Bearer String or is null");
+            return "none";
         }
 
         // Once we get the token validate it
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+            User tokenUser = statelessAuth ? jwtTokenUtil.getUserFromClaims(claims) : null;
+
+            UserDetails userDetails;
+            if (tokenUser != null) {
+                // The signed claims carry everything needed; only revocation is checked, in memory
+                if (!accountVersionCache.isCurrent(tokenUser.getId(), tokenUser.getTokenVersion())) {
+                    logger.warn("JWT Token has been revoked");
+                    return "revoked";
+                }
+                userDetails = tokenUser;
+            } else {
+                userDetails = this.userDetailsService.loadUserByUsername(username);
+            }
 
             // If token is valid configure Spring Security to manually set authentication
-            if (jwtTokenUtil.validateToken(jwtToken, userDetails)) {
+            if (jwtTokenUtil.validateToken(claims, userDetails)) {
                 UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken =
                         new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
 
@@ -70,8 +114,10 @@ public class JwtRequestFilter extends OncePerRequestFilter {
                 // that the current user is authenticated. So it passes the
                 // Spring Security Configurations successfully.
                 SecurityContextHolder.getContext().setAuthentication(usernamePasswordAuthenticationToken);
+                return "authenticated";
             }
+            return "rejected";
         }
-        chain.doFilter(request, response);
+        return username != null ? "authenticated" : "invalid";
     }
 }
\ No newline at end of file
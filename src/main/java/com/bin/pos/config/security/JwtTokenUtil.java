@@ -1,19 +1,28 @@
 package com.bin.pos.config.security;
 
 
+import com.bin.pos.dal.model.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 @Component
@@ -25,16 +34,66 @@ public class JwtTokenUtil {
     @Value("${jwt.secret}")
     private String secret;
 
+    // Upper bound on remembered tokens; roughly one per active session
+    @Value("${jwt.verified-cache-size:10000}")
+    private int verifiedCacheSize;
+
+    // Built once: the key and parser are immutable and thread-safe
+    private Key signingKey;
+    private JwtParser jwtParser;
+
+    // SHA-256 of token -> claims whose signature was already checked
+    private final Map<String, VerifiedToken> verifiedTokens = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+    }
+
+    // Claims that let a request be authenticated without loading the user
+    static final String CLAIM_USER_ID = "uid";
+    static final String CLAIM_ROLES = "roles";
+    static final String CLAIM_TOKEN_VERSION = "ver";
+
     // Generate token for user
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
+        if (userDetails instanceof User user) {
+            claims.put(CLAIM_USER_ID, user.getId());
+            claims.put(CLAIM_ROLES, new ArrayList<>(user.getRoles()));
+            claims.put(CLAIM_TOKEN_VERSION, user.getTokenVersion());
+        }
         return doGenerateToken(claims, userDetails.getUsername());
     }
 
+    // Rebuild the user from a token's claims; null for tokens issued without them
+    public User getUserFromClaims(Claims claims) {
+        Number userId = claims.get(CLAIM_USER_ID, Number.class);
+        Number tokenVersion = claims.get(CLAIM_TOKEN_VERSION, Number.class);
+        List<?> roles = claims.get(CLAIM_ROLES, List.class);
+        if (userId == null || tokenVersion == null || roles == null) {
+            return null;
+        }
+
+        User user = new User();
+        user.setId(userId.longValue());
+        user.setUsername(claims.getSubject());
+        user.setTokenVersion(tokenVersion.longValue());
+        roles.forEach(role -> user.addRole(role.toString()));
+        return user;
+    }
+
     // Validate token
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = getUsernameFromToken(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return validateToken(getAllClaimsFromToken(token), userDetails);
+    }
+
+    // Validate already verified claims without parsing the token again
+    public Boolean validateToken(Claims claims, UserDetails userDetails) {
+        return (claims.getSubject().equals(userDetails.getUsername()) && !claims.getExpiration().before(new Date()));
     }
 
     // Extract username from token
@@ -59,25 +118,64 @@ public class JwtTokenUtil {
         return claimsResolver.apply(claims);
     }
 
-    // Extract all claims from token
-    private Claims getAllClaimsFromToken(String token) {
-        Key key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    // Extract all claims from token, verifying the signature only the first time it is seen
+    public Claims getAllClaimsFromToken(String token) {
+        String hash = hash(token);
+        VerifiedToken verified = verifiedTokens.get(hash);
+        if (verified != null) {
+            if (verified.expiresAt > System.currentTimeMillis()) {
+                return verified.claims;
+            }
+            // Expired: fall through so the parser raises ExpiredJwtException
+            verifiedTokens.remove(hash, verified);
+        }
+
+        Claims claims = jwtParser.parseClaimsJws(token).getBody();
+        if (claims.getExpiration() != null) {
+            remember(hash, new VerifiedToken(claims, claims.getExpiration().getTime()));
+        }
+        return claims;
+    }
+
+    private void remember(String hash, VerifiedToken verified) {
+        if (verifiedTokens.size() >= verifiedCacheSize) {
+            long now = System.currentTimeMillis();
+            verifiedTokens.values().removeIf(entry -> entry.expiresAt <= now);
+            if (verifiedTokens.size() >= verifiedCacheSize) {
+                // Still full of live tokens; start over rather than grow without bound
+                verifiedTokens.clear();
+            }
+        }
+        verifiedTokens.put(hash, verified);
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 
     // Generate token based on claims and subject
     private String doGenerateToken(Map<String, Object> claims, String subject) {
-        Key key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
         return Jwts.builder()
                 .setClaims(claims)
                 .setSubject(subject)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + JWT_TOKEN_VALIDITY))
-                .signWith(key, SignatureAlgorithm.HS512)
+                .signWith(signingKey, SignatureAlgorithm.HS512)
                 .compact();
     }
+
+    private static final class VerifiedToken {
+        private final Claims claims;
+        private final long expiresAt;
+
+        private VerifiedToken(Claims claims, long expiresAt) {
+            this.claims = claims;
+            this.expiresAt = expiresAt;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,40 @@
+package com.bin.pos.controller;
+
+import com.bin.pos.dal.dto.ApiResponse;
+import com.bin.pos.dal.dto.CacheStatsDTO;
+import com.bin.pos.service.CacheStatsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/caches")
+@PreAuthorize("hasRole('ADMIN')")
+public class CacheController {
+
+    private final CacheStatsService cacheStatsService;
+
+    @Autowired
+    public CacheController(CacheStatsService cacheStatsService) {
+        this.cacheStatsService = cacheStatsService;
+    }
+
+    // Hit, miss and eviction counts of each catalogue cache
+    @GetMapping
+    public ResponseEntity<List<CacheStatsDTO>> getCacheStats() {
+        return ResponseEntity.ok(cacheStatsService.getCacheStats());
+    }
+
+    @DeleteMapping
+    public ResponseEntity<?> clearCaches() {
+        cacheStatsService.clearAll();
+        return ResponseEntity.ok(new ApiResponse<>(true, "Catalogue caches cleared", null, LocalDateTime.now()));
+    }
+}
@@ -0,0 +1,63 @@
+package com.bin.pos.controller;
+
+import com.bin.pos.dal.dto.ApiResponse;
+import com.bin.pos.dal.dto.CatalogImportResult;
+import com.bin.pos.dal.dto.ExportFormat;
+import com.bin.pos.service.CatalogTransferService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@RestController
+@RequestMapping("/api/catalog")
+public class CatalogController {
+
+    private final CatalogTransferService catalogTransferService;
+
+    @Autowired
+    public CatalogController(CatalogTransferService catalogTransferService) {
+        this.catalogTransferService = catalogTransferService;
+    }
+
+    /**
+     * Create or update products and inventory items from a CSV or NDJSON body read as it arrives.
+     * Rejected rows are listed in the result, the rest are imported.
+     */
+    @PostMapping("/import")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<?> importCatalog(
+            @RequestParam(defaultValue = "CSV") ExportFormat format,
+            InputStream body) {
+        try {
+            CatalogImportResult result = catalogTransferService.importCatalog(body, format);
+            return ResponseEntity.ok(result);
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ApiResponse<>(false, "Could not read the import: " + e.getMessage(), null, LocalDateTime.now()));
+        }
+    }
+
+    /**
+     * Stream every product and item in the layout the import reads
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<StreamingResponseBody> exportCatalog(@RequestParam(defaultValue = "CSV") ExportFormat format) {
+        StreamingResponseBody body = out -> catalogTransferService.exportCatalog(format, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"catalog-"
+                        + LocalDate.now() + "." + format.getExtension() + "\"")
+                .body(body);
+    }
+}
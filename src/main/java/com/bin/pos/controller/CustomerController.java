@@ -1,5 +1,6 @@
 package com.bin.pos.controller;
 
+import com.bin.pos.dal.dto.CustomerDTO;
 import com.bin.pos.dal.model.Customer;
 import com.bin.pos.service.CustomerService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,7 +24,7 @@ public class CustomerController {
 
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'EMPLOYEE')")
-    public ResponseEntity<List<Customer>> getAllCustomers() {
+    public ResponseEntity<List<CustomerDTO>> getAllCustomers() {
         return ResponseEntity.ok(customerService.getAllCustomers());
     }
 
@@ -53,7 +54,7 @@ public class CustomerController {
 
     @GetMapping("/search")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'EMPLOYEE')")
-    public ResponseEntity<List<Customer>> searchCustomers(@RequestParam String searchTerm) {
+    public ResponseEntity<List<CustomerDTO>> searchCustomers(@RequestParam String searchTerm) {
         return ResponseEntity.ok(customerService.searchCustomers(searchTerm));
     }
 
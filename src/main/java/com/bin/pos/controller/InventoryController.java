@@ -1,13 +1,26 @@
 package com.bin.pos.controller;
 
+import com.bin.pos.dal.dto.ApiResponse;
+import com.bin.pos.dal.dto.BarcodeScanDTO;
 import com.bin.pos.dal.dto.InventoryItemDTO;
+import com.bin.pos.dal.dto.InventoryMovementDTO;
+import com.bin.pos.dal.dto.StockLevelDTO;
+import com.bin.pos.dal.dto.ForecastRunResult;
+import com.bin.pos.dal.model.ItemDemandForecast;
+import com.bin.pos.dal.model.MovementType;
+import com.bin.pos.service.AdvancedInventoryService;
+import com.bin.pos.service.BarcodeLookupService;
+import com.bin.pos.service.InventoryMovementService;
 import com.bin.pos.service.InventoryService;
+import com.bin.pos.service.InventorySnapshotService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -15,10 +28,23 @@ import java.util.List;
 public class InventoryController {
 
     private final InventoryService inventoryService;
+    private final BarcodeLookupService barcodeLookupService;
+    private final InventoryMovementService inventoryMovementService;
+    private final InventorySnapshotService inventorySnapshotService;
+    private final AdvancedInventoryService advancedInventoryService;
 
     @Autowired
-    public InventoryController(InventoryService inventoryService) {
+    public InventoryController(
+            InventoryService inventoryService,
+            BarcodeLookupService barcodeLookupService,
+            InventoryMovementService inventoryMovementService,
+            InventorySnapshotService inventorySnapshotService,
+            AdvancedInventoryService advancedInventoryService) {
         this.inventoryService = inventoryService;
+        this.barcodeLookupService = barcodeLookupService;
+        this.inventoryMovementService = inventoryMovementService;
+        this.inventorySnapshotService = inventorySnapshotService;
+        this.advancedInventoryService = advancedInventoryService;
     }
 
     @GetMapping
@@ -46,6 +72,15 @@ public class InventoryController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    // Resolve a till scan to the item, price and stock it sells
+    @GetMapping("/barcode/{barcode}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'EMPLOYEE')")
+    public ResponseEntity<BarcodeScanDTO> lookupBarcode(@PathVariable String barcode) {
+        return barcodeLookupService.lookup(barcode)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @GetMapping("/category/{category}")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'EMPLOYEE')")
     public ResponseEntity<List<InventoryItemDTO>> getItemsByCategory(@PathVariable String category) {
@@ -54,8 +89,15 @@ public class InventoryController {
 
     @GetMapping("/search")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'EMPLOYEE')")
-    public ResponseEntity<List<InventoryItemDTO>> searchItems(@RequestParam String query) {
-        return ResponseEntity.ok(inventoryService.searchItems(query));
+    public ResponseEntity<List<InventoryItemDTO>> searchItems(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) Integer size) {
+        try {
+            return ResponseEntity.ok(inventoryService.searchItems(query, page, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/low-stock")
@@ -97,8 +139,10 @@ public class InventoryController {
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'EMPLOYEE')")
     public ResponseEntity<Void> updateItemQuantity(
             @PathVariable Long id,
-            @RequestParam int change) {
-        boolean updated = inventoryService.updateItemQuantity(id, change);
+            @RequestParam int change,
+            @RequestParam(required = false, defaultValue = "ADJUSTMENT") MovementType type,
+            @RequestParam(required = false) String notes) {
+        boolean updated = inventoryService.updateItemQuantity(id, change, type, notes);
         return updated ? ResponseEntity.ok().build() : ResponseEntity.badRequest().build();
     }
 
@@ -106,14 +150,109 @@ public class InventoryController {
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'EMPLOYEE')")
     public ResponseEntity<Void> updateItemQuantityByItemId(
             @PathVariable String itemId,
-            @RequestParam int change) {
+            @RequestParam int change,
+            @RequestParam(required = false, defaultValue = "ADJUSTMENT") MovementType type,
+            @RequestParam(required = false) String notes) {
         if (itemId == null || itemId.equals("undefined") || itemId.isEmpty()) {
             return ResponseEntity.badRequest().build();
         }
-        boolean updated = inventoryService.updateItemQuantityByItemId(itemId, change);
+        boolean updated = inventoryService.updateItemQuantityByItemId(itemId, change, type, notes);
         return updated ? ResponseEntity.ok().build() : ResponseEntity.badRequest().build();
     }
 
+    // Stock ledger of one item for [start, end); recent changes can take a flush interval to appear
+    @GetMapping("/by-item-id/{itemId}/movements")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<?> getItemMovements(
+            @PathVariable String itemId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+        try {
+            List<InventoryMovementDTO> movements = inventoryMovementService.getMovements(itemId, start, end);
+            return ResponseEntity.ok(movements);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse<>(false, e.getMessage(), null, LocalDateTime.now()));
+        }
+    }
+
+    @GetMapping("/by-item-id/{itemId}/stock-at")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<StockLevelDTO> getItemStockAt(
+            @PathVariable String itemId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        return inventorySnapshotService.getStockAt(itemId, at)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Stock of a whole category as it was at one time, e.g. the book side of a stocktake
+    @GetMapping("/stock-at")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<?> getCategoryStockAt(
+            @RequestParam String category,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        try {
+            List<StockLevelDTO> levels = inventorySnapshotService.getCategoryStockAt(category, at);
+            return ResponseEntity.ok(levels);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse<>(false, e.getMessage(), null, LocalDateTime.now()));
+        }
+    }
+
+    // Take a stock snapshot now instead of waiting for the nightly run
+    @PostMapping("/snapshots")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> takeSnapshot(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime takenAt) {
+        try {
+            int items = inventorySnapshotService.takeSnapshot(takenAt);
+            return ResponseEntity.ok(new ApiResponse<>(true, "Snapshot taken", items, LocalDateTime.now()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse<>(false, e.getMessage(), null, LocalDateTime.now()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ApiResponse<>(false, e.getMessage(), null, LocalDateTime.now()));
+        }
+    }
+
+    @PutMapping("/by-item-id/{itemId}/supplier")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<?> assignSupplier(
+            @PathVariable String itemId,
+            @RequestParam(required = false) String supplierId) {
+        try {
+            boolean updated = inventoryService.assignSupplier(itemId, supplierId);
+            return updated ? ResponseEntity.ok().build() : ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse<>(false, e.getMessage(), null, LocalDateTime.now()));
+        }
+    }
+
+    @GetMapping("/by-item-id/{itemId}/forecast")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<ItemDemandForecast> getItemForecast(@PathVariable String itemId) {
+        return advancedInventoryService.getForecast(itemId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Run the nightly forecast and reorder now
+    @PostMapping("/forecast")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> runForecast() {
+        try {
+            ForecastRunResult result = advancedInventoryService.runForecast();
+            return ResponseEntity.ok(result);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ApiResponse<>(false, e.getMessage(), null, LocalDateTime.now()));
+        }
+    }
+
     @DeleteMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
     public ResponseEntity<Void> deleteItem(@PathVariable Long id) {
@@ -1,24 +1,25 @@
 package com.bin.pos.controller;
 
+import com.bin.pos.dal.dto.ExportFormat;
 import com.bin.pos.dal.dto.OrderTransactionDTO;
 import com.bin.pos.dal.model.OrderStatus;
 import com.bin.pos.dal.model.OrderTransaction;
 import com.bin.pos.service.OrderService;
-import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/orders")
@@ -36,17 +37,14 @@ public class OrderController {
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'EMPLOYEE')")
     public ResponseEntity<List<OrderTransactionDTO>> getAllOrders() {
-        List<OrderTransactionDTO> orderDTOs = orderService.getAllOrders()
-                .stream()
-                .map(OrderTransactionDTO::new)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(orderDTOs);
+        return ResponseEntity.ok(orderService.getAllOrders());
     }
 
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'EMPLOYEE')")
-    public ResponseEntity<OrderTransaction> getOrderById(@PathVariable Long id) {
+    public ResponseEntity<OrderTransactionDTO> getOrderById(@PathVariable Long id) {
         return orderService.getOrderById(id)
+                .map(OrderTransactionDTO::new)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -66,7 +64,7 @@ public class OrderController {
 
     @GetMapping("/customer/{customerId}")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'EMPLOYEE')")
-    public ResponseEntity<List<OrderTransaction>> getOrdersByCustomer(@PathVariable String customerId) {
+    public ResponseEntity<List<OrderTransactionDTO>> getOrdersByCustomer(@PathVariable String customerId) {
         if (customerId == null || customerId.equals("undefined") || customerId.isEmpty()) {
             return ResponseEntity.badRequest().build();
         }
@@ -75,27 +73,44 @@ public class OrderController {
 
     @GetMapping("/status/{status}")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'EMPLOYEE')")
-    public ResponseEntity<List<OrderTransaction>> getOrdersByStatus(@PathVariable OrderStatus status) {
+    public ResponseEntity<List<OrderTransactionDTO>> getOrdersByStatus(@PathVariable OrderStatus status) {
         return ResponseEntity.ok(orderService.getOrdersByStatus(status));
     }
 
     @GetMapping("/period")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
-    public ResponseEntity<List<OrderTransaction>> getOrdersInPeriod(
+    public ResponseEntity<List<OrderTransactionDTO>> getOrdersInPeriod(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
         return ResponseEntity.ok(orderService.getOrdersInPeriod(start, end));
     }
 
+    /**
+     * Stream the period's orders as NDJSON or CSV without holding them in memory
+     */
+    @GetMapping("/period/export")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<StreamingResponseBody> exportOrdersInPeriod(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format) {
+        StreamingResponseBody body = out -> orderService.exportOrdersInPeriod(start, end, format, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"orders-"
+                        + start.toLocalDate() + "-" + end.toLocalDate() + "." + format.getExtension() + "\"")
+                .body(body);
+    }
+
     @PostMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'EMPLOYEE')")
-    public ResponseEntity<OrderTransaction> createOrder(@RequestBody OrderTransaction order) {
-        return ResponseEntity.status(HttpStatus.CREATED).body(orderService.createOrder(order));
+    public ResponseEntity<OrderTransactionDTO> createOrder(@RequestBody OrderTransaction order) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(new OrderTransactionDTO(orderService.createOrder(order)));
     }
 
     @PostMapping("/{id}/items")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'EMPLOYEE')")
-    public ResponseEntity<OrderTransaction> addItemToOrder(
+    public ResponseEntity<OrderTransactionDTO> addItemToOrder(
             @PathVariable Long id,
             @RequestBody Map<String, Object> request) {
 
@@ -107,7 +122,7 @@ public class OrderController {
 
             OrderTransaction updated = orderService.addItemToOrder(id, itemId, quantity, unitPrice);
             return updated != null ?
-                    ResponseEntity.ok(updated) :
+                    ResponseEntity.ok(new OrderTransactionDTO(updated)) :
                     ResponseEntity.badRequest().build();
         } catch (NumberFormatException | NullPointerException e) {
             return ResponseEntity.badRequest().build();
@@ -118,7 +133,7 @@ public class OrderController {
 
     @PostMapping("/by-order-id/{orderId}/items")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'EMPLOYEE')")
-    public ResponseEntity<OrderTransaction> addItemToOrderByOrderId(
+    public ResponseEntity<OrderTransactionDTO> addItemToOrderByOrderId(
             @PathVariable String orderId,
             @RequestBody Map<String, Object> request) {
 
@@ -134,7 +149,7 @@ public class OrderController {
 
             OrderTransaction updated = orderService.addItemToOrderByIds(orderId, itemId, quantity, unitPrice);
             return updated != null ?
-                    ResponseEntity.ok(updated) :
+                    ResponseEntity.ok(new OrderTransactionDTO(updated)) :
                     ResponseEntity.badRequest().build();
         } catch (NumberFormatException | NullPointerException e) {
             return ResponseEntity.badRequest().build();
@@ -145,49 +160,43 @@ public class OrderController {
 
     @PutMapping("/{id}/status")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'EMPLOYEE')")
-    public ResponseEntity<OrderTransaction> updateOrderStatus(
+    public ResponseEntity<OrderTransactionDTO> updateOrderStatus(
             @PathVariable Long id,
             @RequestParam OrderStatus status) {
         OrderTransaction updated = orderService.updateOrderStatus(id, status);
         return updated != null ?
-                ResponseEntity.ok(updated) :
+                ResponseEntity.ok(new OrderTransactionDTO(updated)) :
                 ResponseEntity.notFound().build();
     }
 
     @PutMapping("/by-order-id/{orderId}/status")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'EMPLOYEE')")
-    @Transactional
-    public ResponseEntity<OrderTransaction> updateOrderStatusByOrderId(
+    public ResponseEntity<OrderTransactionDTO> updateOrderStatusByOrderId(
             @PathVariable String orderId,
             @RequestParam OrderStatus status) {
         if (orderId == null || orderId.equals("undefined") || orderId.isEmpty()) {
             return ResponseEntity.badRequest().build();
         }
         OrderTransaction updated = orderService.updateOrderStatusByOrderId(orderId, status);
-
-        if (updated != null) {
-            // Force initialization of the items collection
-            updated.getItems().size();
-            return ResponseEntity.ok(updated);
-        } else {
-            return ResponseEntity.notFound().build();
-        }
+        return updated != null ?
+                ResponseEntity.ok(new OrderTransactionDTO(updated)) :
+                ResponseEntity.notFound().build();
     }
 
     @PutMapping("/{id}/tracking")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'EMPLOYEE')")
-    public ResponseEntity<OrderTransaction> updateTrackingInfo(
+    public ResponseEntity<OrderTransactionDTO> updateTrackingInfo(
             @PathVariable Long id,
             @RequestParam String trackingNumber) {
         OrderTransaction updated = orderService.updateTrackingInfo(id, trackingNumber);
         return updated != null ?
-                ResponseEntity.ok(updated) :
+                ResponseEntity.ok(new OrderTransactionDTO(updated)) :
                 ResponseEntity.notFound().build();
     }
 
     @PutMapping("/by-order-id/{orderId}/tracking")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'EMPLOYEE')")
-    public ResponseEntity<OrderTransaction> updateTrackingInfoByOrderId(
+    public ResponseEntity<OrderTransactionDTO> updateTrackingInfoByOrderId(
             @PathVariable String orderId,
             @RequestParam String trackingNumber) {
         if (orderId == null || orderId.equals("undefined") || orderId.isEmpty()) {
@@ -195,17 +204,17 @@ public class OrderController {
         }
         OrderTransaction updated = orderService.updateTrackingInfoByOrderId(orderId, trackingNumber);
         return updated != null ?
-                ResponseEntity.ok(updated) :
+                ResponseEntity.ok(new OrderTransactionDTO(updated)) :
                 ResponseEntity.notFound().build();
     }
 
     @PutMapping("/{id}/cancel")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
-    public ResponseEntity<OrderTransaction> cancelOrder(@PathVariable Long id) {
+    public ResponseEntity<OrderTransactionDTO> cancelOrder(@PathVariable Long id) {
         try {
             OrderTransaction cancelled = orderService.cancelOrder(id);
             return cancelled != null ?
-                    ResponseEntity.ok(cancelled) :
+                    ResponseEntity.ok(new OrderTransactionDTO(cancelled)) :
                     ResponseEntity.notFound().build();
         } catch (IllegalStateException e) {
             return ResponseEntity.status(HttpStatus.CONFLICT).body(null);
@@ -214,14 +223,14 @@ public class OrderController {
 
     @PutMapping("/by-order-id/{orderId}/cancel")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
-    public ResponseEntity<OrderTransaction> cancelOrderByOrderId(@PathVariable String orderId) {
+    public ResponseEntity<OrderTransactionDTO> cancelOrderByOrderId(@PathVariable String orderId) {
         if (orderId == null || orderId.equals("undefined") || orderId.isEmpty()) {
             return ResponseEntity.badRequest().build();
         }
         try {
             OrderTransaction cancelled = orderService.cancelOrderByOrderId(orderId);
             return cancelled != null ?
-                    ResponseEntity.ok(cancelled) :
+                    ResponseEntity.ok(new OrderTransactionDTO(cancelled)) :
                     ResponseEntity.notFound().build();
         } catch (IllegalStateException e) {
             return ResponseEntity.status(HttpStatus.CONFLICT).body(null);
@@ -230,11 +239,11 @@ public class OrderController {
 
     @PutMapping("/{id}/refund")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
-    public ResponseEntity<OrderTransaction> processOrderRefund(@PathVariable Long id) {
+    public ResponseEntity<OrderTransactionDTO> processOrderRefund(@PathVariable Long id) {
         try {
             OrderTransaction refunded = orderService.processOrderRefund(id);
             return refunded != null ?
-                    ResponseEntity.ok(refunded) :
+                    ResponseEntity.ok(new OrderTransactionDTO(refunded)) :
                     ResponseEntity.notFound().build();
         } catch (IllegalStateException e) {
             return ResponseEntity.status(HttpStatus.CONFLICT).body(null);
@@ -243,14 +252,14 @@ public class OrderController {
 
     @PutMapping("/by-order-id/{orderId}/refund")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
-    public ResponseEntity<OrderTransaction> processOrderRefundByOrderId(@PathVariable String orderId) {
+    public ResponseEntity<OrderTransactionDTO> processOrderRefundByOrderId(@PathVariable String orderId) {
         if (orderId == null || orderId.equals("undefined") || orderId.isEmpty()) {
             return ResponseEntity.badRequest().build();
         }
         try {
             OrderTransaction refunded = orderService.processOrderRefundByOrderId(orderId);
             return refunded != null ?
-                    ResponseEntity.ok(refunded) :
+                    ResponseEntity.ok(new OrderTransactionDTO(refunded)) :
                     ResponseEntity.notFound().build();
         } catch (IllegalStateException e) {
             return ResponseEntity.status(HttpStatus.CONFLICT).body(null);
@@ -1,5 +1,6 @@
 package com.bin.pos.controller;
 
+import com.bin.pos.dal.dto.ApiResponse;
 import com.bin.pos.dal.dto.ProductDTO;
 import com.bin.pos.service.ProductService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -8,6 +9,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -45,29 +47,53 @@ public class ProductController {
 
     @PostMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
-    public ResponseEntity<ProductDTO> createProduct(@RequestBody ProductDTO productDTO) {
-        return ResponseEntity.status(HttpStatus.CREATED)
-                .body(productService.createProduct(productDTO));
+    public ResponseEntity<?> createProduct(@RequestBody ProductDTO productDTO) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(productService.createProduct(productDTO));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ApiResponse<>(false, e.getMessage(), null, LocalDateTime.now()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse<>(false, e.getMessage(), null, LocalDateTime.now()));
+        }
     }
 
     @PutMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
-    public ResponseEntity<ProductDTO> updateProduct(@PathVariable Long id, @RequestBody ProductDTO productDTO) {
-        ProductDTO updatedProduct = productService.updateProduct(id, productDTO);
-        return updatedProduct != null ?
-                ResponseEntity.ok(updatedProduct) :
-                ResponseEntity.notFound().build();
+    public ResponseEntity<?> updateProduct(@PathVariable Long id, @RequestBody ProductDTO productDTO) {
+        try {
+            ProductDTO updatedProduct = productService.updateProduct(id, productDTO);
+            return updatedProduct != null ?
+                    ResponseEntity.ok(updatedProduct) :
+                    ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ApiResponse<>(false, e.getMessage(), null, LocalDateTime.now()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse<>(false, e.getMessage(), null, LocalDateTime.now()));
+        }
     }
 
     @PutMapping("/by-product-id/{productId}")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
-    public ResponseEntity<ProductDTO> updateProductByProductId(
+    public ResponseEntity<?> updateProductByProductId(
             @PathVariable String productId,
             @RequestBody ProductDTO productDTO) {
-        ProductDTO updatedProduct = productService.updateProductByProductId(productId, productDTO);
-        return updatedProduct != null ?
-                ResponseEntity.ok(updatedProduct) :
-                ResponseEntity.notFound().build();
+        try {
+            ProductDTO updatedProduct = productService.updateProductByProductId(productId, productDTO);
+            return updatedProduct != null ?
+                    ResponseEntity.ok(updatedProduct) :
+                    ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ApiResponse<>(false, e.getMessage(), null, LocalDateTime.now()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse<>(false, e.getMessage(), null, LocalDateTime.now()));
+        }
     }
 
     @DeleteMapping("/{id}")
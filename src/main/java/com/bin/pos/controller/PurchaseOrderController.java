@@ -0,0 +1,103 @@
+package com.bin.pos.controller;
+
+import com.bin.pos.dal.dto.ApiResponse;
+import com.bin.pos.dal.dto.PurchaseOrderDTO;
+import com.bin.pos.dal.dto.PurchaseOrderPriceRequest;
+import com.bin.pos.dal.dto.PurchaseOrderRequest;
+import com.bin.pos.dal.dto.PurchaseReceiptRequest;
+import com.bin.pos.dal.model.PurchaseOrderStatus;
+import com.bin.pos.service.PurchaseOrderService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/purchase-orders")
+public class PurchaseOrderController {
+
+    private final PurchaseOrderService purchaseOrderService;
+
+    @Autowired
+    public PurchaseOrderController(PurchaseOrderService purchaseOrderService) {
+        this.purchaseOrderService = purchaseOrderService;
+    }
+
+    @GetMapping
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<List<PurchaseOrderDTO>> getPurchaseOrders(
+            @RequestParam(required = false) PurchaseOrderStatus status) {
+        return ResponseEntity.ok(purchaseOrderService.getPurchaseOrders(status));
+    }
+
+    @GetMapping("/by-po-id/{poId}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<PurchaseOrderDTO> getPurchaseOrder(@PathVariable String poId) {
+        return purchaseOrderService.getPurchaseOrder(poId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<?> createPurchaseOrder(@RequestBody PurchaseOrderRequest request) {
+        try {
+            PurchaseOrderDTO order = purchaseOrderService.createPurchaseOrder(request);
+            return ResponseEntity.status(HttpStatus.CREATED).body(order);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse<>(false, e.getMessage(), null, LocalDateTime.now()));
+        }
+    }
+
+    @PutMapping("/by-po-id/{poId}/status")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<?> updateStatus(@PathVariable String poId, @RequestParam PurchaseOrderStatus status) {
+        try {
+            return purchaseOrderService.updateStatus(poId, status)
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ApiResponse<>(false, e.getMessage(), null, LocalDateTime.now()));
+        }
+    }
+
+    // Set unit costs while the order is reviewed; lines drafted without one must be priced before approval
+    @PutMapping("/by-po-id/{poId}/prices")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<?> price(@PathVariable String poId, @RequestBody PurchaseOrderPriceRequest request) {
+        try {
+            return purchaseOrderService.price(poId, request)
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse<>(false, e.getMessage(), null, LocalDateTime.now()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ApiResponse<>(false, e.getMessage(), null, LocalDateTime.now()));
+        }
+    }
+
+    // Book a delivery, whole or partial, into stock
+    @PostMapping("/by-po-id/{poId}/receive")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<?> receive(@PathVariable String poId, @RequestBody PurchaseReceiptRequest request) {
+        try {
+            return purchaseOrderService.receive(poId, request)
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse<>(false, e.getMessage(), null, LocalDateTime.now()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ApiResponse<>(false, e.getMessage(), null, LocalDateTime.now()));
+        }
+    }
+}
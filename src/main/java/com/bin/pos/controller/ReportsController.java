@@ -0,0 +1,113 @@
+package com.bin.pos.controller;
+
+import com.bin.pos.dal.dto.ApiResponse;
+import com.bin.pos.dal.dto.SalesReport;
+import com.bin.pos.service.SalesReportService;
+import com.bin.pos.service.SalesRollupService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@RestController
+@RequestMapping("/api/reports")
+@PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+public class ReportsController {
+
+    private final SalesReportService salesReportService;
+    private final SalesRollupService salesRollupService;
+
+    @Autowired
+    public ReportsController(SalesReportService salesReportService, SalesRollupService salesRollupService) {
+        this.salesReportService = salesReportService;
+        this.salesRollupService = salesRollupService;
+    }
+
+    // A bad range or dimension; anything else is left to the application's handler
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<ApiResponse<Object>> handleBadRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(new ApiResponse<>(false, e.getMessage(), null, LocalDateTime.now()));
+    }
+
+    /**
+     * Revenue, units, tax and average basket of completed sales in [start, end)
+     */
+    @GetMapping("/sales/summary")
+    public ResponseEntity<?> getSalesSummary(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+        return ResponseEntity.ok(salesReportService.getSummary(start, end));
+    }
+
+    /**
+     * The same figures broken down by day, hour, category, cashier or payment-method.
+     * Service lines have no product category and are reported as a SERVICES category.
+     */
+    @GetMapping("/sales/by/{dimension}")
+    public ResponseEntity<?> getSalesBreakdown(
+            @PathVariable String dimension,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+        SalesReport report = switch (dimension) {
+            case "day" -> salesReportService.getByDay(start, end);
+            case "hour" -> salesReportService.getByHour(start, end);
+            case "category" -> salesReportService.getByCategory(start, end);
+            case "cashier" -> salesReportService.getByCashier(start, end);
+            case "payment-method" -> salesReportService.getByPaymentMethod(start, end);
+            default -> throw new IllegalArgumentException("Unknown report dimension: " + dimension);
+        };
+        return ResponseEntity.ok(report);
+    }
+
+    /**
+     * Pre-aggregated daily totals for the dates from..to, inclusive
+     */
+    @GetMapping("/rollups/daily")
+    public ResponseEntity<?> getDailyRollups(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(salesRollupService.getDailyRollups(from, to));
+    }
+
+    /**
+     * Units and net sales per inventory item for the dates from..to, best sellers first
+     */
+    @GetMapping("/rollups/items")
+    public ResponseEntity<?> getItemRollups(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(salesRollupService.getItemTotals(from, to));
+    }
+
+    /**
+     * Recompute the rollups of the dates from..to from the sales tables
+     */
+    @PostMapping("/rollups/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> rebuildRollups(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        int days = salesRollupService.rebuild(from, to);
+        return ResponseEntity.ok(new ApiResponse<>(true, "Rebuilt rollups for " + days + " day(s) with sales", days, LocalDateTime.now()));
+    }
+
+    /**
+     * List the days whose rollups disagree with the sales tables
+     */
+    @GetMapping("/rollups/verify")
+    public ResponseEntity<?> verifyRollups(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(salesRollupService.verify(from, to));
+    }
+}
@@ -1,21 +1,28 @@
 package com.bin.pos.controller;
 
 import com.bin.pos.dal.dto.ApiResponse;
+import com.bin.pos.dal.dto.CheckoutRequest;
+import com.bin.pos.dal.dto.CursorPage;
+import com.bin.pos.dal.dto.ExportFormat;
 import com.bin.pos.dal.dto.TransactionDTO;
+import com.bin.pos.dal.dto.TransactionSummaryDTO;
 import com.bin.pos.dal.model.PaymentMethod;
 import com.bin.pos.dal.model.SalesTransaction;
 import com.bin.pos.dal.model.TransactionStatus;
+import com.bin.pos.exception.InsufficientStockException;
 import com.bin.pos.service.SalesService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.List;
 
 @RestController
 @RequestMapping("/api/sales")
@@ -30,10 +37,15 @@ public class SalesController {
 
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'EMPLOYEE')")
-    public ResponseEntity<?> getAllTransactions() {
+    public ResponseEntity<?> getAllTransactions(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
         try {
-            List<TransactionDTO> transactions = salesService.getAllTransactionsAsDTO();
-            return ResponseEntity.ok(transactions);
+            CursorPage<TransactionSummaryDTO> page = salesService.getTransactionsPage(cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse<>(false, e.getMessage(), null, LocalDateTime.now()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(new ApiResponse<>(false, "An unexpected error occurred: " + e.getMessage(), null, LocalDateTime.now()));
@@ -68,10 +80,16 @@ public class SalesController {
 
     @GetMapping("/customer/{customerId}")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'EMPLOYEE')")
-    public ResponseEntity<?> getTransactionsByCustomer(@PathVariable String customerId) {
+    public ResponseEntity<?> getTransactionsByCustomer(
+            @PathVariable String customerId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
         try {
-            List<TransactionDTO> transactions = salesService.getTransactionsByCustomerAsDTO(customerId);
-            return ResponseEntity.ok(transactions);
+            CursorPage<TransactionSummaryDTO> page = salesService.getTransactionsPageByCustomer(customerId, cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse<>(false, e.getMessage(), null, LocalDateTime.now()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(new ApiResponse<>(false, "An unexpected error occurred: " + e.getMessage(), null, LocalDateTime.now()));
@@ -80,10 +98,16 @@ public class SalesController {
 
     @GetMapping("/status/{status}")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'EMPLOYEE')")
-    public ResponseEntity<?> getTransactionsByStatus(@PathVariable TransactionStatus status) {
+    public ResponseEntity<?> getTransactionsByStatus(
+            @PathVariable TransactionStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
         try {
-            List<TransactionDTO> transactions = salesService.getTransactionsByStatusAsDTO(status);
-            return ResponseEntity.ok(transactions);
+            CursorPage<TransactionSummaryDTO> page = salesService.getTransactionsPageByStatus(status, cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse<>(false, e.getMessage(), null, LocalDateTime.now()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(new ApiResponse<>(false, "An unexpected error occurred: " + e.getMessage(), null, LocalDateTime.now()));
@@ -94,16 +118,38 @@ public class SalesController {
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'EMPLOYEE')")
     public ResponseEntity<?> getTransactionsInPeriod(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
         try {
-            List<TransactionDTO> transactions = salesService.getTransactionsInPeriodAsDTO(start, end);
-            return ResponseEntity.ok(transactions);
+            CursorPage<TransactionSummaryDTO> page = salesService.getTransactionsPageInPeriod(start, end, cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse<>(false, e.getMessage(), null, LocalDateTime.now()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(new ApiResponse<>(false, "An unexpected error occurred: " + e.getMessage(), null, LocalDateTime.now()));
         }
     }
 
+    /**
+     * Stream the period's transactions as NDJSON or CSV without holding them in memory
+     */
+    @GetMapping("/period/export")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<StreamingResponseBody> exportTransactionsInPeriod(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format) {
+        StreamingResponseBody body = out -> salesService.exportTransactionsInPeriod(start, end, format, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"sales-"
+                        + start.toLocalDate() + "-" + end.toLocalDate() + "." + format.getExtension() + "\"")
+                .body(body);
+    }
+
     @PostMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'EMPLOYEE')")
     public ResponseEntity<?> createTransaction(@RequestBody SalesTransaction transaction) {
@@ -123,6 +169,27 @@ public class SalesController {
         }
     }
 
+    /**
+     * Create, price and pay for a whole basket in a single call
+     */
+    @PostMapping("/checkout")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'EMPLOYEE')")
+    public ResponseEntity<?> checkout(@RequestBody CheckoutRequest request) {
+        try {
+            TransactionDTO dto = salesService.checkout(request);
+            return ResponseEntity.status(HttpStatus.CREATED).body(dto);
+        } catch (InsufficientStockException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ApiResponse<>(false, e.getMessage(), e.getShortfalls(), LocalDateTime.now()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse<>(false, e.getMessage(), null, LocalDateTime.now()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ApiResponse<>(false, "An unexpected error occurred: " + e.getMessage(), null, LocalDateTime.now()));
+        }
+    }
+
     @PostMapping("/{id}/items")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'EMPLOYEE')")
     public ResponseEntity<?> addItemToTransaction(
@@ -131,8 +198,7 @@ public class SalesController {
             @RequestParam int quantity,
             @RequestParam(required = false) BigDecimal unitPrice) {
         try {
-            SalesTransaction updatedTransaction = salesService.addItemToTransactionByIds(
-                    id.toString(), itemId, quantity, unitPrice);
+            SalesTransaction updatedTransaction = salesService.addItemToTransaction(id, itemId, quantity, unitPrice);
 
             if (updatedTransaction != null) {
                 TransactionDTO dto = salesService.getTransactionByIdAsDTO(updatedTransaction.getId()).orElse(null);
@@ -140,6 +206,9 @@ public class SalesController {
             } else {
                 return ResponseEntity.notFound().build();
             }
+        } catch (InsufficientStockException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ApiResponse<>(false, e.getMessage(), e.getShortfalls(), LocalDateTime.now()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(new ApiResponse<>(false, "An unexpected error occurred: " + e.getMessage(), null, LocalDateTime.now()));
@@ -181,6 +250,9 @@ public class SalesController {
             } else {
                 return ResponseEntity.notFound().build();
             }
+        } catch (InsufficientStockException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ApiResponse<>(false, e.getMessage(), e.getShortfalls(), LocalDateTime.now()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(new ApiResponse<>(false, "An unexpected error occurred: " + e.getMessage(), null, LocalDateTime.now()));
@@ -224,6 +296,12 @@ public class SalesController {
             } else {
                 return ResponseEntity.notFound().build();
             }
+        } catch (InsufficientStockException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ApiResponse<>(false, e.getMessage(), e.getShortfalls(), LocalDateTime.now()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ApiResponse<>(false, e.getMessage(), null, LocalDateTime.now()));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest()
                     .body(new ApiResponse<>(false, e.getMessage(), null, LocalDateTime.now()));
@@ -294,6 +372,9 @@ public class SalesController {
             } else {
                 return ResponseEntity.notFound().build();
             }
+        } catch (InsufficientStockException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ApiResponse<>(false, e.getMessage(), e.getShortfalls(), LocalDateTime.now()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(new ApiResponse<>(false, "An unexpected error occurred: " + e.getMessage(), null, LocalDateTime.now()));
@@ -336,6 +417,9 @@ public class SalesController {
             } else {
                 return ResponseEntity.notFound().build();
             }
+        } catch (InsufficientStockException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ApiResponse<>(false, e.getMessage(), e.getShortfalls(), LocalDateTime.now()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(new ApiResponse<>(false, "An unexpected error occurred: " + e.getMessage(), null, LocalDateTime.now()));
@@ -381,6 +465,12 @@ public class SalesController {
             } else {
                 return ResponseEntity.notFound().build();
             }
+        } catch (InsufficientStockException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ApiResponse<>(false, e.getMessage(), e.getShortfalls(), LocalDateTime.now()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ApiResponse<>(false, e.getMessage(), null, LocalDateTime.now()));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest()
                     .body(new ApiResponse<>(false, e.getMessage(), null, LocalDateTime.now()));
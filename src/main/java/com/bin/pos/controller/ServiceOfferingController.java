@@ -1,5 +1,6 @@
 package com.bin.pos.controller;
 
+import com.bin.pos.dal.dto.ServiceOfferingDTO;
 import com.bin.pos.dal.model.ServiceOffering;
 import com.bin.pos.service.ServiceOfferingService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,19 +24,19 @@ public class ServiceOfferingController {
 
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'EMPLOYEE')")
-    public ResponseEntity<List<ServiceOffering>> getAllServices() {
+    public ResponseEntity<List<ServiceOfferingDTO>> getAllServices() {
         return ResponseEntity.ok(serviceOfferingService.getAllServices());
     }
 
     @GetMapping("/active")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'EMPLOYEE')")
-    public ResponseEntity<List<ServiceOffering>> getActiveServices() {
+    public ResponseEntity<List<ServiceOfferingDTO>> getActiveServices() {
         return ResponseEntity.ok(serviceOfferingService.getActiveServices());
     }
 
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'EMPLOYEE')")
-    public ResponseEntity<ServiceOffering> getServiceById(@PathVariable Long id) {
+    public ResponseEntity<ServiceOfferingDTO> getServiceById(@PathVariable Long id) {
         return serviceOfferingService.getServiceById(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
@@ -43,7 +44,7 @@ public class ServiceOfferingController {
 
     @GetMapping("/by-service-id/{serviceId}")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'EMPLOYEE')")
-    public ResponseEntity<ServiceOffering> getServiceByServiceId(@PathVariable String serviceId) {
+    public ResponseEntity<ServiceOfferingDTO> getServiceByServiceId(@PathVariable String serviceId) {
         if (serviceId == null || serviceId.equals("undefined") || serviceId.isEmpty()) {
             return ResponseEntity.badRequest().build();
         }
@@ -55,13 +56,13 @@ public class ServiceOfferingController {
 
     @GetMapping("/search")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'EMPLOYEE')")
-    public ResponseEntity<List<ServiceOffering>> searchServices(@RequestParam String query) {
+    public ResponseEntity<List<ServiceOfferingDTO>> searchServices(@RequestParam String query) {
         return ResponseEntity.ok(serviceOfferingService.searchServices(query));
     }
 
     @GetMapping("/category/{category}")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'EMPLOYEE')")
-    public ResponseEntity<List<ServiceOffering>> getServicesByCategory(@PathVariable String category) {
+    public ResponseEntity<List<ServiceOfferingDTO>> getServicesByCategory(@PathVariable String category) {
         return ResponseEntity.ok(serviceOfferingService.getServicesByCategory(category));
     }
 
@@ -1,7 +1,9 @@
 package com.bin.pos.controller;
 
 
+import com.bin.pos.dal.dto.TransactionDTO;
 import com.bin.pos.dal.model.SalesTransaction;
+import com.bin.pos.service.SalesService;
 import com.bin.pos.service.ServiceTransactionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -16,15 +18,18 @@ import java.util.Map;
 public class ServiceTransactionController {
 
     private final ServiceTransactionService serviceTransactionService;
+    private final SalesService salesService;
 
     @Autowired
-    public ServiceTransactionController(ServiceTransactionService serviceTransactionService) {
+    public ServiceTransactionController(ServiceTransactionService serviceTransactionService,
+                                        SalesService salesService) {
         this.serviceTransactionService = serviceTransactionService;
+        this.salesService = salesService;
     }
 
     @PostMapping("/transactions/{id}/items")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'EMPLOYEE', 'CASHIER')")
-    public ResponseEntity<SalesTransaction> addServiceToTransaction(
+    public ResponseEntity<TransactionDTO> addServiceToTransaction(
             @PathVariable Long id,
             @RequestBody Map<String, Object> request) {
 
@@ -35,9 +40,7 @@ public class ServiceTransactionController {
                     new BigDecimal(request.get("unitPrice").toString()) : null;
 
             SalesTransaction updated = serviceTransactionService.addServiceToTransaction(id, serviceId, quantity, unitPrice);
-            return updated != null ?
-                    ResponseEntity.ok(updated) :
-                    ResponseEntity.badRequest().build();
+            return detail(updated);
         } catch (NumberFormatException | NullPointerException e) {
             return ResponseEntity.badRequest().build();
         }
@@ -45,7 +48,7 @@ public class ServiceTransactionController {
 
     @PostMapping("/transactions/by-transaction-id/{transactionId}/items")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'EMPLOYEE', 'CASHIER')")
-    public ResponseEntity<SalesTransaction> addServiceToTransactionByTransactionId(
+    public ResponseEntity<TransactionDTO> addServiceToTransactionByTransactionId(
             @PathVariable String transactionId,
             @RequestBody Map<String, Object> request) {
 
@@ -60,9 +63,7 @@ public class ServiceTransactionController {
                     new BigDecimal(request.get("unitPrice").toString()) : null;
 
             SalesTransaction updated = serviceTransactionService.addServiceToTransactionByIds(transactionId, serviceId, quantity, unitPrice);
-            return updated != null ?
-                    ResponseEntity.ok(updated) :
-                    ResponseEntity.badRequest().build();
+            return detail(updated);
         } catch (NumberFormatException | NullPointerException e) {
             return ResponseEntity.badRequest().build();
         }
@@ -96,19 +97,17 @@ public class ServiceTransactionController {
 
     @PutMapping("/transactions/{id}/items/{itemId}/notes")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'EMPLOYEE')")
-    public ResponseEntity<SalesTransaction> updateServiceNotes(
+    public ResponseEntity<TransactionDTO> updateServiceNotes(
             @PathVariable Long id,
             @PathVariable Long itemId,
             @RequestParam String notes) {
         SalesTransaction updated = serviceTransactionService.updateServiceNotes(id, itemId, notes);
-        return updated != null ?
-                ResponseEntity.ok(updated) :
-                ResponseEntity.badRequest().build();
+        return detail(updated);
     }
 
     @PutMapping("/transactions/by-transaction-id/{transactionId}/items/{itemId}/notes")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'EMPLOYEE')")
-    public ResponseEntity<SalesTransaction> updateServiceNotesByTransactionId(
+    public ResponseEntity<TransactionDTO> updateServiceNotesByTransactionId(
             @PathVariable String transactionId,
             @PathVariable Long itemId,
             @RequestParam String notes) {
@@ -117,14 +116,12 @@ public class ServiceTransactionController {
         }
 
         SalesTransaction updated = serviceTransactionService.updateServiceNotesByTransactionId(transactionId, itemId, notes);
-        return updated != null ?
-                ResponseEntity.ok(updated) :
-                ResponseEntity.badRequest().build();
+        return detail(updated);
     }
 
     @PutMapping("/transactions/{id}/items/{itemId}/quantity")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'EMPLOYEE', 'CASHIER')")
-    public ResponseEntity<SalesTransaction> updateServiceQuantity(
+    public ResponseEntity<TransactionDTO> updateServiceQuantity(
             @PathVariable Long id,
             @PathVariable Long itemId,
             @RequestParam int quantity) {
@@ -133,14 +130,12 @@ public class ServiceTransactionController {
         }
 
         SalesTransaction updated = serviceTransactionService.updateServiceQuantity(id, itemId, quantity);
-        return updated != null ?
-                ResponseEntity.ok(updated) :
-                ResponseEntity.badRequest().build();
+        return detail(updated);
     }
 
     @PutMapping("/transactions/by-transaction-id/{transactionId}/items/{itemId}/quantity")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'EMPLOYEE', 'CASHIER')")
-    public ResponseEntity<SalesTransaction> updateServiceQuantityByTransactionId(
+    public ResponseEntity<TransactionDTO> updateServiceQuantityByTransactionId(
             @PathVariable String transactionId,
             @PathVariable Long itemId,
             @RequestParam int quantity) {
@@ -149,8 +144,16 @@ public class ServiceTransactionController {
         }
 
         SalesTransaction updated = serviceTransactionService.updateServiceQuantityByTransactionId(transactionId, itemId, quantity);
-        return updated != null ?
-                ResponseEntity.ok(updated) :
-                ResponseEntity.badRequest().build();
+        return detail(updated);
+    }
+
+    // Answer with the transaction detail view rather than the entity and its lazy associations
+    private ResponseEntity<TransactionDTO> detail(SalesTransaction updated) {
+        if (updated == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return salesService.getTransactionByIdAsDTO(updated.getId())
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.badRequest().build());
     }
 }
@@ -0,0 +1,25 @@
+package com.bin.pos.dal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * What a till needs to ring up a scanned barcode
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BarcodeScanDTO {
+    private String barcode;
+    private Long inventoryItemId;
+    private String itemId;
+    private String productId;
+    private String name;
+    private String category;
+    private BigDecimal price;
+    private String unit;
+    private int quantity;
+}
@@ -0,0 +1,37 @@
+package com.bin.pos.dal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of one catalogue import, with the rows that were rejected
+ */
+@Data
+@NoArgsConstructor
+public class CatalogImportResult {
+    private long rowsRead;
+    private long rowsImported;
+    private long rowsFailed;
+    private long productsCreated;
+    private long productsUpdated;
+    private long itemsCreated;
+    private long itemsUpdated;
+    private long durationMillis;
+    // The first failures only, rowsFailed counts them all
+    private List<RowError> errors = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        // Line of the input the row starts on
+        private long line;
+        private String productId;
+        private String itemId;
+        private String message;
+    }
+}
@@ -0,0 +1,30 @@
+package com.bin.pos.dal.dto;
+
+import com.bin.pos.dal.model.ProductStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * One line of a catalogue import or export: a product and, when itemId is set, one of
+ * its inventory items. A product with several items appears on several lines.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogRow {
+    private String productId;
+    private String name;
+    private String description;
+    private BigDecimal unitPrice;
+    private String category;
+    private String barcode;
+    private ProductStatus status;
+
+    private String itemId;
+    private Integer quantity;
+    private BigDecimal price;
+    private String unit;
+}
@@ -0,0 +1,48 @@
+package com.bin.pos.dal.dto;
+
+import com.bin.pos.dal.model.PaymentMethod;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A complete basket submitted in one request: lines, services and payments
+ */
+@Data
+public class CheckoutRequest {
+    private String customerId;
+    private BigDecimal taxRate;
+    private String notes;
+
+    private List<ItemLine> items = new ArrayList<>();
+    private List<ServiceLine> serviceItems = new ArrayList<>();
+    private List<Payment> payments = new ArrayList<>();
+
+    @Data
+    public static class ItemLine {
+        private String itemId;
+        private int quantity;
+        // Falls back to the inventory price when not given
+        private BigDecimal unitPrice;
+        private BigDecimal discountAmount;
+    }
+
+    @Data
+    public static class ServiceLine {
+        private String serviceId;
+        private int quantity;
+        // Falls back to the service price when not given
+        private BigDecimal unitPrice;
+        private BigDecimal discountAmount;
+        private String notes;
+    }
+
+    @Data
+    public static class Payment {
+        private PaymentMethod paymentMethod;
+        private BigDecimal amount;
+        private String referenceNumber;
+    }
+}
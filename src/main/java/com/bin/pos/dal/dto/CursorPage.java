@@ -0,0 +1,23 @@
+package com.bin.pos.dal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One page of a keyset-scrolled list. Pass nextCursor back to get the
+ * following page; it is null on the last page.
+ * @param <T> The type of the page entries
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> content = new ArrayList<>();
+    private int size;
+    private boolean hasMore;
+    private String nextCursor;
+}
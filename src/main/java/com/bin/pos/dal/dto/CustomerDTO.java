@@ -1,5 +1,6 @@
 package com.bin.pos.dal.dto;
 
+import com.bin.pos.dal.model.CustomerType;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -18,4 +19,10 @@ public class CustomerDTO {
     private String phone;
     private String address;
     private String type;
+
+    // JPQL constructor expression
+    public CustomerDTO(Long id, String customerId, String name, String email, String phone, String address,
+                       CustomerType type) {
+        this(id, customerId, name, email, phone, address, type != null ? type.toString() : null);
+    }
 }
\ No newline at end of file
@@ -52,7 +52,7 @@ public class DTOConverter {
         dto.setTaxRate(transaction.getTaxRate());
         dto.setSubtotal(transaction.getSubtotal());
         dto.setTaxAmount(transaction.getTaxAmount());
-        dto.setTotalAmount(transaction.getTotalAmount());
+        dto.setTotalAmount(transaction.getTotal());
         dto.setNotes(transaction.getNotes());
 
         return dto;
@@ -0,0 +1,24 @@
+package com.bin.pos.dal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Outcome of one demand forecast and reorder run
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ForecastRunResult {
+    private LocalDate throughDate;
+    private int itemsForecast;
+    private int categories;
+    private int purchaseOrdersDrafted;
+    private int linesDrafted;
+    // Items due for reorder that have no supplier to order from
+    private int itemsWithoutSupplier;
+    private long durationMillis;
+}
@@ -1,6 +1,7 @@
 package com.bin.pos.dal.dto;
 
 import com.bin.pos.dal.model.InventoryItem;
+import com.bin.pos.dal.model.ProductStatus;
 import lombok.Data;
 
 import java.math.BigDecimal;
@@ -29,4 +30,20 @@ public class InventoryItemDTO {
         this.createdAt = inventoryItem.getCreatedAt();
         this.updatedAt = inventoryItem.getUpdatedAt();
     }
+
+    // JPQL constructor expression: item and product columns, without loading either entity
+    public InventoryItemDTO(Long id, String itemId,
+                            Long productKey, String productId, String name, String description,
+                            BigDecimal unitPrice, String category, String barcode, ProductStatus status,
+                            int quantity, BigDecimal price, String unit,
+                            LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this.id = id;
+        this.itemId = itemId;
+        this.product = new ProductDTO(productKey, productId, name, description, unitPrice, category, barcode, status);
+        this.quantity = quantity;
+        this.price = price;
+        this.unit = unit;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.bin.pos.dal.dto;
+
+import com.bin.pos.dal.model.MovementType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One entry of an item's stock ledger; quantityChange is negative for stock going out
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryMovementDTO {
+    private Long id;
+    private String itemId;
+    private int quantityChange;
+    private MovementType movementType;
+    private String reference;
+    private String notes;
+    private LocalDateTime timestamp;
+}
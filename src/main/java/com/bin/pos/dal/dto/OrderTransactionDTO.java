@@ -1,6 +1,8 @@
 package com.bin.pos.dal.dto;
 
+import com.bin.pos.dal.model.OrderStatus;
 import com.bin.pos.dal.model.OrderTransaction;
+import com.bin.pos.dal.model.PaymentMethod;
 import lombok.Data;
 
 import java.math.BigDecimal;
@@ -43,4 +45,27 @@ public class OrderTransactionDTO {
         this.taxRate = order.getTaxRate();
         this.paymentMethod = order.getPaymentMethod() != null ? order.getPaymentMethod().toString() : null;
     }
+
+    // JPQL constructor expression
+    public OrderTransactionDTO(Long id, String orderId, String customerName, LocalDateTime orderDate,
+                               LocalDateTime estimatedDeliveryDate, LocalDateTime actualDeliveryDate,
+                               OrderStatus status, String shippingAddress, String trackingNumber,
+                               BigDecimal subtotal, BigDecimal shippingCost, BigDecimal taxAmount,
+                               BigDecimal totalAmount, BigDecimal taxRate, PaymentMethod paymentMethod) {
+        this.id = id;
+        this.orderId = orderId;
+        this.customerName = customerName != null ? customerName : "N/A";
+        this.orderDate = orderDate;
+        this.estimatedDeliveryDate = estimatedDeliveryDate;
+        this.actualDeliveryDate = actualDeliveryDate;
+        this.status = status != null ? status.toString() : null;
+        this.shippingAddress = shippingAddress;
+        this.trackingNumber = trackingNumber;
+        this.subtotal = subtotal;
+        this.shippingCost = shippingCost;
+        this.taxAmount = taxAmount;
+        this.totalAmount = totalAmount;
+        this.taxRate = taxRate;
+        this.paymentMethod = paymentMethod != null ? paymentMethod.toString() : null;
+    }
 }
\ No newline at end of file
@@ -1,6 +1,6 @@
 package com.bin.pos.dal.dto;
 
-
+import com.bin.pos.dal.model.ProductStatus;
 import lombok.Data;
 
 import java.math.BigDecimal;
@@ -28,4 +28,17 @@ public class ProductDTO {
         this.barcode = product.getBarcode();
         this.status = product.getStatus() != null ? product.getStatus().toString() : "ACTIVE";
     }
+
+    // JPQL constructor expression
+    public ProductDTO(Long id, String productId, String name, String description, BigDecimal unitPrice,
+                      String category, String barcode, ProductStatus status) {
+        this.id = id;
+        this.productId = productId;
+        this.name = name;
+        this.description = description;
+        this.unitPrice = unitPrice;
+        this.category = category;
+        this.barcode = barcode;
+        this.status = status != null ? status.toString() : "ACTIVE";
+    }
 }
\ No newline at end of file
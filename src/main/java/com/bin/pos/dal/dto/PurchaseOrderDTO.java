@@ -0,0 +1,71 @@
+package com.bin.pos.dal.dto;
+
+import com.bin.pos.dal.model.PurchaseOrder;
+import com.bin.pos.dal.model.PurchaseOrderItem;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class PurchaseOrderDTO {
+    private Long id;
+    private String poId;
+    private String supplierId;
+    private String supplierName;
+    private LocalDateTime orderDate;
+    private LocalDateTime expectedDeliveryDate;
+    private LocalDateTime deliveryDate;
+    private String status;
+    private String referenceNumber;
+    private BigDecimal totalAmount;
+    private String notes;
+    // Left empty in list views
+    private List<Line> items = new ArrayList<>();
+
+    // The supplier, and with lines their items and products, must already be loaded
+    public PurchaseOrderDTO(PurchaseOrder order, boolean withLines) {
+        this(order, withLines ? order.getItems() : List.of());
+    }
+
+    public PurchaseOrderDTO(PurchaseOrder order, List<PurchaseOrderItem> lines) {
+        this.id = order.getId();
+        this.poId = order.getPoId();
+        this.supplierId = order.getSupplier() != null ? order.getSupplier().getSupplierId() : null;
+        this.supplierName = order.getSupplier() != null ? order.getSupplier().getName() : null;
+        this.orderDate = order.getOrderDate();
+        this.expectedDeliveryDate = order.getExpectedDeliveryDate();
+        this.deliveryDate = order.getDeliveryDate();
+        this.status = order.getStatus() != null ? order.getStatus().toString() : null;
+        this.referenceNumber = order.getReferenceNumber();
+        this.totalAmount = order.getTotalAmount();
+        this.notes = order.getNotes();
+        for (PurchaseOrderItem line : lines) {
+            items.add(new Line(line));
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    public static class Line {
+        private String itemId;
+        private String name;
+        private int quantity;
+        private int receivedQuantity;
+        private BigDecimal unitCost;
+        private String notes;
+
+        public Line(PurchaseOrderItem line) {
+            this.itemId = line.getItem().getItemId();
+            this.name = line.getItem().getProduct().getName();
+            this.quantity = line.getQuantity();
+            this.receivedQuantity = line.getReceivedQuantity();
+            this.unitCost = line.getUnitCost();
+            this.notes = line.getNotes();
+        }
+    }
+}
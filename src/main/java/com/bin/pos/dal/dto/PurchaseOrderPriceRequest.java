@@ -0,0 +1,21 @@
+package com.bin.pos.dal.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit costs set while an order is reviewed, one line per item; items left out keep their cost
+ */
+@Data
+public class PurchaseOrderPriceRequest {
+    private List<Line> items = new ArrayList<>();
+
+    @Data
+    public static class Line {
+        private String itemId;
+        private BigDecimal unitCost;
+    }
+}
@@ -0,0 +1,29 @@
+package com.bin.pos.dal.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A new purchase order with all of its lines
+ */
+@Data
+public class PurchaseOrderRequest {
+    private String supplierId;
+    private LocalDateTime expectedDeliveryDate;
+    private String referenceNumber;
+    private String notes;
+
+    private List<Line> items = new ArrayList<>();
+
+    @Data
+    public static class Line {
+        private String itemId;
+        private int quantity;
+        private BigDecimal unitCost;
+        private String notes;
+    }
+}
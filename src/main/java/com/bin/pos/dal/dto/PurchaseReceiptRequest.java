@@ -0,0 +1,20 @@
+package com.bin.pos.dal.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Units delivered against a purchase order, one line per item; a delivery may be partial
+ */
+@Data
+public class PurchaseReceiptRequest {
+    private List<Line> items = new ArrayList<>();
+
+    @Data
+    public static class Line {
+        private String itemId;
+        private int quantity;
+    }
+}
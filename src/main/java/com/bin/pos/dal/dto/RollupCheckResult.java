@@ -0,0 +1,23 @@
+package com.bin.pos.dal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of comparing the daily rollups of a date range with the raw sales
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RollupCheckResult {
+    private LocalDate from;
+    private LocalDate to;
+    private int daysChecked;
+    private boolean consistent;
+    private List<RollupDiscrepancy> discrepancies = new ArrayList<>();
+}
@@ -0,0 +1,24 @@
+package com.bin.pos.dal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * A day whose rollup does not match the sales recorded in the source tables
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RollupDiscrepancy {
+    private LocalDate salesDate;
+    private long expectedTransactions;
+    private long actualTransactions;
+    private long expectedUnits;
+    private long actualUnits;
+    private BigDecimal expectedRevenue;
+    private BigDecimal actualRevenue;
+}
@@ -0,0 +1,23 @@
+package com.bin.pos.dal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Completed sales in [start, end) broken down by one dimension
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesReport {
+    private String groupBy;
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private SalesReportRow total;
+    private List<SalesReportRow> rows = new ArrayList<>();
+}
@@ -0,0 +1,25 @@
+package com.bin.pos.dal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Aggregated sales figures for one report bucket (a day, hour, category, ...)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesReportRow {
+    private String key;
+    private long transactions;
+    private long units;
+    private BigDecimal revenue = BigDecimal.ZERO;
+    private BigDecimal taxAmount = BigDecimal.ZERO;
+    private BigDecimal averageBasket = BigDecimal.ZERO;
+
+    // Percentage of the report's total revenue
+    private BigDecimal revenueShare = BigDecimal.ZERO;
+}
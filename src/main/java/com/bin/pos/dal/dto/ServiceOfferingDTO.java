@@ -0,0 +1,39 @@
+package com.bin.pos.dal.dto;
+
+import com.bin.pos.dal.model.ServiceOffering;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A service as the API returns it; safe to cache, unlike the managed entity
+ */
+@Data
+public class ServiceOfferingDTO {
+    private Long id;
+    private String serviceId;
+    private String name;
+    private String description;
+    private String category;
+    private BigDecimal price;
+    private int durationMinutes;
+    private boolean active;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    public ServiceOfferingDTO() {}
+
+    public ServiceOfferingDTO(ServiceOffering service) {
+        this.id = service.getId();
+        this.serviceId = service.getServiceId();
+        this.name = service.getName();
+        this.description = service.getDescription();
+        this.category = service.getCategory();
+        this.price = service.getPrice();
+        this.durationMinutes = service.getDurationMinutes();
+        this.active = service.isActive();
+        this.createdAt = service.getCreatedAt();
+        this.updatedAt = service.getUpdatedAt();
+    }
+}
@@ -0,0 +1,25 @@
+package com.bin.pos.dal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stock of an item at a point in time: the snapshot taken at or before it plus the movements replayed since.
+ * snapshotTakenAt is null when there was no snapshot yet; the level is then worked back from the
+ * current on-hand quantity and movementsReplayed counts the movements undone.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockLevelDTO {
+    private String itemId;
+    private String name;
+    private String category;
+    private LocalDateTime at;
+    private long quantity;
+    private LocalDateTime snapshotTakenAt;
+    private long movementsReplayed;
+}
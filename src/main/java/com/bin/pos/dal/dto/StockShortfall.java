@@ -0,0 +1,18 @@
+package com.bin.pos.dal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A basket line that could not be fulfilled from current stock
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockShortfall {
+    private Long id;
+    private String itemId;
+    private int requested;
+    private int available;
+}
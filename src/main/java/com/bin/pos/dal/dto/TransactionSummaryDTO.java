@@ -0,0 +1,37 @@
+package com.bin.pos.dal.dto;
+
+import com.bin.pos.dal.model.PaymentMethod;
+import com.bin.pos.dal.model.TransactionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Transaction row for paged list views. Totals come from the stored columns
+ * so no line items are loaded; use the detail endpoints for those.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionSummaryDTO {
+    private Long id;
+    private String transactionId;
+
+    private String customerId;
+    private String customerName;
+
+    private LocalDateTime creationTime;
+    private LocalDateTime completionTime;
+
+    private TransactionStatus status;
+    private PaymentMethod paymentMethod;
+    private BigDecimal amountPaid;
+
+    private BigDecimal taxRate;
+    private BigDecimal subtotal;
+    private BigDecimal taxAmount;
+    private BigDecimal totalAmount;
+}
@@ -0,0 +1,45 @@
+package com.bin.pos.dal.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Units and net sales of one inventory item on one day
+ */
+@Entity
+@Table(name = "daily_item_rollups", indexes = {
+        @Index(name = "idx_item_rollup_item", columnList = "inventoryItemId, salesDate")
+})
+@IdClass(DailyItemRollup.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyItemRollup {
+    @Id
+    private LocalDate salesDate;
+
+    @Id
+    private Long inventoryItemId;
+
+    private long units;
+
+    @Column(precision = 19, scale = 2)
+    private BigDecimal netSales = BigDecimal.ZERO;
+
+    private LocalDateTime updatedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private LocalDate salesDate;
+        private Long inventoryItemId;
+    }
+}
@@ -0,0 +1,37 @@
+package com.bin.pos.dal.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Completed sales of one day, kept up to date as sales complete and are returned
+ */
+@Entity
+@Table(name = "daily_sales_rollups")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailySalesRollup {
+    @Id
+    private LocalDate salesDate;
+
+    private long transactions;
+    private long units;
+
+    @Column(precision = 19, scale = 2)
+    private BigDecimal subtotal = BigDecimal.ZERO;
+
+    @Column(precision = 19, scale = 2)
+    private BigDecimal taxAmount = BigDecimal.ZERO;
+
+    @Column(precision = 19, scale = 2)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    private LocalDateTime updatedAt;
+}
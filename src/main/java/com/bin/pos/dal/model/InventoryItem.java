@@ -7,11 +7,14 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "inventory_items")
+@NamedEntityGraph(name = InventoryItem.PRODUCT_GRAPH, attributeNodes = @NamedAttributeNode("product"))
+// Items are looked up by their business id on every scan, basket and import
+@Table(name = "inventory_items", indexes = @Index(name = "idx_inventory_item_item_id", columnList = "itemId"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class InventoryItem {
+    public static final String PRODUCT_GRAPH = "InventoryItem.product";
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -19,10 +22,15 @@ public class InventoryItem {
 
     private String itemId;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "product_id", nullable = false)
     private Product product;
 
+    // Where reorders of this item are placed
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "supplier_id")
+    private Supplier supplier;
+
     @Column(name = "category", nullable = true)
     private String category;
 
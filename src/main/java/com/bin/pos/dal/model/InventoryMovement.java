@@ -8,19 +8,28 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "inventory_movements")
+@Table(name = "inventory_movements", indexes = {
+        @Index(name = "idx_movement_item_time", columnList = "item_id, timestamp"),
+        @Index(name = "idx_movement_time", columnList = "timestamp"),
+        @Index(name = "idx_movement_removed_item", columnList = "removed_item_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class InventoryMovement {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "inventory_movements_seq")
+    @SequenceGenerator(name = "inventory_movements_seq", sequenceName = "inventory_movements_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "item_id")
     private InventoryItem item;
 
+    // Business id of the item once it has been deleted; item is null from then on
+    @Column(name = "removed_item_id")
+    private String removedItemId;
+
     private int quantityChange;
     private String reference;
 
@@ -32,6 +41,9 @@ public class InventoryMovement {
 
     @PrePersist
     protected void onCreate() {
-        timestamp = LocalDateTime.now();
+        // Movements written in the background keep the time of the change itself
+        if (timestamp == null) {
+            timestamp = LocalDateTime.now();
+        }
     }
 }
\ No newline at end of file
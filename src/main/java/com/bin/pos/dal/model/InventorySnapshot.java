@@ -0,0 +1,38 @@
+package com.bin.pos.dal.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Stock of one inventory item as of a snapshot run; every item gets a row in every run
+ */
+@Entity
+@Table(name = "inventory_snapshots", indexes = {
+        @Index(name = "idx_snapshot_item", columnList = "inventoryItemId, takenAt")
+})
+@IdClass(InventorySnapshot.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventorySnapshot {
+    @Id
+    private LocalDateTime takenAt;
+
+    @Id
+    private Long inventoryItemId;
+
+    private int quantity;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private LocalDateTime takenAt;
+        private Long inventoryItemId;
+    }
+}
@@ -0,0 +1,36 @@
+package com.bin.pos.dal.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Smoothed daily demand of one inventory item and the reorder point derived from it.
+ * Each forecast run folds in the days after throughDate only.
+ */
+@Entity
+@Table(name = "item_demand_forecasts")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemDemandForecast {
+    @Id
+    private Long inventoryItemId;
+
+    // Exponentially weighted mean and variance of units sold per day
+    private double averageDailyUnits;
+    private double dailyUnitsVariance;
+
+    // Last sales day folded in
+    private LocalDate throughDate;
+
+    private int reorderPoint;
+
+    private LocalDateTime updatedAt;
+}
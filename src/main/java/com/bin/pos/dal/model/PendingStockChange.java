@@ -0,0 +1,38 @@
+package com.bin.pos.dal.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Units a paid sale (positive) or a restock (negative) takes off an item's stock that the
+ * reservation ledger has not applied to inventory_items yet. Written with the sale, so it
+ * survives a restart; deleted in the transaction that applies it.
+ */
+@Entity
+@Table(name = "pending_stock_changes")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PendingStockChange {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pending_stock_changes_seq")
+    @SequenceGenerator(name = "pending_stock_changes_seq", sequenceName = "pending_stock_changes_seq", allocationSize = 50)
+    private Long id;
+
+    // No foreign key: a change outlives the item it was for and is then dropped
+    private Long inventoryItemId;
+
+    private int quantity;
+
+    private LocalDateTime createdAt;
+
+    public PendingStockChange(Long inventoryItemId, int quantity) {
+        this.inventoryItemId = inventoryItemId;
+        this.quantity = quantity;
+        this.createdAt = LocalDateTime.now();
+    }
+}
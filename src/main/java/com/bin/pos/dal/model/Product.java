@@ -33,7 +33,8 @@ public class Product {
     @Column
     private String category;
 
-    @Column
+    // Unique so a scan resolves to exactly one product
+    @Column(unique = true)
     private String barcode;
 
     @Enumerated(EnumType.STRING)
@@ -22,17 +22,18 @@ public class PurchaseOrderItem {
     @JoinColumn(name = "po_id")
     private PurchaseOrder purchaseOrder;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "item_id")
     private InventoryItem item;
 
     private int quantity;
     private int receivedQuantity;
+    // Null on a drafted line until the order is priced
     private BigDecimal unitCost;
 
     private String notes;
 
     public BigDecimal getSubtotal() {
-        return unitCost.multiply(BigDecimal.valueOf(quantity));
+        return unitCost != null ? unitCost.multiply(BigDecimal.valueOf(quantity)) : null;
     }
 }
@@ -0,0 +1,98 @@
+package com.bin.pos.dal.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+/**
+ * Subtotals, tax and total of a sale, worked out in whole cents in one pass over the lines.
+ *
+ * SalesTransaction keeps the last one and reuses it while the same line lists and tax rate are set.
+ * The sale's line views drop it when a line is added, removed or replaced, and lines drop it when
+ * their quantity, price or discount is set.
+ */
+final class SalesTotals {
+
+    private static final int SCALE = 2;
+    private static final RoundingMode ROUNDING = RoundingMode.HALF_UP;
+
+    private final List<TransactionItem> items;
+    private final List<ServiceTransactionItem> serviceItems;
+    private final BigDecimal taxRate;
+
+    private final long productSubtotal;
+    private final long serviceSubtotal;
+    private final long tax;
+
+    private SalesTotals(List<TransactionItem> items, List<ServiceTransactionItem> serviceItems, BigDecimal taxRate) {
+        this.items = items;
+        this.serviceItems = serviceItems;
+        this.taxRate = taxRate;
+
+        long products = 0;
+        if (items != null) {
+            for (TransactionItem line : items) {
+                products = Math.addExact(products, lineCents(line.getUnitPrice(), line.getQuantity(), line.getDiscountAmount()));
+            }
+        }
+        long services = 0;
+        if (serviceItems != null) {
+            for (ServiceTransactionItem line : serviceItems) {
+                services = Math.addExact(services, lineCents(line.getUnitPrice(), line.getQuantity(), line.getDiscountAmount()));
+            }
+        }
+        this.productSubtotal = products;
+        this.serviceSubtotal = services;
+
+        long subtotal = Math.addExact(products, services);
+        this.tax = taxRate == null || taxRate.signum() == 0 || subtotal == 0 ? 0
+                : cents(BigDecimal.valueOf(subtotal, SCALE).multiply(taxRate));
+    }
+
+    static SalesTotals of(List<TransactionItem> items, List<ServiceTransactionItem> serviceItems, BigDecimal taxRate) {
+        return new SalesTotals(items, serviceItems, taxRate);
+    }
+
+    boolean isFor(List<TransactionItem> items, List<ServiceTransactionItem> serviceItems, BigDecimal taxRate) {
+        return this.items == items && this.serviceItems == serviceItems && this.taxRate == taxRate;
+    }
+
+    BigDecimal productSubtotal() {
+        return BigDecimal.valueOf(productSubtotal, SCALE);
+    }
+
+    BigDecimal serviceSubtotal() {
+        return BigDecimal.valueOf(serviceSubtotal, SCALE);
+    }
+
+    BigDecimal subtotal() {
+        return BigDecimal.valueOf(productSubtotal + serviceSubtotal, SCALE);
+    }
+
+    BigDecimal taxAmount() {
+        return BigDecimal.valueOf(tax, SCALE);
+    }
+
+    BigDecimal total() {
+        return BigDecimal.valueOf(productSubtotal + serviceSubtotal + tax, SCALE);
+    }
+
+    // Unit price times quantity less the discount; sub-cent unit prices are multiplied out before rounding
+    private static long lineCents(BigDecimal unitPrice, int quantity, BigDecimal discount) {
+        long amount = 0;
+        if (unitPrice != null && unitPrice.signum() != 0 && quantity != 0) {
+            amount = unitPrice.scale() <= SCALE
+                    ? Math.multiplyExact(cents(unitPrice), quantity)
+                    : cents(unitPrice.multiply(BigDecimal.valueOf(quantity)));
+        }
+        if (discount != null && discount.signum() != 0) {
+            amount = Math.subtractExact(amount, cents(discount));
+        }
+        return amount;
+    }
+
+    private static long cents(BigDecimal amount) {
+        BigDecimal rounded = amount.scale() <= SCALE ? amount : amount.setScale(SCALE, ROUNDING);
+        return rounded.scaleByPowerOfTen(SCALE).longValueExact();
+    }
+}
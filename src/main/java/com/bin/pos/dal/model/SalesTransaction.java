@@ -1,31 +1,60 @@
 package com.bin.pos.dal.model;
 
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "sales_transactions")
+// Fetch plans: the detail view needs the customer and every line with its item and product,
+// payment and return only the lines
+@NamedEntityGraph(name = SalesTransaction.DETAIL_GRAPH,
+        attributeNodes = {
+                @NamedAttributeNode("customer"),
+                @NamedAttributeNode(value = "items", subgraph = "lines")
+        },
+        subgraphs = {
+                @NamedSubgraph(name = "lines", attributeNodes = @NamedAttributeNode(value = "item", subgraph = "item")),
+                @NamedSubgraph(name = "item", attributeNodes = @NamedAttributeNode("product"))
+        })
+@NamedEntityGraph(name = SalesTransaction.LINES_GRAPH, attributeNodes = @NamedAttributeNode("items"))
+// Composite indexes back the keyset-paged history listings
+@Table(name = "sales_transactions", indexes = {
+        @Index(name = "idx_sales_created", columnList = "creationTime, id"),
+        @Index(name = "idx_sales_status_created", columnList = "status, creationTime, id"),
+        @Index(name = "idx_sales_customer_created", columnList = "customer_id, creationTime, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class SalesTransaction {
+    public static final String DETAIL_GRAPH = "SalesTransaction.detail";
+    public static final String LINES_GRAPH = "SalesTransaction.lines";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sales_transactions_seq")
+    @SequenceGenerator(name = "sales_transactions_seq", sequenceName = "sales_transactions_seq", allocationSize = 50)
     private Long id;
 
     private String transactionId;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "customer_id")
     private Customer customer;
 
+    // Username of the staff member who rang up the sale
+    private String cashierUsername;
+
     private LocalDateTime creationTime;
     private LocalDateTime completionTime;
 
@@ -56,36 +85,54 @@ public class SalesTransaction {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
-    public BigDecimal getProductSubtotal() {
-        if (items == null || items.isEmpty()) {
-            return BigDecimal.ZERO;
-        }
+    // Totals of the current lines, recomputed only after they change
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient SalesTotals totals;
 
-        return items.stream()
-                .map(TransactionItem::getSubtotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    // Lines are added and removed through these views, which drop the cached totals
+    public List<TransactionItem> getItems() {
+        return items != null ? new Lines<>(items) : null;
     }
 
-    public BigDecimal getServiceSubtotal() {
-        if (serviceItems == null || serviceItems.isEmpty()) {
-            return BigDecimal.ZERO;
-        }
+    public List<ServiceTransactionItem> getServiceItems() {
+        return serviceItems != null ? new Lines<>(serviceItems) : null;
+    }
 
-        return serviceItems.stream()
-                .map(ServiceTransactionItem::getSubtotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    public BigDecimal getProductSubtotal() {
+        return totals().productSubtotal();
+    }
+
+    public BigDecimal getServiceSubtotal() {
+        return totals().serviceSubtotal();
     }
 
     public BigDecimal getSubtotal() {
-        return getProductSubtotal().add(getServiceSubtotal());
+        return totals().subtotal();
     }
 
     public BigDecimal getTaxAmount() {
-        return getSubtotal().multiply(taxRate != null ? taxRate : BigDecimal.ZERO);
+        return totals().taxAmount();
     }
 
     public BigDecimal getTotal() {
-        return getSubtotal().add(getTaxAmount());
+        return totals().total();
+    }
+
+    /**
+     * Called when a line is added, removed or replaced, and by a line when its
+     * quantity, price or discount is set
+     */
+    void linesChanged() {
+        totals = null;
+    }
+
+    private SalesTotals totals() {
+        if (totals == null || !totals.isFor(items, serviceItems, taxRate)) {
+            totals = SalesTotals.of(items, serviceItems, taxRate);
+        }
+        return totals;
     }
 
     @PrePersist
@@ -108,4 +155,43 @@ public class SalesTransaction {
         this.taxAmount = getTaxAmount();
         this.totalAmount = getTotal();
     }
+
+    // Every other mutator of AbstractList, iterators and removeIf included, ends in set, add or remove
+    private final class Lines<E> extends AbstractList<E> {
+        private final List<E> lines;
+
+        private Lines(List<E> lines) {
+            this.lines = lines;
+        }
+
+        @Override
+        public E get(int index) {
+            return lines.get(index);
+        }
+
+        @Override
+        public int size() {
+            return lines.size();
+        }
+
+        @Override
+        public E set(int index, E line) {
+            E replaced = lines.set(index, line);
+            linesChanged();
+            return replaced;
+        }
+
+        @Override
+        public void add(int index, E line) {
+            lines.add(index, line);
+            linesChanged();
+        }
+
+        @Override
+        public E remove(int index) {
+            E removed = lines.remove(index);
+            linesChanged();
+            return removed;
+        }
+    }
 }
\ No newline at end of file
@@ -30,6 +30,9 @@ public class Supplier {
 
     private boolean active;
 
+    // Days from order to delivery, for reorder points; null falls back to the configured default
+    private Integer leadTimeDays;
+
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.Hibernate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -15,7 +16,8 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class TransactionItem {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_items_seq")
+    @SequenceGenerator(name = "transaction_items_seq", sequenceName = "transaction_items_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -37,6 +39,29 @@ public class TransactionItem {
         return itemTotal.subtract(discountAmount);
     }
 
+    // The sale caches its totals, so tell it when a priced field changes
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+        priceChanged();
+    }
+
+    public void setUnitPrice(BigDecimal unitPrice) {
+        this.unitPrice = unitPrice;
+        priceChanged();
+    }
+
+    public void setDiscountAmount(BigDecimal discountAmount) {
+        this.discountAmount = discountAmount;
+        priceChanged();
+    }
+
+    // A sale still behind an unloaded proxy has nothing cached
+    private void priceChanged() {
+        if (salesTransaction != null && Hibernate.isInitialized(salesTransaction)) {
+            ((SalesTransaction) Hibernate.unproxy(salesTransaction)).linesChanged();
+        }
+    }
+
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
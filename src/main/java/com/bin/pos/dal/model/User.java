@@ -7,6 +7,7 @@ import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -19,6 +20,7 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 @Entity
+@NamedEntityGraph(name = User.ROLES_GRAPH, attributeNodes = @NamedAttributeNode("roles"))
 @Table(name = "users",
         uniqueConstraints = {
                 @UniqueConstraint(columnNames = "username"),
@@ -32,6 +34,8 @@ public class User implements UserDetails {
     @Serial
     private static final long serialVersionUID = 5898877590278049881L;
 
+    public static final String ROLES_GRAPH = "User.roles";
+
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -54,7 +58,7 @@ public class User implements UserDetails {
     @Column(unique = true, length = 100)
     private String email;
 
-    @ElementCollection(fetch = FetchType.EAGER)
+    @ElementCollection(fetch = FetchType.LAZY)
     @CollectionTable(name = "user_roles", joinColumns = @JoinColumn(name = "user_id"))
     @Column(name = "role")
     private Set<String> roles = new HashSet<>();
@@ -80,6 +84,11 @@ public class User implements UserDetails {
     @Column(nullable = false)
     private boolean credentialsNonExpired = true;
 
+    // Bumped whenever roles, status or password change; tokens carrying an older value are refused
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long tokenVersion;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -1,8 +1,11 @@
 package com.bin.pos.dal.repository;
 
+import com.bin.pos.dal.dto.CustomerDTO;
 import com.bin.pos.dal.model.Customer;
 import com.bin.pos.dal.model.CustomerType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -18,6 +21,16 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
 
     List<Customer> findByNameContainingIgnoreCase(String searchTerm);
 
+    // List views select straight into the DTO
+    String CUSTOMER_SELECT = "SELECT new com.bin.pos.dal.dto.CustomerDTO(" +
+            "c.id, c.customerId, c.name, c.email, c.phone, c.address, c.type) FROM Customer c ";
+
+    @Query(CUSTOMER_SELECT)
+    List<CustomerDTO> findAllAsDTO();
+
+    @Query(CUSTOMER_SELECT + "WHERE LOWER(c.name) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
+    List<CustomerDTO> searchByNameAsDTO(@Param("searchTerm") String searchTerm);
+
     List<Customer> findByType(CustomerType type);
 
     boolean existsByEmail(String email);
@@ -0,0 +1,31 @@
+package com.bin.pos.dal.repository;
+
+import com.bin.pos.dal.model.DailyItemRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailyItemRollupRepository extends JpaRepository<DailyItemRollup, DailyItemRollup.Key> {
+
+    // Per-item totals over a date range, best sellers first
+    @Query("SELECT r.inventoryItemId AS inventoryItemId, i.itemId AS itemId, i.name AS name, " +
+            "SUM(r.units) AS units, SUM(r.netSales) AS netSales " +
+            "FROM DailyItemRollup r, InventoryItem i WHERE i.id = r.inventoryItemId " +
+            "AND r.salesDate BETWEEN :from AND :to " +
+            "GROUP BY r.inventoryItemId, i.itemId, i.name ORDER BY SUM(r.netSales) DESC")
+    List<ItemTotals> sumByItem(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    interface ItemTotals {
+        Long getInventoryItemId();
+        String getItemId();
+        String getName();
+        Long getUnits();
+        BigDecimal getNetSales();
+    }
+}
@@ -0,0 +1,14 @@
+package com.bin.pos.dal.repository;
+
+import com.bin.pos.dal.model.DailySalesRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailySalesRollupRepository extends JpaRepository<DailySalesRollup, LocalDate> {
+
+    List<DailySalesRollup> findBySalesDateBetweenOrderBySalesDate(LocalDate from, LocalDate to);
+}
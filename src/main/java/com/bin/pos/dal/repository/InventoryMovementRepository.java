@@ -1,14 +1,17 @@
 package com.bin.pos.dal.repository;
 
+import com.bin.pos.dal.dto.InventoryMovementDTO;
 import com.bin.pos.dal.model.InventoryMovement;
 import com.bin.pos.dal.model.MovementType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface InventoryMovementRepository extends JpaRepository<InventoryMovement, Long> {
@@ -17,4 +20,66 @@ public interface InventoryMovementRepository extends JpaRepository<InventoryMove
 
     @Query("SELECT m FROM InventoryMovement m WHERE m.item.itemId = :itemId AND m.timestamp BETWEEN :start AND :end")
     List<InventoryMovement> findByItemAndDateRange(@Param("itemId") String itemId, @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
-}
\ No newline at end of file
+
+    String MOVEMENT_SELECT = "SELECT new com.bin.pos.dal.dto.InventoryMovementDTO(" +
+            "m.id, i.itemId, m.quantityChange, m.movementType, m.reference, m.notes, m.timestamp) " +
+            "FROM InventoryMovement m JOIN m.item i ";
+
+    @Query(MOVEMENT_SELECT + "WHERE i.itemId = :itemId AND m.timestamp >= :start AND m.timestamp < :end " +
+            "ORDER BY m.timestamp, m.id")
+    List<InventoryMovementDTO> findByItemIdInPeriodAsDTO(@Param("itemId") String itemId,
+                                                        @Param("start") LocalDateTime start,
+                                                        @Param("end") LocalDateTime end);
+
+    // Net change per item over (after, upTo], the replay on top of a snapshot
+    @Query("SELECT m.item.id AS inventoryItemId, SUM(m.quantityChange) AS quantityChange, COUNT(m) AS movements " +
+            "FROM InventoryMovement m WHERE m.timestamp > :after AND m.timestamp <= :upTo GROUP BY m.item.id")
+    List<ItemChange> sumChangesBetween(@Param("after") LocalDateTime after, @Param("upTo") LocalDateTime upTo);
+
+    @Query("SELECT m.item.id AS inventoryItemId, SUM(m.quantityChange) AS quantityChange, COUNT(m) AS movements " +
+            "FROM InventoryMovement m JOIN m.item i JOIN i.product p WHERE p.category = :category " +
+            "AND m.timestamp > :after AND m.timestamp <= :upTo GROUP BY m.item.id")
+    List<ItemChange> sumChangesBetweenInCategory(@Param("category") String category,
+                                                 @Param("after") LocalDateTime after,
+                                                 @Param("upTo") LocalDateTime upTo);
+
+    @Query("SELECT m.item.id AS inventoryItemId, SUM(m.quantityChange) AS quantityChange, COUNT(m) AS movements " +
+            "FROM InventoryMovement m WHERE m.item.id = :itemId " +
+            "AND m.timestamp > :after AND m.timestamp <= :upTo GROUP BY m.item.id")
+    Optional<ItemChange> sumChangesOfItemBetween(@Param("itemId") Long itemId,
+                                                 @Param("after") LocalDateTime after,
+                                                 @Param("upTo") LocalDateTime upTo);
+
+    @Query("SELECT m.item.id AS inventoryItemId, SUM(m.quantityChange) AS quantityChange, COUNT(m) AS movements " +
+            "FROM InventoryMovement m WHERE m.timestamp > :after GROUP BY m.item.id")
+    List<ItemChange> sumChangesAfter(@Param("after") LocalDateTime after);
+
+    // Net change per item since a point in time, to work back from the on-hand quantity
+    @Query("SELECT m.item.id AS inventoryItemId, SUM(m.quantityChange) AS quantityChange, COUNT(m) AS movements " +
+            "FROM InventoryMovement m JOIN m.item i JOIN i.product p WHERE p.category = :category " +
+            "AND m.timestamp > :after GROUP BY m.item.id")
+    List<ItemChange> sumChangesAfterInCategory(@Param("category") String category, @Param("after") LocalDateTime after);
+
+    @Query("SELECT m.item.id AS inventoryItemId, SUM(m.quantityChange) AS quantityChange, COUNT(m) AS movements " +
+            "FROM InventoryMovement m WHERE m.item.id = :itemId AND m.timestamp > :after GROUP BY m.item.id")
+    Optional<ItemChange> sumChangesOfItemAfter(@Param("itemId") Long itemId, @Param("after") LocalDateTime after);
+
+    // Ledger of items that have since been deleted, kept under their business id
+    @Query("SELECT new com.bin.pos.dal.dto.InventoryMovementDTO(" +
+            "m.id, m.removedItemId, m.quantityChange, m.movementType, m.reference, m.notes, m.timestamp) " +
+            "FROM InventoryMovement m WHERE m.removedItemId = :itemId " +
+            "AND m.timestamp >= :start AND m.timestamp < :end ORDER BY m.timestamp, m.id")
+    List<InventoryMovementDTO> findRemovedByItemIdInPeriodAsDTO(@Param("itemId") String itemId,
+                                                               @Param("start") LocalDateTime start,
+                                                               @Param("end") LocalDateTime end);
+
+    @Modifying
+    @Query("UPDATE InventoryMovement m SET m.item = NULL, m.removedItemId = :removedItemId WHERE m.item.id = :itemId")
+    int detachFromItem(@Param("itemId") Long itemId, @Param("removedItemId") String removedItemId);
+
+    interface ItemChange {
+        Long getInventoryItemId();
+        Long getQuantityChange();
+        Long getMovements();
+    }
+}
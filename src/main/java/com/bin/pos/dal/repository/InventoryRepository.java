@@ -1,31 +1,75 @@
 package com.bin.pos.dal.repository;
 
+import com.bin.pos.dal.dto.InventoryItemDTO;
 import com.bin.pos.dal.model.InventoryItem;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface InventoryRepository extends JpaRepository<InventoryItem, Long> {
 
-    // Use JOIN FETCH to eagerly load the product when fetching inventory items
-    @Query("SELECT i FROM InventoryItem i JOIN FETCH i.product")
+    // The product is lazy; every item view shows its name and category, so load it in the same select
+    @Override
+    @EntityGraph(InventoryItem.PRODUCT_GRAPH)
     List<InventoryItem> findAll();
 
-    // Use JOIN FETCH for specific item query
-    @Query("SELECT i FROM InventoryItem i JOIN FETCH i.product WHERE i.id = :id")
+    @Override
+    @EntityGraph(InventoryItem.PRODUCT_GRAPH)
     Optional<InventoryItem> findById(Long id);
 
-    // Use JOIN FETCH for itemId query
-    @Query("SELECT i FROM InventoryItem i JOIN FETCH i.product WHERE i.itemId = :itemId")
+    @EntityGraph(InventoryItem.PRODUCT_GRAPH)
     Optional<InventoryItem> findByItemId(String itemId);
 
-    // Use JOIN FETCH for low stock items
-    @Query("SELECT i FROM InventoryItem i JOIN FETCH i.product WHERE i.quantity < 10")
-    List<InventoryItem> findLowStockItems();
+    // Business id -> primary key, for the item cache
+    @Query("SELECT i.id FROM InventoryItem i WHERE i.itemId = :itemId")
+    Optional<Long> findIdByItemId(@Param("itemId") String itemId);
+
+    // Resolve a whole basket of business ids in one query
+    @Query("SELECT i FROM InventoryItem i JOIN FETCH i.product WHERE i.itemId IN :itemIds")
+    List<InventoryItem> findByItemIdIn(@Param("itemIds") Collection<String> itemIds);
+
+
+    // Every item sold under a barcode, oldest first
+    @Query("SELECT i FROM InventoryItem i JOIN FETCH i.product p WHERE p.barcode IS NOT NULL AND p.barcode <> '' ORDER BY i.id")
+    List<InventoryItem> findAllWithBarcode();
+
+    // The item a scanned barcode sells, i.e. the oldest one of its product
+    @Query("SELECT i FROM InventoryItem i JOIN FETCH i.product p WHERE p.barcode = :barcode ORDER BY i.id")
+    List<InventoryItem> findSellableByBarcode(@Param("barcode") String barcode, Pageable pageable);
+
+    // On-hand quantity only, without loading the entity
+    @Query("SELECT i.quantity FROM InventoryItem i WHERE i.id = :id")
+    Optional<Integer> findQuantityById(@Param("id") Long id);
+
+    // List views select straight into the DTO: no managed entities, no dirty checking
+    String ITEM_SELECT = "SELECT new com.bin.pos.dal.dto.InventoryItemDTO(" +
+            "i.id, i.itemId, p.id, p.productId, p.name, p.description, p.unitPrice, p.category, p.barcode, p.status, " +
+            "i.quantity, i.price, i.unit, i.createdAt, i.updatedAt) " +
+            "FROM InventoryItem i JOIN i.product p ";
+
+    @Query(ITEM_SELECT)
+    List<InventoryItemDTO> findAllAsDTO();
+
+    @Query(ITEM_SELECT + "WHERE i.id = :id")
+    Optional<InventoryItemDTO> findByIdAsDTO(@Param("id") Long id);
+
+    @Query(ITEM_SELECT + "WHERE i.id IN :ids")
+    List<InventoryItemDTO> findByIdInAsDTO(@Param("ids") Collection<Long> ids);
+
+    // At or below the forecast reorder point; items not forecast yet fall back to a fixed threshold
+    @Query(ITEM_SELECT + "LEFT JOIN ItemDemandForecast f ON f.inventoryItemId = i.id " +
+            "WHERE (f.inventoryItemId IS NULL AND i.quantity < :threshold) " +
+            "OR (f.inventoryItemId IS NOT NULL AND i.quantity <= f.reorderPoint)")
+    List<InventoryItemDTO> findLowStockItemsAsDTO(@Param("threshold") int threshold);
+
 
     // If you need custom queries for category or search, add them here with JOIN FETCH
     @Query("SELECT i FROM InventoryItem i JOIN FETCH i.product WHERE i.product.category = :category")
@@ -0,0 +1,56 @@
+package com.bin.pos.dal.repository;
+
+import com.bin.pos.dal.model.InventorySnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface InventorySnapshotRepository extends JpaRepository<InventorySnapshot, InventorySnapshot.Key> {
+
+    boolean existsByTakenAt(LocalDateTime takenAt);
+
+    // The run to replay from for a whole category
+    @Query("SELECT MAX(s.takenAt) FROM InventorySnapshot s WHERE s.takenAt <= :at")
+    Optional<LocalDateTime> findLatestRunAtOrBefore(@Param("at") LocalDateTime at);
+
+    Optional<InventorySnapshot> findFirstByInventoryItemIdAndTakenAtLessThanEqualOrderByTakenAtDesc(
+            Long inventoryItemId, LocalDateTime at);
+
+    @Query("SELECT s.inventoryItemId AS inventoryItemId, s.quantity AS quantity " +
+            "FROM InventorySnapshot s WHERE s.takenAt = :takenAt")
+    List<ItemQuantity> findRun(@Param("takenAt") LocalDateTime takenAt);
+
+    @Query("SELECT s.inventoryItemId AS inventoryItemId, s.quantity AS quantity " +
+            "FROM InventorySnapshot s, InventoryItem i JOIN i.product p WHERE i.id = s.inventoryItemId " +
+            "AND s.takenAt = :takenAt AND p.category = :category")
+    List<ItemQuantity> findRunInCategory(@Param("takenAt") LocalDateTime takenAt, @Param("category") String category);
+
+    // On-hand quantity of every item, the anchor of every run
+    @Query("SELECT i.id AS inventoryItemId, i.quantity AS quantity FROM InventoryItem i")
+    List<ItemQuantity> findCurrentQuantities();
+
+    // Just what a stock report shows of each item, without loading the entities
+    @Query("SELECT i.id AS inventoryItemId, i.itemId AS itemId, p.name AS name, p.category AS category, " +
+            "i.quantity AS quantity " +
+            "FROM InventoryItem i JOIN i.product p WHERE p.category = :category ORDER BY i.itemId")
+    List<ItemHeader> findItemsInCategory(@Param("category") String category);
+
+    interface ItemQuantity {
+        Long getInventoryItemId();
+        Integer getQuantity();
+    }
+
+    interface ItemHeader {
+        Long getInventoryItemId();
+        String getItemId();
+        String getName();
+        String getCategory();
+        Integer getQuantity();
+    }
+}
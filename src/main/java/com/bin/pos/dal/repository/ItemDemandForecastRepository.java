@@ -0,0 +1,9 @@
+package com.bin.pos.dal.repository;
+
+import com.bin.pos.dal.model.ItemDemandForecast;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ItemDemandForecastRepository extends JpaRepository<ItemDemandForecast, Long> {
+}
@@ -1,9 +1,13 @@
 package com.bin.pos.dal.repository;
 
+import com.bin.pos.dal.dto.OrderTransactionDTO;
 import com.bin.pos.dal.model.OrderStatus;
 import com.bin.pos.dal.model.OrderTransaction;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -11,6 +15,7 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface OrderRepository extends JpaRepository<OrderTransaction, Long> {
@@ -26,6 +31,13 @@ public interface OrderRepository extends JpaRepository<OrderTransaction, Long> {
     List<OrderTransaction> findOrdersInPeriod(@Param("startDate") LocalDateTime startDate,
                                               @Param("endDate") LocalDateTime endDate);
 
+    // Export stream, oldest first; the fetch size keeps the driver from buffering the whole period
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT o FROM OrderTransaction o LEFT JOIN FETCH o.customer " +
+            "WHERE o.orderDate BETWEEN :startDate AND :endDate ORDER BY o.orderDate, o.id")
+    Stream<OrderTransaction> streamOrdersInPeriod(@Param("startDate") LocalDateTime startDate,
+                                                  @Param("endDate") LocalDateTime endDate);
+
     @Query("SELECT SUM(o.totalAmount) FROM OrderTransaction o WHERE o.status = 'COMPLETED' AND o.orderDate BETWEEN :startDate AND :endDate")
     BigDecimal calculateRevenueInPeriod(@Param("startDate") LocalDateTime startDate,
                                         @Param("endDate") LocalDateTime endDate);
@@ -34,8 +46,28 @@ public interface OrderRepository extends JpaRepository<OrderTransaction, Long> {
     Long countOrdersInPeriod(@Param("startDate") LocalDateTime startDate,
                              @Param("endDate") LocalDateTime endDate);
 
-    @Query("SELECT o FROM OrderTransaction o LEFT JOIN FETCH o.customer")
-    List<OrderTransaction> findAllWithCustomer();
+    // List views select straight into the DTO, with the customer's name from a join
+    String ORDER_SELECT = "SELECT new com.bin.pos.dal.dto.OrderTransactionDTO(" +
+            "o.id, o.orderId, c.name, o.orderDate, o.estimatedDeliveryDate, o.actualDeliveryDate, o.status, " +
+            "o.shippingAddress, o.trackingNumber, o.subtotal, o.shippingCost, o.taxAmount, o.totalAmount, " +
+            "o.taxRate, o.paymentMethod) FROM OrderTransaction o LEFT JOIN o.customer c ";
+
+    @Query(ORDER_SELECT)
+    List<OrderTransactionDTO> findAllAsDTO();
+
+    @Query(ORDER_SELECT + "WHERE c.customerId = :customerId")
+    List<OrderTransactionDTO> findByCustomerIdAsDTO(@Param("customerId") String customerId);
+
+    @Query(ORDER_SELECT + "WHERE o.status = :status")
+    List<OrderTransactionDTO> findByStatusAsDTO(@Param("status") OrderStatus status);
+
+    @Query(ORDER_SELECT + "WHERE o.orderDate BETWEEN :startDate AND :endDate")
+    List<OrderTransactionDTO> findInPeriodAsDTO(@Param("startDate") LocalDateTime startDate,
+                                                @Param("endDate") LocalDateTime endDate);
+
+    // Responses are built from the order and its customer after the transaction ends
+    @Query("SELECT o FROM OrderTransaction o LEFT JOIN FETCH o.customer WHERE o.id = :id")
+    Optional<OrderTransaction> findByIdWithCustomer(@Param("id") Long id);
 
     @Query("SELECT o FROM OrderTransaction o LEFT JOIN FETCH o.customer LEFT JOIN FETCH o.items WHERE o.orderId = :orderId")
     Optional<OrderTransaction> findByOrderIdWithCustomer(@Param("orderId") String orderId);
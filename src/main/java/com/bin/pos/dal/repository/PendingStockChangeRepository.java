@@ -0,0 +1,20 @@
+package com.bin.pos.dal.repository;
+
+import com.bin.pos.dal.model.PendingStockChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PendingStockChangeRepository extends JpaRepository<PendingStockChange, Long> {
+
+    // Oldest first, one flush batch at a time
+    List<PendingStockChange> findAllByOrderByIdAsc(Pageable page);
+
+    @Query("SELECT COALESCE(SUM(c.quantity), 0) FROM PendingStockChange c WHERE c.inventoryItemId = :itemId")
+    long sumQuantityOfItem(@Param("itemId") Long itemId);
+}
@@ -1,20 +1,27 @@
 package com.bin.pos.dal.repository;
 
+import com.bin.pos.dal.dto.CatalogRow;
 import com.bin.pos.dal.model.Product;
 import com.bin.pos.dal.model.ProductStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
 
     Optional<Product> findByProductId(String productId);
 
+    Optional<Product> findByBarcode(String barcode);
+
     List<Product> findByNameContainingIgnoreCase(String name);
 
     List<Product> findByCategory(String category);
@@ -23,4 +30,11 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
 
     @Query("SELECT p FROM Product p WHERE p.stockQuantity > 0 AND p.status = 'ACTIVE'")
     List<Product> findAvailableProducts();
+
+    // Catalogue export: a row per inventory item, and one for each product without items
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.bin.pos.dal.dto.CatalogRow(p.productId, p.name, p.description, p.unitPrice, " +
+            "p.category, p.barcode, p.status, i.itemId, i.quantity, i.price, i.unit) " +
+            "FROM Product p LEFT JOIN InventoryItem i ON i.product = p ORDER BY p.id, i.id")
+    Stream<CatalogRow> streamCatalog();
 }
\ No newline at end of file
@@ -1,17 +1,27 @@
 package com.bin.pos.dal.repository;
 
 import com.bin.pos.dal.model.PurchaseOrder;
+import com.bin.pos.dal.model.PurchaseOrderItem;
 import com.bin.pos.dal.model.PurchaseOrderStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface PurchaseOrderRepository extends JpaRepository<PurchaseOrder, String> {
+public interface PurchaseOrderRepository extends JpaRepository<PurchaseOrder, Long> {
+    Optional<PurchaseOrder> findByPoId(String poId);
     List<PurchaseOrder> findBySupplierSupplierId(String supplierId);
     List<PurchaseOrder> findByStatus(PurchaseOrderStatus status);
 
@@ -19,4 +29,49 @@ public interface PurchaseOrderRepository extends JpaRepository<PurchaseOrder, St
     List<PurchaseOrder> findByOrderDateBetween(
             @Param("start") LocalDateTime start,
             @Param("end") LocalDateTime end);
+
+    // List views show the supplier of every order
+    @Query("SELECT po FROM PurchaseOrder po LEFT JOIN FETCH po.supplier ORDER BY po.id DESC")
+    List<PurchaseOrder> findAllWithSupplier();
+
+    @Query("SELECT po FROM PurchaseOrder po LEFT JOIN FETCH po.supplier WHERE po.status = :status ORDER BY po.id DESC")
+    List<PurchaseOrder> findByStatusWithSupplier(@Param("status") PurchaseOrderStatus status);
+
+    @Query("SELECT DISTINCT po FROM PurchaseOrder po LEFT JOIN FETCH po.supplier " +
+            "LEFT JOIN FETCH po.items l LEFT JOIN FETCH l.item i LEFT JOIN FETCH i.product WHERE po.poId = :poId")
+    Optional<PurchaseOrder> findByPoIdWithLines(@Param("poId") String poId);
+
+    // Receipts against one order are serialized on its row
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT po FROM PurchaseOrder po WHERE po.poId = :poId")
+    Optional<PurchaseOrder> findByPoIdForUpdate(@Param("poId") String poId);
+
+    // Read-only, receipts and price updates write their changes back in one batch
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT l FROM PurchaseOrderItem l JOIN FETCH l.item i JOIN FETCH i.product " +
+            "WHERE l.purchaseOrder.id = :orderId ORDER BY l.id")
+    List<PurchaseOrderItem> findLinesForReceipt(@Param("orderId") Long orderId);
+
+    // Units ordered but not yet received, per inventory item id
+    @Query("SELECT poi.item.id AS inventoryItemId, SUM(poi.quantity - poi.receivedQuantity) AS quantity " +
+            "FROM PurchaseOrderItem poi WHERE poi.purchaseOrder.status IN :statuses GROUP BY poi.item.id")
+    List<ItemQuantity> sumOutstandingQuantities(@Param("statuses") Collection<PurchaseOrderStatus> statuses);
+
+    // Unit cost on the most recent priced order line of each item; drafts used to hold 0 for unpriced lines
+    @Query("SELECT poi.item.id AS inventoryItemId, poi.unitCost AS unitCost FROM PurchaseOrderItem poi " +
+            "WHERE poi.id IN (SELECT MAX(x.id) FROM PurchaseOrderItem x WHERE x.unitCost > 0 GROUP BY x.item.id)")
+    List<ItemCost> findLatestUnitCosts();
+
+    @Query("SELECT COUNT(l) FROM PurchaseOrderItem l WHERE l.purchaseOrder.id = :orderId AND l.unitCost IS NULL")
+    long countUnpricedLines(@Param("orderId") Long orderId);
+
+    interface ItemQuantity {
+        Long getInventoryItemId();
+        Long getQuantity();
+    }
+
+    interface ItemCost {
+        Long getInventoryItemId();
+        BigDecimal getUnitCost();
+    }
 }
@@ -0,0 +1,133 @@
+package com.bin.pos.dal.repository;
+
+import com.bin.pos.dal.model.SalesTransaction;
+import com.bin.pos.dal.model.TransactionStatus;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.repository.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Aggregate sales queries. Everything is summed by the database with GROUP BY
+ * and returned as small projections; no transactions or lines are loaded.
+ *
+ * Header totals (revenue, tax, basket count) come from sales_transactions and
+ * units from transaction_items, in separate queries so the line join does not
+ * multiply the header sums.
+ */
+@org.springframework.stereotype.Repository
+public interface SalesReportRepository extends Repository<SalesTransaction, Long> {
+
+    String IN_RANGE = "t.status = :status AND t.creationTime >= :start AND t.creationTime < :end ";
+
+    String HEADER_TOTALS = "COUNT(t) AS transactions, SUM(t.totalAmount) AS revenue, " +
+            "SUM(t.subtotal) AS subtotal, SUM(t.taxAmount) AS taxAmount ";
+
+    String LINE_NET = "(i.unitPrice * i.quantity - i.discountAmount)";
+
+    // A line's share of the tax the sale was charged, in proportion to its net
+    String LINE_TAX = "(CASE WHEN t.subtotal = 0 THEN 0 ELSE " + LINE_NET + " * t.taxAmount / t.subtotal END)";
+
+    String DAY = "cast(t.creationTime as LocalDate)";
+    String HOUR = "extract(hour from t.creationTime)";
+
+    @Query("SELECT 'TOTAL' AS bucket, " + HEADER_TOTALS + "FROM SalesTransaction t WHERE " + IN_RANGE)
+    Totals totals(@Param("status") TransactionStatus status,
+                  @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    @Query("SELECT 'TOTAL' AS bucket, SUM(i.quantity) AS units " +
+            "FROM TransactionItem i JOIN i.salesTransaction t WHERE " + IN_RANGE)
+    Units units(@Param("status") TransactionStatus status,
+                @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    @Query("SELECT " + DAY + " AS bucket, " + HEADER_TOTALS +
+            "FROM SalesTransaction t WHERE " + IN_RANGE + "GROUP BY " + DAY)
+    List<Totals> totalsByDay(@Param("status") TransactionStatus status,
+                             @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    @Query("SELECT " + DAY + " AS bucket, SUM(i.quantity) AS units " +
+            "FROM TransactionItem i JOIN i.salesTransaction t WHERE " + IN_RANGE + "GROUP BY " + DAY)
+    List<Units> unitsByDay(@Param("status") TransactionStatus status,
+                           @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    @Query("SELECT " + HOUR + " AS bucket, " + HEADER_TOTALS +
+            "FROM SalesTransaction t WHERE " + IN_RANGE + "GROUP BY " + HOUR)
+    List<Totals> totalsByHour(@Param("status") TransactionStatus status,
+                              @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    @Query("SELECT " + HOUR + " AS bucket, SUM(i.quantity) AS units " +
+            "FROM TransactionItem i JOIN i.salesTransaction t WHERE " + IN_RANGE + "GROUP BY " + HOUR)
+    List<Units> unitsByHour(@Param("status") TransactionStatus status,
+                            @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    @Query("SELECT t.cashierUsername AS bucket, " + HEADER_TOTALS +
+            "FROM SalesTransaction t WHERE " + IN_RANGE + "GROUP BY t.cashierUsername")
+    List<Totals> totalsByCashier(@Param("status") TransactionStatus status,
+                                 @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    @Query("SELECT t.cashierUsername AS bucket, SUM(i.quantity) AS units " +
+            "FROM TransactionItem i JOIN i.salesTransaction t WHERE " + IN_RANGE + "GROUP BY t.cashierUsername")
+    List<Units> unitsByCashier(@Param("status") TransactionStatus status,
+                               @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    @Query("SELECT t.paymentMethod AS bucket, " + HEADER_TOTALS +
+            "FROM SalesTransaction t WHERE " + IN_RANGE + "GROUP BY t.paymentMethod")
+    List<Totals> totalsByPaymentMethod(@Param("status") TransactionStatus status,
+                                       @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    @Query("SELECT t.paymentMethod AS bucket, SUM(i.quantity) AS units " +
+            "FROM TransactionItem i JOIN i.salesTransaction t WHERE " + IN_RANGE + "GROUP BY t.paymentMethod")
+    List<Units> unitsByPaymentMethod(@Param("status") TransactionStatus status,
+                                     @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    // Categories only exist on lines: revenue is the line net plus its share of the sale's tax
+    @Query("SELECT p.category AS bucket, COUNT(DISTINCT t.id) AS transactions, SUM(i.quantity) AS units, " +
+            "SUM(" + LINE_NET + ") + SUM(" + LINE_TAX + ") AS revenue, " +
+            "SUM(" + LINE_NET + ") AS subtotal, SUM(" + LINE_TAX + ") AS taxAmount " +
+            "FROM TransactionItem i JOIN i.salesTransaction t JOIN i.item it JOIN it.product p " +
+            "WHERE " + IN_RANGE + "GROUP BY p.category")
+    List<CategoryTotals> totalsByCategory(@Param("status") TransactionStatus status,
+                                          @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    // Service lines have no product category; they are summed the same way into one bucket of their own
+    @Query("SELECT 'SERVICES' AS bucket, COUNT(DISTINCT t.id) AS transactions, SUM(i.quantity) AS units, " +
+            "SUM(" + LINE_NET + ") + SUM(" + LINE_TAX + ") AS revenue, " +
+            "SUM(" + LINE_NET + ") AS subtotal, SUM(" + LINE_TAX + ") AS taxAmount " +
+            "FROM ServiceTransactionItem i JOIN i.salesTransaction t WHERE " + IN_RANGE)
+    CategoryTotals serviceTotals(@Param("status") TransactionStatus status,
+                                 @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    // Source for the per-item daily rollups
+    @Query("SELECT " + DAY + " AS bucket, i.item.id AS inventoryItemId, SUM(i.quantity) AS units, " +
+            "SUM(" + LINE_NET + ") AS netSales " +
+            "FROM TransactionItem i JOIN i.salesTransaction t WHERE " + IN_RANGE + "GROUP BY " + DAY + ", i.item.id")
+    List<ItemDayTotals> totalsByDayAndItem(@Param("status") TransactionStatus status,
+                                           @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    interface Totals {
+        Object getBucket();
+        Long getTransactions();
+        BigDecimal getRevenue();
+        BigDecimal getSubtotal();
+        BigDecimal getTaxAmount();
+    }
+
+    interface Units {
+        Object getBucket();
+        Long getUnits();
+    }
+
+    interface CategoryTotals extends Totals {
+        Long getUnits();
+    }
+
+    interface ItemDayTotals {
+        Object getBucket();
+        Long getInventoryItemId();
+        Long getUnits();
+        BigDecimal getNetSales();
+    }
+}
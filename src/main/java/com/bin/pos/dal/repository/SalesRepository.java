@@ -1,40 +1,75 @@
 package com.bin.pos.dal.repository;
 
+import com.bin.pos.dal.dto.TransactionSummaryDTO;
 import com.bin.pos.dal.model.SalesTransaction;
 import com.bin.pos.dal.model.TransactionStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface SalesRepository extends JpaRepository<SalesTransaction, Long> {
 
-    // Find transaction by transactionId with eager loading
-    @Query("SELECT DISTINCT t FROM SalesTransaction t " +
-            "LEFT JOIN FETCH t.customer " +
-            "LEFT JOIN FETCH t.items i " +
-            "LEFT JOIN FETCH i.item " +
-            "WHERE t.transactionId = :transactionId")
+    // Detail view: customer and every line with its item and product, in one select
+    @EntityGraph(SalesTransaction.DETAIL_GRAPH)
+    @Query("SELECT t FROM SalesTransaction t WHERE t.transactionId = :transactionId")
     Optional<SalesTransaction> findByTransactionIdWithDetails(@Param("transactionId") String transactionId);
 
-    // Find transaction by ID with eager loading
-    @Query("SELECT DISTINCT t FROM SalesTransaction t " +
-            "LEFT JOIN FETCH t.customer " +
-            "LEFT JOIN FETCH t.items i " +
-            "LEFT JOIN FETCH i.item " +
-            "WHERE t.id = :id")
+    @EntityGraph(SalesTransaction.DETAIL_GRAPH)
+    @Query("SELECT t FROM SalesTransaction t WHERE t.id = :id")
     Optional<SalesTransaction> findByIdWithDetails(@Param("id") Long id);
 
-    // Get all transactions with basic details (excluding items for performance)
-    @Query("SELECT DISTINCT t FROM SalesTransaction t " +
-            "LEFT JOIN FETCH t.customer " +
-            "ORDER BY t.creationTime DESC")
-    List<SalesTransaction> findAllWithBasicDetails();
+    // Payment and return walk the lines but never read the customer
+    @EntityGraph(SalesTransaction.LINES_GRAPH)
+    @Query("SELECT t FROM SalesTransaction t WHERE t.id = :id")
+    Optional<SalesTransaction> findByIdWithLines(@Param("id") Long id);
+
+    // Keyset pages, newest first: rows strictly after the (creationTime, id) cursor
+    String SUMMARY_SELECT = "SELECT new com.bin.pos.dal.dto.TransactionSummaryDTO(" +
+            "t.id, t.transactionId, c.customerId, c.name, t.creationTime, t.completionTime, " +
+            "t.status, t.paymentMethod, t.amountPaid, t.taxRate, t.subtotal, t.taxAmount, t.totalAmount) " +
+            "FROM SalesTransaction t LEFT JOIN t.customer c ";
+
+    String AFTER_CURSOR = "(t.creationTime < :time OR (t.creationTime = :time AND t.id < :id)) ";
+
+    String NEWEST_FIRST = "ORDER BY t.creationTime DESC, t.id DESC";
+
+    @Query(SUMMARY_SELECT + "WHERE " + AFTER_CURSOR + NEWEST_FIRST)
+    List<TransactionSummaryDTO> findSummaryPage(@Param("time") LocalDateTime time, @Param("id") Long id,
+                                                Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "WHERE t.status = :status AND " + AFTER_CURSOR + NEWEST_FIRST)
+    List<TransactionSummaryDTO> findSummaryPageByStatus(@Param("status") TransactionStatus status,
+                                                        @Param("time") LocalDateTime time, @Param("id") Long id,
+                                                        Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "WHERE c.customerId = :customerId AND " + AFTER_CURSOR + NEWEST_FIRST)
+    List<TransactionSummaryDTO> findSummaryPageByCustomer(@Param("customerId") String customerId,
+                                                          @Param("time") LocalDateTime time, @Param("id") Long id,
+                                                          Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "WHERE t.creationTime BETWEEN :start AND :end AND " + AFTER_CURSOR + NEWEST_FIRST)
+    List<TransactionSummaryDTO> findSummaryPageInPeriod(@Param("start") LocalDateTime start,
+                                                        @Param("end") LocalDateTime end,
+                                                        @Param("time") LocalDateTime time, @Param("id") Long id,
+                                                        Pageable pageable);
+
+    // Export stream, oldest first; the fetch size keeps the driver from buffering the whole period
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(SUMMARY_SELECT + "WHERE t.creationTime BETWEEN :start AND :end ORDER BY t.creationTime, t.id")
+    Stream<TransactionSummaryDTO> streamSummariesInPeriod(@Param("start") LocalDateTime start,
+                                                          @Param("end") LocalDateTime end);
 
     // Original methods
     Optional<SalesTransaction> findByTransactionId(String transactionId);
@@ -4,6 +4,7 @@ import com.bin.pos.dal.model.ServiceOffering;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,6 +14,8 @@ public interface ServiceRepository extends JpaRepository<ServiceOffering, Long>
     // Find by business identifier
     Optional<ServiceOffering> findByServiceId(String serviceId);
 
+    List<ServiceOffering> findByServiceIdIn(Collection<String> serviceIds);
+
     List<ServiceOffering> findByActive(boolean active);
 
     List<ServiceOffering> findByNameContainingIgnoreCase(String searchTerm);
@@ -6,9 +6,11 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface SupplierRepository extends JpaRepository<Supplier, String> {
+public interface SupplierRepository extends JpaRepository<Supplier, Long> {
+    Optional<Supplier> findBySupplierId(String supplierId);
     List<Supplier> findByActive(boolean active);
     List<Supplier> findByNameContainingIgnoreCase(String namePart);
 }
\ No newline at end of file
@@ -1,14 +1,42 @@
 package com.bin.pos.dal.repository;
 
 import com.bin.pos.dal.model.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+    // Roles are lazy; everything that loads a whole user reads them, so fetch them in the same select
+    @EntityGraph(User.ROLES_GRAPH)
     Optional<User> findByUsername(String username);
+
+    @Override
+    @EntityGraph(User.ROLES_GRAPH)
+    Optional<User> findById(Long id);
+
+    @Override
+    @EntityGraph(User.ROLES_GRAPH)
+    List<User> findAll();
+
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
+
+    // Token revocation state only, without the roles collection
+    @Query("SELECT u.id AS id, u.tokenVersion AS tokenVersion, u.active AS active FROM User u")
+    List<AccountState> findAllAccountStates();
+
+    @Query("SELECT u.id AS id, u.tokenVersion AS tokenVersion, u.active AS active FROM User u WHERE u.id = :id")
+    Optional<AccountState> findAccountStateById(@Param("id") Long id);
+
+    interface AccountState {
+        Long getId();
+        Long getTokenVersion();
+        Boolean getActive();
+    }
 }
\ No newline at end of file
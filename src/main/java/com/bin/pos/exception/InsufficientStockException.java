@@ -0,0 +1,23 @@
+package com.bin.pos.exception;
+
+import com.bin.pos.dal.dto.StockShortfall;
+
+import java.io.Serial;
+import java.util.List;
+
+public class InsufficientStockException extends RuntimeException {
+
+    @Serial
+    private static final long serialVersionUID = 4127735083527146208L;
+
+    private final transient List<StockShortfall> shortfalls;
+
+    public InsufficientStockException(List<StockShortfall> shortfalls) {
+        super("Insufficient stock for " + shortfalls.size() + " item(s)");
+        this.shortfalls = List.copyOf(shortfalls);
+    }
+
+    public List<StockShortfall> getShortfalls() {
+        return shortfalls;
+    }
+}
@@ -1,4 +1,374 @@
 package com.bin.pos.service;
 
+import com.bin.pos.dal.dto.ForecastRunResult;
+import com.bin.pos.dal.model.ItemDemandForecast;
+import com.bin.pos.dal.model.PurchaseOrder;
+import com.bin.pos.dal.model.PurchaseOrderStatus;
+import com.bin.pos.dal.repository.InventoryRepository;
+import com.bin.pos.dal.repository.ItemDemandForecastRepository;
+import com.bin.pos.dal.repository.PurchaseOrderRepository;
+import com.bin.pos.dal.repository.SupplierRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Nightly demand forecast and reorder run.
+ *
+ * Daily units sold per item come from the per-item sales rollups, which completed sales and
+ * returns already keep up to date. Each item keeps an exponentially weighted mean and variance
+ * of those units, and a run only folds in the days since the item's last run, so the cost is
+ * one day of rollups rather than a rescan of the sales. From the forecast and the supplier's
+ * lead time it sets a reorder point, and items at or below it, counting units already on
+ * order, are collected into one draft purchase order per supplier.
+ *
+ * Loading and writing are set-based; the per-item arithmetic is split by category over a
+ * fork-join pool.
+ */
+@Service
 public class AdvancedInventoryService {
+
+    private static final Logger log = LoggerFactory.getLogger(AdvancedInventoryService.class);
+
+    // Bulk reads go through JDBC into plain arrays: an entity or projection per item and day does not fit the heap
+    private static final String SELECT_ITEMS_SQL =
+            "SELECT i.id, p.category, i.quantity, s.id, s.lead_time_days, i.created_at FROM inventory_items i " +
+                    "JOIN products p ON p.id = i.product_id LEFT JOIN suppliers s ON s.id = i.supplier_id";
+
+    private static final String SELECT_FORECASTS_SQL =
+            "SELECT inventory_item_id, average_daily_units, daily_units_variance, through_date FROM item_demand_forecasts";
+
+    private static final String SELECT_UNITS_SQL =
+            "SELECT inventory_item_id, sales_date, units FROM daily_item_rollups WHERE sales_date BETWEEN ? AND ?";
+
+    private static final String UPDATE_FORECAST_SQL =
+            "UPDATE item_demand_forecasts SET average_daily_units = ?, daily_units_variance = ?, through_date = ?, " +
+                    "reorder_point = ?, updated_at = ? WHERE inventory_item_id = ?";
+
+    private static final String INSERT_FORECAST_SQL =
+            "INSERT INTO item_demand_forecasts (average_daily_units, daily_units_variance, through_date, " +
+                    "reorder_point, updated_at, inventory_item_id) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_ORDER_LINE_SQL =
+            "INSERT INTO purchase_order_items (po_id, item_id, quantity, received_quantity, unit_cost) VALUES (?, ?, ?, 0, ?)";
+
+    // Orders whose units are still to arrive, drafts included so a rerun does not order twice
+    private static final Set<PurchaseOrderStatus> OUTSTANDING = EnumSet.of(
+            PurchaseOrderStatus.DRAFT, PurchaseOrderStatus.PENDING, PurchaseOrderStatus.APPROVED,
+            PurchaseOrderStatus.ORDERED, PurchaseOrderStatus.PARTIALLY_RECEIVED);
+
+    private final ItemDemandForecastRepository forecastRepository;
+    private final PurchaseOrderRepository purchaseOrderRepository;
+    private final SupplierRepository supplierRepository;
+    private final InventoryRepository inventoryRepository;
+    private final SalesRollupService salesRollupService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    private final double smoothing;
+    private final int historyDays;
+    private final double safetyFactor;
+    private final int defaultLeadTimeDays;
+    private final int coverDays;
+    private final int parallelism;
+
+    private final ReentrantLock runLock = new ReentrantLock();
+
+    @Autowired
+    public AdvancedInventoryService(
+            ItemDemandForecastRepository forecastRepository,
+            PurchaseOrderRepository purchaseOrderRepository,
+            SupplierRepository supplierRepository,
+            InventoryRepository inventoryRepository,
+            SalesRollupService salesRollupService,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${pos.inventory.forecast.smoothing:0.1}") double smoothing,
+            @Value("${pos.inventory.forecast.history-days:28}") int historyDays,
+            @Value("${pos.inventory.forecast.safety-factor:1.65}") double safetyFactor,
+            @Value("${pos.inventory.forecast.default-lead-time-days:7}") int defaultLeadTimeDays,
+            @Value("${pos.inventory.forecast.cover-days:14}") int coverDays,
+            @Value("${pos.inventory.forecast.parallelism:0}") int parallelism) {
+        if (smoothing <= 0 || smoothing > 1) {
+            throw new IllegalArgumentException("pos.inventory.forecast.smoothing must be in (0, 1]");
+        }
+        this.forecastRepository = forecastRepository;
+        this.purchaseOrderRepository = purchaseOrderRepository;
+        this.supplierRepository = supplierRepository;
+        this.inventoryRepository = inventoryRepository;
+        this.salesRollupService = salesRollupService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.smoothing = smoothing;
+        this.historyDays = Math.max(1, historyDays);
+        this.safetyFactor = safetyFactor;
+        this.defaultLeadTimeDays = defaultLeadTimeDays;
+        this.coverDays = coverDays;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    @Scheduled(cron = "${pos.inventory.forecast.cron:0 0 3 * * *}")
+    public void scheduledRun() {
+        try {
+            runForecast();
+        } catch (RuntimeException e) {
+            log.error("Demand forecast run failed", e);
+        }
+    }
+
+    public Optional<ItemDemandForecast> getForecast(String itemId) {
+        return inventoryRepository.findIdByItemId(itemId).flatMap(forecastRepository::findById);
+    }
+
+    /**
+     * Fold every item's sales up to yesterday into its forecast and draft purchase orders for
+     * whatever has fallen to its reorder point
+     */
+    public ForecastRunResult runForecast() {
+        if (!runLock.tryLock()) {
+            throw new IllegalStateException("A forecast run is already in progress");
+        }
+        try {
+            long started = System.currentTimeMillis();
+            LocalDate yesterday = LocalDate.now().minusDays(1);
+            // Yesterday's last sales may still be buffered
+            salesRollupService.flush();
+
+            Inputs inputs = readOnlyTransactionTemplate.execute(status -> loadInputs(yesterday));
+            Map<String, List<Item>> byCategory = new HashMap<>();
+            for (Item item : inputs.items) {
+                byCategory.computeIfAbsent(item.category, category -> new ArrayList<>()).add(item);
+            }
+
+            List<ItemResult> results;
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                results = pool.submit(() -> byCategory.values().parallelStream()
+                        .flatMap(items -> forecastCategory(items, inputs, yesterday).stream())
+                        .toList()).join();
+            } finally {
+                pool.shutdown();
+            }
+
+            int[] drafted = transactionTemplate.execute(status -> {
+                writeForecasts(results);
+                return draftPurchaseOrders(results, inputs.unitCosts);
+            });
+
+            int withoutSupplier = (int) results.stream()
+                    .filter(result -> result.reorderQuantity > 0 && result.supplierKey == null)
+                    .count();
+            ForecastRunResult result = new ForecastRunResult(yesterday, results.size(), byCategory.size(),
+                    drafted[0], drafted[1], withoutSupplier, System.currentTimeMillis() - started);
+            log.info("Demand forecast through {}: {} item(s) in {} categories, {} draft order(s) with {} line(s), " +
+                            "{} item(s) to reorder without a supplier, {} ms",
+                    yesterday, result.getItemsForecast(), result.getCategories(), result.getPurchaseOrdersDrafted(),
+                    result.getLinesDrafted(), withoutSupplier, result.getDurationMillis());
+            return result;
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    private Inputs loadInputs(LocalDate yesterday) {
+        Map<Long, Previous> forecasts = new HashMap<>();
+        jdbcTemplate.query(SELECT_FORECASTS_SQL, row -> {
+            forecasts.put(row.getLong(1), new Previous(row.getDouble(2), row.getDouble(3), row.getDate(4).toLocalDate()));
+        });
+
+        Inputs inputs = new Inputs();
+        Map<Long, Integer> positions = new HashMap<>();
+        jdbcTemplate.query(SELECT_ITEMS_SQL, row -> {
+            long id = row.getLong(1);
+            Long supplierKey = row.getObject(4) != null ? row.getLong(4) : null;
+            Integer leadTimeDays = row.getObject(5) != null ? row.getInt(5) : null;
+            Timestamp created = row.getTimestamp(6);
+            positions.put(id, inputs.items.size());
+            inputs.items.add(new Item(inputs.items.size(), id, row.getString(2), row.getInt(3), supplierKey,
+                    leadTimeDays, created != null ? created.toLocalDateTime().toLocalDate() : null, forecasts.get(id)));
+        });
+
+        // Only the days some item has not seen yet, as a day x item grid
+        LocalDate from = yesterday.plusDays(1);
+        for (Item item : inputs.items) {
+            LocalDate first = firstDay(item, yesterday);
+            if (first.isBefore(from)) {
+                from = first;
+            }
+        }
+        inputs.firstDay = from;
+        if (!from.isAfter(yesterday)) {
+            LocalDate gridStart = from;
+            inputs.units = new long[(int) (yesterday.toEpochDay() - from.toEpochDay()) + 1][inputs.items.size()];
+            jdbcTemplate.query(SELECT_UNITS_SQL, row -> {
+                Integer position = positions.get(row.getLong(1));
+                if (position != null) {
+                    int day = (int) (row.getDate(2).toLocalDate().toEpochDay() - gridStart.toEpochDay());
+                    inputs.units[day][position] = row.getLong(3);
+                }
+            }, java.sql.Date.valueOf(from), java.sql.Date.valueOf(yesterday));
+        }
+
+        purchaseOrderRepository.sumOutstandingQuantities(OUTSTANDING)
+                .forEach(row -> inputs.onOrder.put(row.getInventoryItemId(), row.getQuantity()));
+        purchaseOrderRepository.findLatestUnitCosts()
+                .forEach(row -> inputs.unitCosts.put(row.getInventoryItemId(), row.getUnitCost()));
+        return inputs;
+    }
+
+    private List<ItemResult> forecastCategory(List<Item> items, Inputs inputs, LocalDate yesterday) {
+        List<ItemResult> results = new ArrayList<>(items.size());
+        for (Item item : items) {
+            Previous previous = item.previous;
+            boolean started = previous != null;
+            double mean = started ? previous.mean : 0;
+            double variance = started ? previous.variance : 0;
+            LocalDate through = started ? previous.through : null;
+            for (LocalDate day = firstDay(item, yesterday); !day.isAfter(yesterday); day = day.plusDays(1)) {
+                // Returns can take a day below zero
+                double sold = Math.max(0, inputs.units[(int) (day.toEpochDay() - inputs.firstDay.toEpochDay())][item.position]);
+                if (!started) {
+                    mean = sold;
+                    started = true;
+                } else {
+                    double diff = sold - mean;
+                    double increment = smoothing * diff;
+                    mean += increment;
+                    variance = (1 - smoothing) * (variance + diff * increment);
+                }
+                through = day;
+            }
+            if (!started) {
+                // Created today, nothing to forecast from yet
+                continue;
+            }
+
+            int leadTime = item.leadTimeDays != null ? item.leadTimeDays : defaultLeadTimeDays;
+            int reorderPoint = (int) Math.ceil(mean * leadTime + safetyFactor * Math.sqrt(variance * leadTime));
+            long available = item.quantity + inputs.onOrder.getOrDefault(item.id, 0L);
+            int reorderQuantity = 0;
+            if (mean > 0 && available <= reorderPoint) {
+                reorderQuantity = (int) Math.max(1, Math.ceil(reorderPoint + mean * coverDays - available));
+            }
+            results.add(new ItemResult(item.id, previous != null, mean, variance, through, reorderPoint,
+                    reorderQuantity, item.supplierKey, leadTime));
+        }
+        return results;
+    }
+
+    // The day after the item's last run, but never more than historyDays back or before the item existed
+    private LocalDate firstDay(Item item, LocalDate yesterday) {
+        LocalDate earliest = yesterday.minusDays(historyDays - 1);
+        LocalDate first = item.previous != null
+                ? item.previous.through.plusDays(1)
+                : item.createdOn != null ? item.createdOn : earliest;
+        return first.isBefore(earliest) ? earliest : first;
+    }
+
+    private void writeForecasts(List<ItemResult> results) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> updates = new ArrayList<>();
+        List<Object[]> inserts = new ArrayList<>();
+        for (ItemResult result : results) {
+            Object[] args = {result.mean, result.variance, java.sql.Date.valueOf(result.through),
+                    result.reorderPoint, now, result.inventoryItemId};
+            (result.existing ? updates : inserts).add(args);
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_FORECAST_SQL, updates);
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_FORECAST_SQL, inserts);
+        }
+    }
+
+    // Returns {orders, lines}
+    private int[] draftPurchaseOrders(List<ItemResult> results, Map<Long, BigDecimal> unitCosts) {
+        Map<Long, List<ItemResult>> bySupplier = new HashMap<>();
+        for (ItemResult result : results) {
+            if (result.reorderQuantity > 0 && result.supplierKey != null) {
+                bySupplier.computeIfAbsent(result.supplierKey, key -> new ArrayList<>()).add(result);
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> lines = new ArrayList<>();
+        for (Map.Entry<Long, List<ItemResult>> entry : bySupplier.entrySet()) {
+            PurchaseOrder order = new PurchaseOrder();
+            order.setPoId("PO-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase());
+            order.setSupplier(supplierRepository.getReferenceById(entry.getKey()));
+            order.setStatus(PurchaseOrderStatus.DRAFT);
+            order.setOrderDate(now);
+            order.setNotes("Drafted by the reorder run");
+
+            BigDecimal total = BigDecimal.ZERO;
+            int leadTime = 0;
+            for (ItemResult result : entry.getValue()) {
+                // Last price paid; items never bought before stay unpriced until the draft is reviewed
+                BigDecimal unitCost = unitCosts.get(result.inventoryItemId);
+                if (unitCost != null) {
+                    total = total.add(unitCost.multiply(BigDecimal.valueOf(result.reorderQuantity)));
+                }
+                leadTime = Math.max(leadTime, result.leadTimeDays);
+            }
+            order.setTotalAmount(total);
+            order.setExpectedDeliveryDate(now.plusDays(leadTime));
+            PurchaseOrder saved = purchaseOrderRepository.save(order);
+
+            // A reorder can run to thousands of lines, too many for one identity insert each
+            for (ItemResult result : entry.getValue()) {
+                lines.add(new Object[]{saved.getId(), result.inventoryItemId, result.reorderQuantity,
+                        unitCosts.get(result.inventoryItemId)});
+            }
+        }
+        if (!lines.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_ORDER_LINE_SQL, lines);
+        }
+        return new int[]{bySupplier.size(), lines.size()};
+    }
+
+    // Everything a run reads, loaded up front so the fork-join workers never touch the database
+    private static class Inputs {
+        private final List<Item> items = new ArrayList<>();
+        // Units sold per day since firstDay (rows) and item position (columns)
+        private LocalDate firstDay;
+        private long[][] units;
+        private final Map<Long, Long> onOrder = new HashMap<>();
+        private final Map<Long, BigDecimal> unitCosts = new HashMap<>();
+    }
+
+    private record Previous(double mean, double variance, LocalDate through) {
+    }
+
+    private record Item(int position, Long id, String category, int quantity, Long supplierKey,
+                        Integer leadTimeDays, LocalDate createdOn, Previous previous) {
+    }
+
+    private record ItemResult(Long inventoryItemId, boolean existing, double mean, double variance, LocalDate through,
+                              int reorderPoint, int reorderQuantity, Long supplierKey, int leadTimeDays) {
+    }
 }
@@ -0,0 +1,422 @@
+package com.bin.pos.service;
+
+import com.bin.pos.dal.dto.BarcodeScanDTO;
+import com.bin.pos.dal.model.InventoryItem;
+import com.bin.pos.dal.repository.InventoryRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Resolves a scanned barcode to the inventory item a till sells under it.
+ *
+ * Every barcode is kept in memory. Numeric codes (EAN, UPC, GTIN-14) live in
+ * an open-addressing table keyed by a primitive long, so a scan neither
+ * allocates a key nor hashes a string; any other code falls back to a
+ * concurrent string map. Lookups never lock. A write touches only its own
+ * slots; the table is copied only when it grows or is reloaded.
+ * Product and item changes evict their barcodes once committed, and the
+ * next scan reloads them; stock changes are applied to the cached entry.
+ * Codes that match nothing are remembered for a few seconds, so repeated
+ * scans of an unknown label don't each run a query.
+ *
+ * Loads query without the lock and only publish what they read if no change
+ * committed, and no stock change was pending, while they ran; otherwise the
+ * reload is retried and a single-code load just isn't cached.
+ */
+@Service
+public class BarcodeLookupService {
+
+    private static final Logger log = LoggerFactory.getLogger(BarcodeLookupService.class);
+
+    // Digits that fit in a long key together with their count, so leading zeros still count
+    private static final int MAX_NUMERIC_DIGITS = 17;
+
+    private static final int RELOAD_ATTEMPTS = 3;
+
+    private static final int MAX_UNKNOWN_CODES = 10_000;
+
+    private final InventoryRepository inventoryRepository;
+
+    // Read without a lock, written under writeLock
+    private volatile LongTable numeric = LongTable.of(Collections.emptyMap());
+    private volatile Map<String, ScanEntry> other = new ConcurrentHashMap<>();
+
+    // Cached entries by inventory item id, for stock changes; replaced with the tables
+    private volatile Map<Long, ScanEntry> byItem = new ConcurrentHashMap<>();
+
+    // Codes no sellable item is sold under
+    private final Cache<String, Boolean> unknown;
+
+    // Bumped by every invalidation so a load that raced with one is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    // Stock changes written but not yet committed or rolled back; a load may or may not have read them
+    private final AtomicInteger stockChangesInFlight = new AtomicInteger();
+
+    // Not a monitor: a blocked virtual thread must not pin its carrier
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    @Autowired
+    public BarcodeLookupService(InventoryRepository inventoryRepository,
+                                @Value("${pos.catalog.barcodes.unknown-ttl-seconds:30}") long unknownTtlSeconds) {
+        this.inventoryRepository = inventoryRepository;
+        this.unknown = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(unknownTtlSeconds))
+                .maximumSize(MAX_UNKNOWN_CODES)
+                .build();
+    }
+
+    /**
+     * Load every barcoded item. Re-run on a schedule to pick up changes made
+     * by other instances.
+     */
+    @PostConstruct
+    @Scheduled(initialDelayString = "${pos.catalog.barcodes.refresh-interval-ms:60000}",
+            fixedDelayString = "${pos.catalog.barcodes.refresh-interval-ms:60000}")
+    public void reload() {
+        for (int attempt = 1; attempt <= RELOAD_ATTEMPTS; attempt++) {
+            long seen = settledGeneration();
+            Map<Long, ScanEntry> numericEntries = new HashMap<>();
+            Map<String, ScanEntry> otherEntries = new ConcurrentHashMap<>();
+            Map<Long, ScanEntry> entriesByItem = new ConcurrentHashMap<>();
+
+            // Ordered by id, so the oldest item of a product is the one that is sold
+            for (InventoryItem item : inventoryRepository.findAllWithBarcode()) {
+                String barcode = normalize(item.getProduct().getBarcode());
+                if (barcode.isEmpty()) {
+                    continue;
+                }
+                ScanEntry entry = new ScanEntry(barcode, item);
+                ScanEntry previous = entry.key >= 0
+                        ? numericEntries.putIfAbsent(entry.key, entry)
+                        : otherEntries.putIfAbsent(barcode, entry);
+                if (previous == null) {
+                    entriesByItem.put(entry.inventoryItemId, entry);
+                }
+            }
+
+            writeLock.lock();
+            try {
+                if (settledSince(seen)) {
+                    generation.incrementAndGet();
+                    numeric = LongTable.of(numericEntries);
+                    other = otherEntries;
+                    byItem = entriesByItem;
+                    unknown.invalidateAll();
+                    log.debug("Barcode lookup loaded with {} barcode(s)", entriesByItem.size());
+                    return;
+                }
+            } finally {
+                writeLock.unlock();
+            }
+        }
+        // The cached entries keep following committed changes until the next run
+        log.debug("Barcode lookup reload skipped, the catalogue changed during each of {} attempts", RELOAD_ATTEMPTS);
+    }
+
+    /**
+     * The sellable item behind a barcode, with its current price, unit and stock
+     */
+    public Optional<BarcodeScanDTO> lookup(String barcode) {
+        String code = normalize(barcode);
+        if (code.isEmpty()) {
+            return Optional.empty();
+        }
+
+        long key = numericKey(code);
+        ScanEntry entry = key >= 0 ? numeric.get(key) : other.get(code);
+        if (entry == null) {
+            if (unknown.getIfPresent(code) != null) {
+                return Optional.empty();
+            }
+            entry = load(code);
+        }
+        return entry != null ? Optional.of(entry.toDTO()) : Optional.empty();
+    }
+
+    /**
+     * Drop the barcodes of a product once its change commits
+     */
+    public void productChanged(String... barcodes) {
+        TransactionHooks.afterCommit(() -> locked(() -> {
+            generation.incrementAndGet();
+            for (String barcode : barcodes) {
+                remove(normalize(barcode));
+                unknown.invalidate(normalize(barcode));
+            }
+        }));
+    }
+
+    /**
+     * Drop an item's cached scan and the barcode it is now sold under once the change commits
+     */
+    public void itemChanged(Long itemId, String barcode) {
+        TransactionHooks.afterCommit(() -> locked(() -> {
+            generation.incrementAndGet();
+            ScanEntry cached = byItem.get(itemId);
+            if (cached != null) {
+                remove(cached.barcode);
+            }
+            remove(normalize(barcode));
+            unknown.invalidate(normalize(barcode));
+        }));
+    }
+
+    /**
+     * Follow committed stock changes (inventory item id -> units added, negative for sales)
+     */
+    public void stockChanged(Map<Long, Integer> quantityChanges) {
+        stockChangesInFlight.incrementAndGet();
+        TransactionHooks.afterCommit(() -> locked(() -> {
+            generation.incrementAndGet();
+            Map<Long, ScanEntry> entries = byItem;
+            quantityChanges.forEach((itemId, change) -> {
+                ScanEntry entry = entries.get(itemId);
+                if (entry != null) {
+                    entry.quantity.addAndGet(change);
+                }
+            });
+        }));
+        TransactionHooks.afterCompletion(stockChangesInFlight::decrementAndGet);
+    }
+
+    private ScanEntry load(String code) {
+        long seen = settledGeneration();
+        List<InventoryItem> items = inventoryRepository.findSellableByBarcode(code, PageRequest.of(0, 1));
+        ScanEntry entry = items.isEmpty() ? null : new ScanEntry(code, items.get(0));
+
+        locked(() -> {
+            if (!settledSince(seen)) {
+                return;
+            }
+            if (entry == null) {
+                unknown.put(code, Boolean.TRUE);
+            } else if (!contains(code)) {
+                put(entry);
+            }
+        });
+        return entry;
+    }
+
+    // The generation a load starts from, or -1 while a stock change it may half see is pending
+    private long settledGeneration() {
+        long seen = generation.get();
+        return stockChangesInFlight.get() == 0 ? seen : -1;
+    }
+
+    // Under writeLock: nothing was invalidated or left pending since settledGeneration returned seen
+    private boolean settledSince(long seen) {
+        return seen >= 0 && generation.get() == seen && stockChangesInFlight.get() == 0;
+    }
+
+    private void locked(Runnable change) {
+        writeLock.lock();
+        try {
+            change.run();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private boolean contains(String code) {
+        long key = numericKey(code);
+        return key >= 0 ? numeric.get(key) != null : other.containsKey(code);
+    }
+
+    private void put(ScanEntry entry) {
+        if (entry.key >= 0) {
+            numeric = numeric.put(entry);
+        } else {
+            other.put(entry.barcode, entry);
+        }
+        byItem.put(entry.inventoryItemId, entry);
+    }
+
+    private void remove(String code) {
+        if (code.isEmpty()) {
+            return;
+        }
+        long key = numericKey(code);
+        ScanEntry removed = key >= 0 ? numeric.remove(key) : other.remove(code);
+        if (removed != null) {
+            byItem.remove(removed.inventoryItemId, removed);
+        }
+    }
+
+    static String normalize(String barcode) {
+        return barcode != null ? barcode.trim() : "";
+    }
+
+    /**
+     * Value and digit count packed into one long, or -1 when the code is not short and numeric
+     */
+    static long numericKey(String code) {
+        int length = code.length();
+        if (length == 0 || length > MAX_NUMERIC_DIGITS) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            char c = code.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return (value << 5) | length;
+    }
+
+    /**
+     * Open-addressing hash table from non-negative long keys to entries, with
+     * linear probing and at most half of its slots in use. Readers need no lock;
+     * a single writer at a time (under writeLock) fills or clears one slot per
+     * change, and a removed entry leaves a marker so probes carry on past it.
+     * Entries carry their own key, so a reader that races with a slot being
+     * reused still only returns the entry it asked for.
+     */
+    static final class LongTable {
+        private static final Object REMOVED = new Object();
+
+        private final AtomicReferenceArray<Object> slots;
+        private final int mask;
+
+        // Writer only: live entries, and slots holding an entry or a removal marker
+        private int size;
+        private int used;
+
+        private LongTable(int capacity) {
+            this.slots = new AtomicReferenceArray<>(capacity);
+            this.mask = capacity - 1;
+        }
+
+        static LongTable of(Map<Long, ScanEntry> entries) {
+            LongTable table = new LongTable(capacityFor(entries.size()));
+            entries.values().forEach(table::insert);
+            return table;
+        }
+
+        private static int capacityFor(int size) {
+            return Integer.highestOneBit(Math.max(16, size * 2 - 1)) << 1;
+        }
+
+        ScanEntry get(long key) {
+            int slot = slot(key, mask);
+            Object value;
+            while ((value = slots.get(slot)) != null) {
+                if (value instanceof ScanEntry entry && entry.key == key) {
+                    return entry;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return null;
+        }
+
+        /**
+         * Add an entry whose key is not in the table. Returns the table to publish:
+         * this one, or a larger copy without removal markers once half the slots are used.
+         */
+        LongTable put(ScanEntry entry) {
+            if ((used + 1) * 2 > slots.length()) {
+                LongTable grown = new LongTable(capacityFor(size + 1));
+                for (int i = 0; i < slots.length(); i++) {
+                    if (slots.get(i) instanceof ScanEntry live) {
+                        grown.insert(live);
+                    }
+                }
+                grown.insert(entry);
+                return grown;
+            }
+            insert(entry);
+            return this;
+        }
+
+        ScanEntry remove(long key) {
+            int slot = slot(key, mask);
+            Object value;
+            while ((value = slots.get(slot)) != null) {
+                if (value instanceof ScanEntry entry && entry.key == key) {
+                    slots.set(slot, REMOVED);
+                    size--;
+                    return entry;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return null;
+        }
+
+        int capacity() {
+            return slots.length();
+        }
+
+        private void insert(ScanEntry entry) {
+            int slot = slot(entry.key, mask);
+            Object value;
+            while ((value = slots.get(slot)) != null && value != REMOVED) {
+                slot = (slot + 1) & mask;
+            }
+            if (value == null) {
+                used++;
+            }
+            size++;
+            slots.set(slot, entry);
+        }
+
+        private static int slot(long key, int mask) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32)) & mask;
+        }
+    }
+
+    static final class ScanEntry {
+        private final String barcode;
+        // numericKey of the barcode, -1 when it is kept in the string map
+        private final long key;
+        private final Long inventoryItemId;
+        private final String itemId;
+        private final String productId;
+        private final String name;
+        private final String category;
+        private final BigDecimal price;
+        private final String unit;
+        private final AtomicInteger quantity;
+
+        ScanEntry(String barcode, InventoryItem item) {
+            this.barcode = barcode;
+            this.key = numericKey(barcode);
+            this.inventoryItemId = item.getId();
+            this.itemId = item.getItemId();
+            this.productId = item.getProduct().getProductId();
+            this.name = item.getProduct().getName();
+            this.category = item.getProduct().getCategory();
+            this.price = item.getPrice();
+            this.unit = item.getUnit();
+            this.quantity = new AtomicInteger(item.getQuantity());
+        }
+
+        private BarcodeScanDTO toDTO() {
+            return new BarcodeScanDTO(barcode, inventoryItemId, itemId, productId, name, category,
+                    price, unit, quantity.get());
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.bin.pos.service;
+
+import com.bin.pos.config.CacheConfig;
+import com.bin.pos.dal.dto.CacheStatsDTO;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+public class CacheStatsService {
+
+    private final CacheManager cacheManager;
+
+    @Autowired
+    public CacheStatsService(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    public List<CacheStatsDTO> getCacheStats() {
+        List<CacheStatsDTO> stats = new ArrayList<>();
+        for (String name : CacheConfig.CACHE_NAMES) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache instanceof TransactionAwareCacheDecorator decorator) {
+                cache = decorator.getTargetCache();
+            }
+            if (cache instanceof CaffeineCache caffeineCache) {
+                com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache = caffeineCache.getNativeCache();
+                CacheStats cacheStats = nativeCache.stats();
+                stats.add(new CacheStatsDTO(name, nativeCache.estimatedSize(), cacheStats.hitCount(),
+                        cacheStats.missCount(), cacheStats.hitRate(), cacheStats.evictionCount(),
+                        cacheStats.loadFailureCount()));
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Drop every cached catalogue entry, e.g. after editing the database by hand
+     */
+    public void clearAll() {
+        CacheConfig.CACHE_NAMES.forEach(name -> {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.clear();
+            }
+        });
+    }
+}
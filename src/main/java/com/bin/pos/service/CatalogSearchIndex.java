@@ -0,0 +1,444 @@
+package com.bin.pos.service;
+
+import com.bin.pos.dal.model.InventoryItem;
+import com.bin.pos.dal.model.Product;
+import com.bin.pos.dal.repository.InventoryRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory search index over the sellable inventory items and the product
+ * fields they are found by.
+ *
+ * Names are indexed by every substring of two and three characters within a
+ * word, so a query term matches inside words, as the LIKE search this
+ * replaced did; category, barcode and item id are indexed exactly. A query
+ * only visits the shortest posting list among its terms. For a term of three
+ * or more characters that list is bounded by the names holding its rarest
+ * trigram; a two-character term may visit every name holding that pair.
+ * Single characters are not indexed: such a term is only checked against the
+ * names the other terms found, and a query made of nothing else matches item
+ * ids and barcodes only.
+ * The index holds ids only: callers load the matching page from the database,
+ * so stock and prices are always current.
+ *
+ * A rebuild loads the catalogue without holding the write lock. Changes
+ * committed meanwhile go to the live index and are replayed onto the new one
+ * before it is swapped in.
+ */
+@Service
+public class CatalogSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogSearchIndex.class);
+
+    private static final int GRAM = 3;
+
+    // Shorter terms would visit most of the catalogue for each keystroke
+    private static final int MIN_TERM = 2;
+
+    // Matching an item id or barcode exactly beats any name match
+    private static final int IDENTIFIER_SCORE = 1000;
+
+    private final InventoryRepository inventoryRepository;
+
+    private volatile Index index = new Index();
+
+    // Held only while a change is applied; changes are short, so scans and commits don't wait on a load
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    // One rebuild at a time
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    // Changes applied since the running rebuild started, or null; guarded by writeLock
+    private List<Consumer<Index>> replay;
+
+    @Autowired
+    public CatalogSearchIndex(InventoryRepository inventoryRepository) {
+        this.inventoryRepository = inventoryRepository;
+    }
+
+    /**
+     * Load the whole catalogue. Re-run on a schedule to pick up changes made
+     * by other instances.
+     */
+    @PostConstruct
+    @Scheduled(initialDelayString = "${pos.catalog.search.rebuild-interval-ms:600000}",
+            fixedDelayString = "${pos.catalog.search.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            locked(() -> replay = new ArrayList<>());
+            Index fresh = new Index();
+            try {
+                inventoryRepository.findAll().forEach(item -> fresh.add(Entry.of(item)));
+            } catch (RuntimeException e) {
+                locked(() -> replay = null);
+                throw e;
+            }
+            locked(() -> {
+                replay.forEach(change -> change.accept(fresh));
+                replay = null;
+                index = fresh;
+            });
+            log.debug("Catalogue search index rebuilt with {} item(s)", fresh.entries.size());
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * Ids of the items matching every term of the query, best match first
+     */
+    public List<Long> search(String query, int offset, int limit) {
+        String normalized = normalize(query);
+        if (normalized.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        Index current = index;
+        String[] terms = normalized.split(" ");
+
+        // Drive the scan from the rarest term and check the others per entry
+        Set<Long> driver = null;
+        for (String term : terms) {
+            if (term.length() < MIN_TERM) {
+                continue;
+            }
+            Set<Long> postings = current.postings(term);
+            if (postings.isEmpty()) {
+                driver = postings;
+                break;
+            }
+            if (driver == null || postings.size() < driver.size()) {
+                driver = postings;
+            }
+        }
+
+        // Keep only offset + limit of the best hits, worst on top of the heap
+        Comparator<Hit> ranking = Comparator.comparingInt((Hit hit) -> hit.score).reversed()
+                .thenComparing(hit -> hit.entry.nameKey)
+                .thenComparing(hit -> hit.entry.id);
+        int wanted = offset + limit;
+        PriorityQueue<Hit> best = new PriorityQueue<>(ranking.reversed());
+
+        for (Long id : current.identifiedBy(normalized)) {
+            Entry entry = current.entries.get(id);
+            if (entry != null) {
+                offer(best, wanted, new Hit(entry, IDENTIFIER_SCORE));
+            }
+        }
+        for (Long id : driver != null ? driver : Collections.<Long>emptySet()) {
+            Entry entry = current.entries.get(id);
+            if (entry == null || entry.matchesIdentifier(normalized)) {
+                continue;
+            }
+            int score = entry.score(normalized, terms);
+            if (score > 0) {
+                offer(best, wanted, new Hit(entry, score));
+            }
+        }
+
+        List<Hit> ranked = new ArrayList<>(best);
+        ranked.sort(ranking);
+        List<Long> ids = new ArrayList<>(Math.max(0, ranked.size() - offset));
+        for (int i = offset; i < ranked.size(); i++) {
+            ids.add(ranked.get(i).entry.id);
+        }
+        return ids;
+    }
+
+    /**
+     * Ids of the items in a category, ignoring case, ordered by name
+     */
+    public List<Long> findByCategory(String category) {
+        Index current = index;
+        List<Entry> matches = new ArrayList<>();
+        current.byCategory.getOrDefault(normalize(category), Collections.emptySet()).forEach(id -> {
+            Entry entry = current.entries.get(id);
+            if (entry != null) {
+                matches.add(entry);
+            }
+        });
+        matches.sort(Comparator.comparing((Entry entry) -> entry.nameKey).thenComparing(entry -> entry.id));
+
+        List<Long> ids = new ArrayList<>(matches.size());
+        matches.forEach(entry -> ids.add(entry.id));
+        return ids;
+    }
+
+    /**
+     * Index a created or updated item once its transaction commits
+     */
+    public void itemSaved(InventoryItem item) {
+        Entry entry = Entry.of(item);
+        TransactionHooks.afterCommit(() -> apply(target -> {
+            target.remove(entry.id);
+            target.add(entry);
+        }));
+    }
+
+    public void itemRemoved(Long id) {
+        TransactionHooks.afterCommit(() -> apply(target -> target.remove(id)));
+    }
+
+    /**
+     * Re-index the items of a product whose name, category or barcode may have changed
+     */
+    public void productSaved(Product product) {
+        Long productId = product.getId();
+        String name = product.getName();
+        String category = product.getCategory();
+        String barcode = product.getBarcode();
+        TransactionHooks.afterCommit(() -> apply(target -> {
+            for (Long id : new ArrayList<>(target.byProduct.getOrDefault(productId, Collections.emptySet()))) {
+                Entry existing = target.entries.get(id);
+                if (existing != null) {
+                    target.remove(id);
+                    target.add(new Entry(id, productId, existing.itemId, name, category, barcode));
+                }
+            }
+        }));
+    }
+
+    public void productRemoved(Long productId) {
+        TransactionHooks.afterCommit(() -> apply(target ->
+                new ArrayList<>(target.byProduct.getOrDefault(productId, Collections.emptySet())).forEach(target::remove)));
+    }
+
+    private static void offer(PriorityQueue<Hit> best, int wanted, Hit hit) {
+        best.add(hit);
+        if (best.size() > wanted) {
+            best.poll();
+        }
+    }
+
+    // Apply to the live index, and to the one being rebuilt once its load is done
+    private void apply(Consumer<Index> change) {
+        locked(() -> {
+            change.accept(index);
+            if (replay != null) {
+                replay.add(change);
+            }
+        });
+    }
+
+    private void locked(Runnable change) {
+        writeLock.lock();
+        try {
+            change.run();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Lower case, punctuation to spaces, single spaces
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder normalized = new StringBuilder(text.length());
+        boolean space = true;
+        for (char c : text.toLowerCase(Locale.ROOT).toCharArray()) {
+            if (Character.isLetterOrDigit(c)) {
+                normalized.append(c);
+                space = false;
+            } else if (!space) {
+                normalized.append(' ');
+                space = true;
+            }
+        }
+        int length = normalized.length();
+        return space && length > 0 ? normalized.substring(0, length - 1) : normalized.toString();
+    }
+
+    private static final class Index {
+        private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+        private final Map<String, Set<Long>> grams = new ConcurrentHashMap<>();
+        private final Map<String, Set<Long>> shortGrams = new ConcurrentHashMap<>();
+        private final Map<String, Set<Long>> byCategory = new ConcurrentHashMap<>();
+        private final Map<String, Set<Long>> byBarcode = new ConcurrentHashMap<>();
+        private final Map<String, Long> byItemId = new ConcurrentHashMap<>();
+        private final Map<Long, Set<Long>> byProduct = new ConcurrentHashMap<>();
+
+        private Set<Long> identifiedBy(String normalized) {
+            Set<Long> ids = new HashSet<>(byBarcode.getOrDefault(normalized, Collections.emptySet()));
+            Long byId = byItemId.get(normalized);
+            if (byId != null) {
+                ids.add(byId);
+            }
+            return ids;
+        }
+
+        private Set<Long> postings(String term) {
+            if (term.length() < GRAM) {
+                return shortGrams.getOrDefault(term, Collections.emptySet());
+            }
+
+            Set<Long> shortest = null;
+            for (int i = 0; i + GRAM <= term.length(); i++) {
+                Set<Long> postings = grams.getOrDefault(term.substring(i, i + GRAM), Collections.emptySet());
+                if (shortest == null || postings.size() < shortest.size()) {
+                    shortest = postings;
+                }
+            }
+            return shortest;
+        }
+
+        private void add(Entry entry) {
+            entries.put(entry.id, entry);
+            for (String gram : entry.grams(GRAM)) {
+                link(grams, gram, entry.id);
+            }
+            for (int length = MIN_TERM; length < GRAM; length++) {
+                for (String gram : entry.grams(length)) {
+                    link(shortGrams, gram, entry.id);
+                }
+            }
+            link(byCategory, entry.categoryKey, entry.id);
+            link(byBarcode, entry.barcodeKey, entry.id);
+            link(byProduct, entry.productId, entry.id);
+            if (!entry.itemIdKey.isEmpty()) {
+                byItemId.put(entry.itemIdKey, entry.id);
+            }
+        }
+
+        private void remove(Long id) {
+            Entry entry = entries.remove(id);
+            if (entry == null) {
+                return;
+            }
+            for (String gram : entry.grams(GRAM)) {
+                unlink(grams, gram, id);
+            }
+            for (int length = MIN_TERM; length < GRAM; length++) {
+                for (String gram : entry.grams(length)) {
+                    unlink(shortGrams, gram, id);
+                }
+            }
+            unlink(byCategory, entry.categoryKey, id);
+            unlink(byBarcode, entry.barcodeKey, id);
+            unlink(byProduct, entry.productId, id);
+            byItemId.remove(entry.itemIdKey, id);
+        }
+
+        private static <K> void link(Map<K, Set<Long>> postings, K key, Long id) {
+            if (key == null || "".equals(key)) {
+                return;
+            }
+            postings.computeIfAbsent(key, ignored -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+
+        private static <K> void unlink(Map<K, Set<Long>> postings, K key, Long id) {
+            if (key == null || "".equals(key)) {
+                return;
+            }
+            postings.computeIfPresent(key, (ignored, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    private static final class Entry {
+        private final Long id;
+        private final Long productId;
+        private final String itemId;
+        private final String itemIdKey;
+        private final String nameKey;
+        private final String[] words;
+        private final String categoryKey;
+        private final String barcodeKey;
+
+        private Entry(Long id, Long productId, String itemId, String name, String category, String barcode) {
+            this.id = id;
+            this.productId = productId;
+            this.itemId = itemId;
+            this.itemIdKey = normalize(itemId);
+            this.nameKey = normalize(name);
+            this.words = nameKey.isEmpty() ? new String[0] : nameKey.split(" ");
+            this.categoryKey = normalize(category);
+            this.barcodeKey = normalize(barcode);
+        }
+
+        // Searches match the product name, as the inventory listing shows it
+        private static Entry of(InventoryItem item) {
+            Product product = item.getProduct();
+            return new Entry(item.getId(), product.getId(), item.getItemId(),
+                    product.getName(), product.getCategory(), product.getBarcode());
+        }
+
+        // Distinct substrings of the given length within the name's words
+        private Set<String> grams(int length) {
+            Set<String> grams = new HashSet<>();
+            for (String word : words) {
+                for (int i = 0; i + length <= word.length(); i++) {
+                    grams.add(word.substring(i, i + length));
+                }
+            }
+            return grams;
+        }
+
+        private boolean matchesIdentifier(String normalized) {
+            return normalized.equals(itemIdKey) || normalized.equals(barcodeKey);
+        }
+
+        /**
+         * 0 when a term is missing; otherwise higher for whole words, word
+         * prefixes and names that start with the query
+         */
+        private int score(String normalized, String[] terms) {
+            int score = 0;
+            for (String term : terms) {
+                int best = 0;
+                for (String word : words) {
+                    if (word.equals(term)) {
+                        best = 3;
+                        break;
+                    } else if (word.startsWith(term)) {
+                        best = Math.max(best, 2);
+                    } else if (word.contains(term)) {
+                        best = Math.max(best, 1);
+                    }
+                }
+                if (best == 0) {
+                    return 0;
+                }
+                score += best;
+            }
+
+            if (nameKey.equals(normalized)) {
+                score += 10;
+            } else if (nameKey.startsWith(normalized)) {
+                score += 5;
+            }
+            return score;
+        }
+    }
+
+    private static final class Hit {
+        private final Entry entry;
+        private final int score;
+
+        private Hit(Entry entry, int score) {
+            this.entry = entry;
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,539 @@
+package com.bin.pos.service;
+
+import com.bin.pos.config.CacheConfig;
+import com.bin.pos.dal.dto.CatalogImportResult;
+import com.bin.pos.dal.dto.CatalogImportResult.RowError;
+import com.bin.pos.dal.dto.CatalogRow;
+import com.bin.pos.dal.dto.ExportFormat;
+import com.bin.pos.dal.model.InventoryItem;
+import com.bin.pos.dal.model.MovementType;
+import com.bin.pos.dal.model.Product;
+import com.bin.pos.dal.model.ProductStatus;
+import com.bin.pos.dal.repository.ProductRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Bulk catalogue import and export in the streamed export formats.
+ *
+ * An import is read one row at a time and written in batches, each in its own transaction:
+ * the products and items a batch names are resolved with one query each, then inserted or
+ * updated with JDBC batches. A batch the database rejects is retried row by row, so one bad
+ * row is reported on its own instead of failing the rows around it.
+ */
+@Service
+public class CatalogTransferService {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogTransferService.class);
+
+    private static final String SELECT_PRODUCT_KEYS_SQL =
+            "SELECT id, product_id, barcode FROM products WHERE product_id IN (:ids)";
+    private static final String INSERT_PRODUCT_SQL =
+            "INSERT INTO products (product_id, name, description, unit_price, category, barcode, status) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_PRODUCT_SQL =
+            "UPDATE products SET name = ?, description = ?, unit_price = ?, category = ?, barcode = ?, status = ? " +
+                    "WHERE id = ?";
+
+    private static final String SELECT_ITEM_KEYS_SQL =
+            "SELECT id, item_id FROM inventory_items WHERE item_id IN (:ids)";
+    // Locked until the batch commits, so a sale cannot change the stock between this read and the write
+    private static final String LOCK_ITEM_STOCK_SQL =
+            "SELECT id, item_id, quantity FROM inventory_items WHERE item_id IN (:ids) ORDER BY id FOR UPDATE";
+    private static final String INSERT_ITEM_SQL =
+            "INSERT INTO inventory_items (item_id, product_id, name, category, price, quantity, unit, created_at, updated_at) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_ITEM_SQL =
+            "UPDATE inventory_items SET product_id = ?, name = ?, category = ?, price = ?, quantity = ?, unit = ?, " +
+                    "updated_at = ? WHERE id = ?";
+
+    private final ProductRepository productRepository;
+    private final StreamingExportService streamingExportService;
+    private final InventoryMovementService inventoryMovementService;
+    private final StockReservationLedger reservationLedger;
+    private final CatalogSearchIndex catalogSearchIndex;
+    private final BarcodeLookupService barcodeLookupService;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final CacheManager cacheManager;
+    private final int batchSize;
+    private final int maxErrors;
+
+    @Autowired
+    public CatalogTransferService(
+            ProductRepository productRepository,
+            StreamingExportService streamingExportService,
+            InventoryMovementService inventoryMovementService,
+            StockReservationLedger reservationLedger,
+            CatalogSearchIndex catalogSearchIndex,
+            BarcodeLookupService barcodeLookupService,
+            NamedParameterJdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            CacheManager cacheManager,
+            @Value("${pos.catalog.import.batch-size:1000}") int batchSize,
+            @Value("${pos.catalog.import.max-errors:1000}") int maxErrors) {
+        this.productRepository = productRepository;
+        this.streamingExportService = streamingExportService;
+        this.inventoryMovementService = inventoryMovementService;
+        this.reservationLedger = reservationLedger;
+        this.catalogSearchIndex = catalogSearchIndex;
+        this.barcodeLookupService = barcodeLookupService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.cacheManager = cacheManager;
+        this.batchSize = batchSize;
+        this.maxErrors = maxErrors;
+    }
+
+    /**
+     * Write every product and inventory item to the output as it is read, in the column
+     * layout importCatalog reads back
+     */
+    @Transactional(readOnly = true)
+    public long exportCatalog(ExportFormat format, OutputStream out) throws IOException {
+        try (Stream<CatalogRow> rows = productRepository.streamCatalog()) {
+            return streamingExportService.export(rows, row -> row, format, out);
+        }
+    }
+
+    /**
+     * Create or update the products and items in the input, keyed by productId and itemId.
+     * A row replaces every field it covers, blank ones included, except that an item without
+     * a quantity keeps its stock and one without a price sells at the product's unit price.
+     * Rows without an itemId only touch the product. Within a batch the last row for a
+     * product or item wins.
+     */
+    public CatalogImportResult importCatalog(InputStream in, ExportFormat format) throws IOException {
+        long started = System.currentTimeMillis();
+        CatalogImportResult result = new CatalogImportResult();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        RowReader rows = format == ExportFormat.CSV ? new CsvRowReader(reader) : new NdjsonRowReader(reader);
+
+        List<ParsedRow> batch = new ArrayList<>(batchSize);
+        while (true) {
+            ObjectNode fields;
+            try {
+                fields = rows.next();
+            } catch (JsonProcessingException | IllegalArgumentException e) {
+                result.setRowsRead(result.getRowsRead() + 1);
+                fail(result, rows.line(), null, null, message(e));
+                continue;
+            }
+            if (fields == null) {
+                break;
+            }
+
+            result.setRowsRead(result.getRowsRead() + 1);
+            CatalogRow row;
+            try {
+                row = objectMapper.treeToValue(fields, CatalogRow.class);
+                validate(row);
+            } catch (JsonProcessingException | IllegalArgumentException e) {
+                fail(result, rows.line(), text(fields, "productId"), text(fields, "itemId"), message(e));
+                continue;
+            }
+
+            batch.add(new ParsedRow(rows.line(), row));
+            if (batch.size() == batchSize) {
+                write(batch, result);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch, result);
+        }
+
+        result.setDurationMillis(System.currentTimeMillis() - started);
+        log.info("Catalogue import: {} row(s) read, {} imported, {} failed in {} ms", result.getRowsRead(),
+                result.getRowsImported(), result.getRowsFailed(), result.getDurationMillis());
+        return result;
+    }
+
+    private void write(List<ParsedRow> batch, CatalogImportResult result) {
+        try {
+            applied(transactionTemplate.execute(status -> upsert(batch)), batch.size(), result);
+        } catch (DataAccessException e) {
+            log.warn("Catalogue import batch of {} row(s) failed, importing it row by row: {}",
+                    batch.size(), e.getMostSpecificCause().getMessage());
+            for (ParsedRow row : batch) {
+                try {
+                    applied(transactionTemplate.execute(status -> upsert(List.of(row))), 1, result);
+                } catch (DataAccessException rowError) {
+                    fail(result, row.line(), row.row().getProductId(), row.row().getItemId(),
+                            rowError.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+        // Keeps the queue of opening-stock movements from growing with the size of the import
+        inventoryMovementService.flush();
+    }
+
+    private Written upsert(List<ParsedRow> rows) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        Map<String, CatalogRow> products = new LinkedHashMap<>();
+        Map<String, CatalogRow> items = new LinkedHashMap<>();
+        for (ParsedRow parsed : rows) {
+            products.put(parsed.row().getProductId(), parsed.row());
+            if (parsed.row().getItemId() != null) {
+                items.put(parsed.row().getItemId(), parsed.row());
+            }
+        }
+
+        Map<String, Long> productKeys = new HashMap<>();
+        // Scans cached under a product's old and new barcodes are dropped once the batch commits
+        List<String> barcodes = new ArrayList<>();
+        jdbcTemplate.query(SELECT_PRODUCT_KEYS_SQL, Map.of("ids", products.keySet()), rs -> {
+            productKeys.put(rs.getString("product_id"), rs.getLong("id"));
+            if (rs.getString("barcode") != null) {
+                barcodes.add(rs.getString("barcode"));
+            }
+        });
+        List<Object[]> productInserts = new ArrayList<>();
+        List<Object[]> productUpdates = new ArrayList<>();
+        products.forEach((productId, row) -> {
+            Long id = productKeys.get(productId);
+            if (id == null) {
+                productInserts.add(new Object[]{productId, row.getName(), row.getDescription(), row.getUnitPrice(),
+                        row.getCategory(), row.getBarcode(), row.getStatus().name()});
+            } else {
+                productUpdates.add(new Object[]{row.getName(), row.getDescription(), row.getUnitPrice(),
+                        row.getCategory(), row.getBarcode(), row.getStatus().name(), id});
+            }
+            if (row.getBarcode() != null) {
+                barcodes.add(row.getBarcode());
+            }
+        });
+        // Updates first, so a barcode moving from an existing product to a new one is free by the insert
+        jdbcTemplate.getJdbcTemplate().batchUpdate(UPDATE_PRODUCT_SQL, productUpdates);
+        jdbcTemplate.getJdbcTemplate().batchUpdate(INSERT_PRODUCT_SQL, productInserts);
+        if (!productInserts.isEmpty()) {
+            jdbcTemplate.query(SELECT_PRODUCT_KEYS_SQL, Map.of("ids", products.keySet()),
+                    rs -> { productKeys.put(rs.getString("product_id"), rs.getLong("id")); });
+        }
+
+        Map<String, Long> itemKeys = new HashMap<>();
+        Map<String, Integer> onHand = new HashMap<>();
+        if (!items.isEmpty()) {
+            jdbcTemplate.query(LOCK_ITEM_STOCK_SQL, Map.of("ids", items.keySet()), rs -> {
+                itemKeys.put(rs.getString("item_id"), rs.getLong("id"));
+                onHand.put(rs.getString("item_id"), rs.getInt("quantity"));
+            });
+        }
+        List<Object[]> itemInserts = new ArrayList<>();
+        List<Object[]> itemUpdates = new ArrayList<>();
+        Map<String, Integer> openingStock = new HashMap<>();
+        Map<Long, Integer> quantityChanges = new HashMap<>();
+        Map<Long, Integer> quantities = new HashMap<>();
+        items.forEach((itemId, row) -> {
+            // Name and category are copied from the product as it stands after this batch
+            CatalogRow product = products.get(row.getProductId());
+            BigDecimal price = row.getPrice() != null ? row.getPrice() : product.getUnitPrice();
+            Long id = itemKeys.get(itemId);
+            if (id == null) {
+                int quantity = row.getQuantity() != null ? row.getQuantity() : 0;
+                itemInserts.add(new Object[]{itemId, productKeys.get(row.getProductId()), product.getName(),
+                        product.getCategory(), price, quantity, row.getUnit(), now, now});
+                openingStock.put(itemId, quantity);
+            } else {
+                int quantity = row.getQuantity() != null ? row.getQuantity() : onHand.get(itemId);
+                itemUpdates.add(new Object[]{productKeys.get(row.getProductId()), product.getName(),
+                        product.getCategory(), price, quantity, row.getUnit(), now, id});
+                quantityChanges.put(id, quantity - onHand.get(itemId));
+                quantities.put(id, quantity);
+            }
+        });
+        jdbcTemplate.getJdbcTemplate().batchUpdate(UPDATE_ITEM_SQL, itemUpdates);
+        jdbcTemplate.getJdbcTemplate().batchUpdate(INSERT_ITEM_SQL, itemInserts);
+        if (!itemInserts.isEmpty()) {
+            jdbcTemplate.query(SELECT_ITEM_KEYS_SQL, Map.of("ids", openingStock.keySet()),
+                    rs -> { itemKeys.put(rs.getString("item_id"), rs.getLong("id")); });
+        }
+
+        Map<Long, Integer> opened = new HashMap<>();
+        openingStock.forEach((itemId, quantity) -> opened.put(itemKeys.get(itemId), quantity));
+        inventoryMovementService.record(opened, MovementType.ADJUSTMENT, null, "Opening stock");
+        inventoryMovementService.record(quantityChanges, MovementType.ADJUSTMENT, null, "Catalogue import");
+        quantities.forEach(reservationLedger::resync);
+        index(products, items, productKeys, itemKeys);
+        barcodeLookupService.productChanged(barcodes.toArray(String[]::new));
+
+        return new Written(productKeys, itemKeys, productInserts.size(), productUpdates.size(),
+                itemInserts.size(), itemUpdates.size());
+    }
+
+    // Per batch rather than a full rebuild at the end, which would load the whole catalogue at once
+    private void index(Map<String, CatalogRow> products, Map<String, CatalogRow> items,
+                       Map<String, Long> productKeys, Map<String, Long> itemKeys) {
+        Map<String, Product> indexed = new HashMap<>();
+        products.forEach((productId, row) -> {
+            // Only the fields the index reads are set
+            Product product = new Product();
+            product.setId(productKeys.get(productId));
+            product.setProductId(productId);
+            product.setName(row.getName());
+            product.setCategory(row.getCategory());
+            product.setBarcode(row.getBarcode());
+            indexed.put(productId, product);
+            catalogSearchIndex.productSaved(product);
+        });
+        items.forEach((itemId, row) -> {
+            InventoryItem item = new InventoryItem();
+            item.setId(itemKeys.get(itemId));
+            item.setItemId(itemId);
+            item.setProduct(indexed.get(row.getProductId()));
+            catalogSearchIndex.itemSaved(item);
+        });
+    }
+
+    // Counts a committed batch and drops whatever the caches hold for its rows
+    private void applied(Written written, int rows, CatalogImportResult result) {
+        result.setRowsImported(result.getRowsImported() + rows);
+        result.setProductsCreated(result.getProductsCreated() + written.productsCreated());
+        result.setProductsUpdated(result.getProductsUpdated() + written.productsUpdated());
+        result.setItemsCreated(result.getItemsCreated() + written.itemsCreated());
+        result.setItemsUpdated(result.getItemsUpdated() + written.itemsUpdated());
+
+        cacheManager.getCache(CacheConfig.PRODUCT_LIST).clear();
+        Cache productsById = cacheManager.getCache(CacheConfig.PRODUCTS_BY_ID);
+        Cache productsByProductId = cacheManager.getCache(CacheConfig.PRODUCTS_BY_PRODUCT_ID);
+        written.products().forEach((productId, id) -> {
+            productsById.evict(id);
+            productsByProductId.evict(productId);
+        });
+        Cache itemCache = cacheManager.getCache(CacheConfig.INVENTORY_ITEMS);
+        Cache itemIdCache = cacheManager.getCache(CacheConfig.INVENTORY_ITEM_IDS);
+        written.items().forEach((itemId, id) -> {
+            itemCache.evict(id);
+            itemIdCache.evict(itemId);
+        });
+    }
+
+    private static void validate(CatalogRow row) {
+        row.setProductId(trimToNull(row.getProductId()));
+        row.setItemId(trimToNull(row.getItemId()));
+        // Blank barcodes would collide on the unique index
+        row.setBarcode(trimToNull(row.getBarcode()));
+        if (row.getStatus() == null) {
+            row.setStatus(ProductStatus.ACTIVE);
+        }
+
+        if (row.getProductId() == null) {
+            throw new IllegalArgumentException("productId is required");
+        }
+        if (row.getName() == null || row.getName().isBlank()) {
+            throw new IllegalArgumentException("name is required");
+        }
+        if (row.getUnitPrice() == null || row.getUnitPrice().signum() < 0) {
+            throw new IllegalArgumentException("unitPrice is required and cannot be negative");
+        }
+        if (row.getPrice() != null && row.getPrice().signum() < 0) {
+            throw new IllegalArgumentException("price cannot be negative");
+        }
+        if (row.getQuantity() != null && row.getQuantity() < 0) {
+            throw new IllegalArgumentException("quantity cannot be negative");
+        }
+    }
+
+    private void fail(CatalogImportResult result, long line, String productId, String itemId, String message) {
+        result.setRowsFailed(result.getRowsFailed() + 1);
+        if (result.getErrors().size() < maxErrors) {
+            result.getErrors().add(new RowError(line, productId, itemId, message));
+        }
+    }
+
+    private static String message(Exception e) {
+        return e instanceof JsonProcessingException json ? json.getOriginalMessage() : e.getMessage();
+    }
+
+    private static String text(ObjectNode fields, String name) {
+        JsonNode value = fields.get(name);
+        return value != null && value.isValueNode() ? value.asText() : null;
+    }
+
+    private static String trimToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private interface RowReader {
+        // The next row's fields, or null at the end of the input
+        ObjectNode next() throws IOException;
+
+        // Line of the input the row last returned starts on
+        long line();
+    }
+
+    private final class NdjsonRowReader implements RowReader {
+        private final BufferedReader reader;
+        private long line;
+
+        private NdjsonRowReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public ObjectNode next() throws IOException {
+            String text;
+            do {
+                text = reader.readLine();
+                if (text == null) {
+                    return null;
+                }
+                line++;
+            } while (text.isBlank());
+
+            if (objectMapper.readTree(text) instanceof ObjectNode fields) {
+                return fields;
+            }
+            throw new IllegalArgumentException("Each line must be a JSON object");
+        }
+
+        @Override
+        public long line() {
+            return line;
+        }
+    }
+
+    /**
+     * RFC 4180 records: a header line of field names, quoted fields may hold commas,
+     * quotes and line breaks. Empty fields are left out, so they read as null.
+     */
+    private final class CsvRowReader implements RowReader {
+        private final BufferedReader reader;
+        private List<String> header;
+        private long nextLine = 1;
+        private long line;
+
+        private CsvRowReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public ObjectNode next() throws IOException {
+            if (header == null) {
+                header = readRecord();
+                if (header == null) {
+                    return null;
+                }
+                // A byte order mark from a spreadsheet export would otherwise stick to the first name
+                header.set(0, header.get(0).replace("\uFEFF", ""));
+                header.replaceAll(String::trim);
+            }
+
+            List<String> values = readRecord();
+            if (values == null) {
+                return null;
+            }
+            if (values.size() > header.size()) {
+                throw new IllegalArgumentException("Expected at most " + header.size() + " fields, found " + values.size());
+            }
+            ObjectNode fields = objectMapper.createObjectNode();
+            for (int i = 0; i < values.size(); i++) {
+                if (!values.get(i).isEmpty()) {
+                    fields.put(header.get(i), values.get(i));
+                }
+            }
+            return fields;
+        }
+
+        @Override
+        public long line() {
+            return line;
+        }
+
+        // Null at the end of the input; blank lines are skipped
+        private List<String> readRecord() throws IOException {
+            List<String> values = new ArrayList<>();
+            StringBuilder value = new StringBuilder();
+            boolean quoted = false;
+            boolean empty = true;
+            line = nextLine;
+
+            int c;
+            while ((c = reader.read()) != -1) {
+                if (quoted) {
+                    if (c == '"') {
+                        reader.mark(1);
+                        if (reader.read() == '"') {
+                            value.append('"');
+                        } else {
+                            reader.reset();
+                            quoted = false;
+                        }
+                    } else {
+                        if (c == '\n') {
+                            nextLine++;
+                        }
+                        value.append((char) c);
+                    }
+                } else if (c == '\n') {
+                    nextLine++;
+                    if (empty) {
+                        line = nextLine;
+                        continue;
+                    }
+                    values.add(value.toString());
+                    return values;
+                } else if (c != '\r') {
+                    empty = false;
+                    if (c == '"') {
+                        quoted = true;
+                    } else if (c == ',') {
+                        values.add(value.toString());
+                        value.setLength(0);
+                    } else {
+                        value.append((char) c);
+                    }
+                }
+            }
+            if (quoted) {
+                throw new IllegalArgumentException("Unterminated quoted field");
+            }
+            if (empty) {
+                return null;
+            }
+            values.add(value.toString());
+            return values;
+        }
+    }
+
+    private record ParsedRow(long line, CatalogRow row) {
+    }
+
+    private record Written(Map<String, Long> products, Map<String, Long> items, int productsCreated,
+                           int productsUpdated, int itemsCreated, int itemsUpdated) {
+    }
+}
@@ -1,5 +1,6 @@
 package com.bin.pos.service;
 
+import com.bin.pos.dal.dto.CustomerDTO;
 import com.bin.pos.dal.model.Customer;
 import com.bin.pos.dal.repository.CustomerRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -20,8 +21,8 @@ public class CustomerService {
         this.customerRepository = customerRepository;
     }
 
-    public List<Customer> getAllCustomers() {
-        return customerRepository.findAll();
+    public List<CustomerDTO> getAllCustomers() {
+        return customerRepository.findAllAsDTO();
     }
 
     public Optional<Customer> getCustomerById(Long id) {
@@ -36,8 +37,8 @@ public class CustomerService {
         return customerRepository.findByEmail(email);
     }
 
-    public List<Customer> searchCustomers(String searchTerm) {
-        return customerRepository.findByNameContainingIgnoreCase(searchTerm);
+    public List<CustomerDTO> searchCustomers(String searchTerm) {
+        return customerRepository.searchByNameAsDTO(searchTerm);
     }
 
     @Transactional
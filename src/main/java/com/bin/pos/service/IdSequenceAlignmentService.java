@@ -0,0 +1,82 @@
+package com.bin.pos.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves the id sequences of batch-inserted entities past the ids that already
+ * exist. Those tables used to be filled through AUTO_INCREMENT, so a freshly
+ * created sequence would otherwise hand out ids that are taken.
+ */
+@Service
+public class IdSequenceAlignmentService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdSequenceAlignmentService.class);
+
+    // Must match the allocationSize of the entities' @SequenceGenerator
+    private static final int ALLOCATION_SIZE = 50;
+
+    // table -> sequence
+    private static final Map<String, String> SEQUENCES = new LinkedHashMap<>();
+
+    static {
+        SEQUENCES.put("sales_transactions", "sales_transactions_seq");
+        SEQUENCES.put("transaction_items", "transaction_items_seq");
+        SEQUENCES.put("service_transaction_items", "service_transaction_items_seq");
+        SEQUENCES.put("payment_transactions", "payment_transactions_seq");
+        SEQUENCES.put("inventory_movements", "inventory_movements_seq");
+        SEQUENCES.put("order_items", "order_items_seq");
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Taking the EntityManagerFactory makes sure the schema has been updated first
+    @Autowired
+    public IdSequenceAlignmentService(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void alignSequences() {
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+
+        SEQUENCES.forEach((table, sequence) -> {
+            try {
+                Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+                if (maxId == null || maxId == 0) {
+                    return;
+                }
+
+                // The pooled optimizer hands out ids below the value it reads, so leave a full block of room
+                long floor = maxId + ALLOCATION_SIZE + 1;
+                if ("MySQL".equalsIgnoreCase(database) || "MariaDB".equalsIgnoreCase(database)) {
+                    // MySQL has no sequences; Hibernate keeps the next value in a one-row table
+                    jdbcTemplate.update("UPDATE " + sequence + " SET next_val = ? WHERE next_val < ?", floor, floor);
+                } else if ("H2".equalsIgnoreCase(database)) {
+                    List<Long> current = jdbcTemplate.queryForList(
+                            "SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE LOWER(SEQUENCE_NAME) = ?",
+                            Long.class, sequence);
+                    if (!current.isEmpty() && current.get(0) < floor) {
+                        jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + floor);
+                    }
+                } else {
+                    log.warn("Not aligning sequence {} on unsupported database {}", sequence, database);
+                }
+            } catch (DataAccessException e) {
+                log.warn("Could not align sequence {} with table {}: {}", sequence, table, e.getMessage());
+            }
+        });
+    }
+}
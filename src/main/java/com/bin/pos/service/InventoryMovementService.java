@@ -0,0 +1,243 @@
+package com.bin.pos.service;
+
+import com.bin.pos.dal.dto.InventoryMovementDTO;
+import com.bin.pos.dal.model.InventoryMovement;
+import com.bin.pos.dal.model.MovementType;
+import com.bin.pos.dal.repository.InventoryMovementRepository;
+import com.bin.pos.dal.repository.InventoryRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Appends a movement to the stock ledger for every sale, return and manual
+ * adjustment, so on-hand quantities can be audited and shrink reported.
+ *
+ * By default movements are queued in memory once their transaction commits
+ * and written in batches on a schedule, off the checkout path. With
+ * pos.inventory.movements.synchronous they are written in the transaction
+ * that changes the stock, so none can be lost to a crash before the flush.
+ */
+@Service
+public class InventoryMovementService {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryMovementService.class);
+
+    private final InventoryMovementRepository inventoryMovementRepository;
+    private final InventoryRepository inventoryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean synchronous;
+    private final int batchSize;
+
+    private final Queue<PendingMovement> pending = new ConcurrentLinkedQueue<>();
+
+    // One flush at a time, so the scheduler and shutdown do not write the same movements twice
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    @Autowired
+    public InventoryMovementService(
+            InventoryMovementRepository inventoryMovementRepository,
+            InventoryRepository inventoryRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${pos.inventory.movements.synchronous:false}") boolean synchronous,
+            @Value("${pos.inventory.movements.batch-size:500}") int batchSize) {
+        this.inventoryMovementRepository = inventoryMovementRepository;
+        this.inventoryRepository = inventoryRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // A flush called from inside another transaction must neither join nor spoil it
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.synchronous = synchronous;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Units sold by a sale (inventory item id -> units)
+     */
+    public void recordSale(Map<Long, Integer> quantities, String reference) {
+        List<PendingMovement> movements = new ArrayList<>();
+        quantities.forEach((itemId, quantity) -> movements.add(movement(itemId, -quantity, MovementType.SALE, reference, null)));
+        append(movements);
+    }
+
+    /**
+     * Units put back into stock by a returned sale (inventory item id -> units)
+     */
+    public void recordReturn(Map<Long, Integer> quantities, String reference) {
+        List<PendingMovement> movements = new ArrayList<>();
+        quantities.forEach((itemId, quantity) -> movements.add(movement(itemId, quantity, MovementType.RETURN, reference, null)));
+        append(movements);
+    }
+
+    /**
+     * Units delivered against a purchase order (inventory item id -> units)
+     */
+    public void recordPurchase(Map<Long, Integer> quantities, String reference) {
+        List<PendingMovement> movements = new ArrayList<>();
+        quantities.forEach((itemId, quantity) -> movements.add(movement(itemId, quantity, MovementType.PURCHASE, reference, null)));
+        append(movements);
+    }
+
+    /**
+     * Any other signed change to an item's stock
+     */
+    public void record(Long itemId, int quantityChange, MovementType type, String reference, String notes) {
+        append(List.of(movement(itemId, quantityChange, type, reference, notes)));
+    }
+
+    /**
+     * The same kind of change to many items at once (inventory item id -> signed units)
+     */
+    public void record(Map<Long, Integer> quantityChanges, MovementType type, String reference, String notes) {
+        List<PendingMovement> movements = new ArrayList<>();
+        quantityChanges.forEach((itemId, change) -> movements.add(movement(itemId, change, type, reference, notes)));
+        append(movements);
+    }
+
+    /**
+     * An item's ledger for [start, end), oldest first, including that of deleted items
+     * that went by the same business id
+     */
+    @Transactional(readOnly = true)
+    public List<InventoryMovementDTO> getMovements(String itemId, LocalDateTime start, LocalDateTime end) {
+        if (start == null || end == null || !start.isBefore(end)) {
+            throw new IllegalArgumentException("Movement period start must be before its end");
+        }
+        List<InventoryMovementDTO> removed = inventoryMovementRepository.findRemovedByItemIdInPeriodAsDTO(itemId, start, end);
+        List<InventoryMovementDTO> current = inventoryMovementRepository.findByItemIdInPeriodAsDTO(itemId, start, end);
+        if (removed.isEmpty()) {
+            return current;
+        }
+        List<InventoryMovementDTO> movements = new ArrayList<>(removed);
+        movements.addAll(current);
+        movements.sort(Comparator.comparing(InventoryMovementDTO::getTimestamp).thenComparing(InventoryMovementDTO::getId));
+        return movements;
+    }
+
+    /**
+     * Keep an item's ledger, under its business id, ahead of deleting the item itself
+     */
+    @Transactional
+    public void detachMovements(Long id, String itemId) {
+        // Queued movements are written first, so they are kept too
+        flush();
+        inventoryMovementRepository.detachFromItem(id, itemId);
+    }
+
+    /**
+     * Write every queued movement, a batch per transaction. A batch that fails is retried
+     * row by row: rows the database rejects outright are dropped, the rest wait for the next run.
+     */
+    @Scheduled(fixedDelayString = "${pos.inventory.movements.flush-interval-ms:1000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            List<PendingMovement> batch;
+            while (!(batch = drain()).isEmpty()) {
+                if (!write(batch)) {
+                    return;
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private void append(List<PendingMovement> changes) {
+        List<PendingMovement> movements = changes.stream()
+                .filter(movement -> movement.quantityChange() != 0)
+                .toList();
+        if (movements.isEmpty()) {
+            return;
+        }
+
+        if (synchronous) {
+            inventoryMovementRepository.saveAll(toEntities(movements));
+        } else {
+            TransactionHooks.afterCommit(() -> pending.addAll(movements));
+        }
+    }
+
+    private List<PendingMovement> drain() {
+        List<PendingMovement> batch = new ArrayList<>();
+        PendingMovement movement;
+        while (batch.size() < batchSize && (movement = pending.poll()) != null) {
+            batch.add(movement);
+        }
+        return batch;
+    }
+
+    // False when the database could not be written at all and the batch is queued again
+    private boolean write(List<PendingMovement> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> inventoryMovementRepository.saveAll(toEntities(batch)));
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Movement batch of {} failed, writing it row by row", batch.size(), e);
+        }
+
+        List<PendingMovement> retry = new ArrayList<>();
+        for (PendingMovement movement : batch) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> inventoryMovementRepository.saveAll(toEntities(List.of(movement))));
+            } catch (DataIntegrityViolationException e) {
+                // Typically an item deleted after the change was queued
+                log.error("Dropping stock movement {} of item {}: {}", movement.type(), movement.itemId(), e.getMessage());
+            } catch (RuntimeException e) {
+                retry.add(movement);
+            }
+        }
+        if (retry.isEmpty()) {
+            return true;
+        }
+        log.error("Stock movement flush failed, retrying {} movement(s) on the next run", retry.size());
+        pending.addAll(retry);
+        return false;
+    }
+
+    private List<InventoryMovement> toEntities(List<PendingMovement> movements) {
+        List<InventoryMovement> entities = new ArrayList<>(movements.size());
+        for (PendingMovement movement : movements) {
+            InventoryMovement entity = new InventoryMovement();
+            // A reference is enough for the foreign key; the item is not loaded
+            entity.setItem(inventoryRepository.getReferenceById(movement.itemId()));
+            entity.setQuantityChange(movement.quantityChange());
+            entity.setMovementType(movement.type());
+            entity.setReference(movement.reference());
+            entity.setNotes(movement.notes());
+            entity.setTimestamp(movement.timestamp());
+            entities.add(entity);
+        }
+        return entities;
+    }
+
+    private static PendingMovement movement(Long itemId, int quantityChange, MovementType type, String reference, String notes) {
+        return new PendingMovement(itemId, quantityChange, type, reference, notes, LocalDateTime.now());
+    }
+
+    private record PendingMovement(Long itemId, int quantityChange, MovementType type, String reference,
+                                   String notes, LocalDateTime timestamp) {
+    }
+}
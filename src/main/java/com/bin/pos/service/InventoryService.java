@@ -1,76 +1,133 @@
 package com.bin.pos.service;
 
+import com.bin.pos.config.CacheConfig;
 import com.bin.pos.dal.dto.InventoryItemDTO;
 import com.bin.pos.dal.model.InventoryItem;
+import com.bin.pos.dal.model.MovementType;
 import com.bin.pos.dal.model.Product;
+import com.bin.pos.dal.model.Supplier;
 import com.bin.pos.dal.repository.InventoryRepository;
 import com.bin.pos.dal.repository.ProductRepository;
+import com.bin.pos.dal.repository.SupplierRepository;
+import io.micrometer.core.annotation.Timed;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
+@Timed("pos.service")
 public class InventoryService {
 
+    private static final int DEFAULT_SEARCH_SIZE = 50;
+    private static final int MAX_SEARCH_SIZE = 200;
+
     private final InventoryRepository inventoryRepository;
     private final ProductRepository productRepository;
+    private final SupplierRepository supplierRepository;
+    private final StockReservationLedger reservationLedger;
+    private final CatalogSearchIndex catalogSearchIndex;
+    private final BarcodeLookupService barcodeLookupService;
+    private final InventoryMovementService inventoryMovementService;
+    private final int lowStockThreshold;
+
+    // Item details by database id, and business item id -> database id
+    private final Cache itemCache;
+    private final Cache itemIdCache;
 
     @Autowired
-    public InventoryService(InventoryRepository inventoryRepository, ProductRepository productRepository) {
+    public InventoryService(
+            InventoryRepository inventoryRepository,
+            ProductRepository productRepository,
+            SupplierRepository supplierRepository,
+            StockReservationLedger reservationLedger,
+            CatalogSearchIndex catalogSearchIndex,
+            BarcodeLookupService barcodeLookupService,
+            InventoryMovementService inventoryMovementService,
+            CacheManager cacheManager,
+            @Value("${pos.inventory.low-stock-threshold:10}") int lowStockThreshold) {
         this.inventoryRepository = inventoryRepository;
         this.productRepository = productRepository;
+        this.supplierRepository = supplierRepository;
+        this.reservationLedger = reservationLedger;
+        this.catalogSearchIndex = catalogSearchIndex;
+        this.barcodeLookupService = barcodeLookupService;
+        this.inventoryMovementService = inventoryMovementService;
+        this.itemCache = cacheManager.getCache(CacheConfig.INVENTORY_ITEMS);
+        this.itemIdCache = cacheManager.getCache(CacheConfig.INVENTORY_ITEM_IDS);
+        this.lowStockThreshold = lowStockThreshold;
     }
 
-    // Add @Transactional to keep session open during lazy loading
+    // Read views are selected straight into DTOs, so no entity is loaded or dirty-checked
     @Transactional(readOnly = true)
     public List<InventoryItemDTO> getAllItems() {
-        return inventoryRepository.findAll().stream()
-                .map(InventoryItemDTO::new)
-                .collect(Collectors.toList());
+        return inventoryRepository.findAllAsDTO();
     }
 
-    @Transactional(readOnly = true)
+    // Not transactional: a cache hit must not borrow a connection. Misses are not cached, an item
+    // created on another instance has to be found on the next read
     public Optional<InventoryItemDTO> getItemById(Long id) {
-        return inventoryRepository.findById(id).map(InventoryItemDTO::new);
+        InventoryItemDTO cached = itemCache.get(id, InventoryItemDTO.class);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<InventoryItemDTO> item = inventoryRepository.findByIdAsDTO(id);
+        item.ifPresent(dto -> itemCache.putIfAbsent(id, dto));
+        return item;
     }
 
-    @Transactional(readOnly = true)
     public Optional<InventoryItemDTO> getItemByItemId(String itemId) {
-        return inventoryRepository.findByItemId(itemId).map(InventoryItemDTO::new);
+        Long id = itemIdCache.get(itemId, Long.class);
+        if (id == null) {
+            Optional<Long> found = inventoryRepository.findIdByItemId(itemId);
+            if (found.isEmpty()) {
+                return Optional.empty();
+            }
+            id = found.get();
+            itemIdCache.putIfAbsent(itemId, id);
+        }
+        return getItemById(id);
     }
 
-    // Add @Transactional to keep session open during lazy loading
+    /**
+     * Ranked page of the items whose product name, item id or barcode matches the query
+     */
     @Transactional(readOnly = true)
-    public List<InventoryItemDTO> searchItems(String searchTerm) {
-        return inventoryRepository.findAll().stream()
-                .filter(item -> item.getProduct().getName().toLowerCase().contains(searchTerm.toLowerCase()))
-                .map(InventoryItemDTO::new)
-                .collect(Collectors.toList());
+    public List<InventoryItemDTO> searchItems(String searchTerm, int page, Integer size) {
+        if (page < 0) {
+            throw new IllegalArgumentException("Page must not be negative");
+        }
+        int pageSize = size != null ? size : DEFAULT_SEARCH_SIZE;
+        if (pageSize < 1 || pageSize > MAX_SEARCH_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_SEARCH_SIZE);
+        }
+
+        int offset = (int) Math.min((long) page * pageSize, Integer.MAX_VALUE - pageSize);
+        return loadInOrder(catalogSearchIndex.search(searchTerm, offset, pageSize));
     }
 
-    // Add @Transactional to keep session open during lazy loading
     @Transactional(readOnly = true)
     public List<InventoryItemDTO> getItemsByCategory(String category) {
-        return inventoryRepository.findAll().stream()
-                .filter(item -> item.getProduct().getCategory().equalsIgnoreCase(category))
-                .map(InventoryItemDTO::new)
-                .collect(Collectors.toList());
+        return loadInOrder(catalogSearchIndex.findByCategory(category));
     }
 
     @Transactional(readOnly = true)
     public List<InventoryItemDTO> getLowStockItems() {
-        return inventoryRepository.findLowStockItems().stream()
-                .map(InventoryItemDTO::new)
-                .collect(Collectors.toList());
+        return inventoryRepository.findLowStockItemsAsDTO(lowStockThreshold);
     }
 
     @Transactional
@@ -97,20 +154,33 @@ public class InventoryService {
         item.setName(product.getName());
         item.setCategory(product.getCategory());
 
-        return new InventoryItemDTO(inventoryRepository.save(item));
+        InventoryItem saved = inventoryRepository.save(item);
+        inventoryMovementService.record(saved.getId(), saved.getQuantity(), MovementType.ADJUSTMENT, null, "Opening stock");
+        itemIdCache.evict(saved.getItemId());
+        itemCache.evict(saved.getId());
+        catalogSearchIndex.itemSaved(saved);
+        barcodeLookupService.itemChanged(saved.getId(), product.getBarcode());
+        return new InventoryItemDTO(saved);
     }
 
 
     @Transactional
     public InventoryItemDTO updateItem(Long id, InventoryItemDTO itemDTO) {
         return inventoryRepository.findById(id).map(existingItem -> {
+            int quantityChange = itemDTO.getQuantity() - existingItem.getQuantity();
             existingItem.setQuantity(itemDTO.getQuantity());
             existingItem.setPrice(itemDTO.getPrice());
             existingItem.setUnit(itemDTO.getUnit());
             Product product = productRepository.findByProductId(itemDTO.getProduct().getProductId())
                     .orElseThrow(() -> new IllegalArgumentException("Product not found: " + itemDTO.getProduct().getProductId()));
             existingItem.setProduct(product);
-            return new InventoryItemDTO(inventoryRepository.save(existingItem));
+            InventoryItem saved = inventoryRepository.save(existingItem);
+            reservationLedger.resync(saved.getId(), saved.getQuantity());
+            inventoryMovementService.record(saved.getId(), quantityChange, MovementType.ADJUSTMENT, null, "Item edited");
+            itemCache.evict(saved.getId());
+            catalogSearchIndex.itemSaved(saved);
+            barcodeLookupService.itemChanged(saved.getId(), product.getBarcode());
+            return new InventoryItemDTO(saved);
         }).orElse(null);
     }
 
@@ -123,6 +193,14 @@ public class InventoryService {
 
     @Transactional
     public boolean updateItemQuantity(Long id, int quantityChange) {
+        return updateItemQuantity(id, quantityChange, MovementType.ADJUSTMENT, null);
+    }
+
+    /**
+     * Apply a signed stock change and record it in the item's movement ledger as the given type
+     */
+    @Transactional
+    public boolean updateItemQuantity(Long id, int quantityChange, MovementType type, String notes) {
         Optional<InventoryItem> itemOpt = inventoryRepository.findById(id);
         if (itemOpt.isPresent()) {
             InventoryItem item = itemOpt.get();
@@ -130,6 +208,10 @@ public class InventoryService {
             if (newQuantity >= 0) {
                 item.setQuantity(newQuantity);
                 inventoryRepository.save(item);
+                reservationLedger.adjust(id, quantityChange);
+                inventoryMovementService.record(id, quantityChange, type, null, notes);
+                itemCache.evict(id);
+                barcodeLookupService.stockChanged(Map.of(id, quantityChange));
                 return true;
             }
         }
@@ -138,17 +220,47 @@ public class InventoryService {
 
     @Transactional
     public boolean updateItemQuantityByItemId(String itemId, int quantityChange) {
+        return updateItemQuantityByItemId(itemId, quantityChange, MovementType.ADJUSTMENT, null);
+    }
+
+    @Transactional
+    public boolean updateItemQuantityByItemId(String itemId, int quantityChange, MovementType type, String notes) {
         Optional<InventoryItem> itemOpt = inventoryRepository.findByItemId(itemId);
         if (itemOpt.isPresent()) {
-            return updateItemQuantity(itemOpt.get().getId(), quantityChange);
+            return updateItemQuantity(itemOpt.get().getId(), quantityChange, type, notes);
         }
         return false;
     }
 
+    /**
+     * Set the supplier the reorder run orders an item from; a null supplier id clears it
+     */
+    @Transactional
+    public boolean assignSupplier(String itemId, String supplierId) {
+        Optional<InventoryItem> itemOpt = inventoryRepository.findByItemId(itemId);
+        if (itemOpt.isEmpty()) {
+            return false;
+        }
+        Supplier supplier = null;
+        if (supplierId != null && !supplierId.isEmpty()) {
+            supplier = supplierRepository.findBySupplierId(supplierId)
+                    .orElseThrow(() -> new IllegalArgumentException("Supplier not found: " + supplierId));
+        }
+        itemOpt.get().setSupplier(supplier);
+        return true;
+    }
+
     @Transactional
     public boolean deleteItem(Long id) {
-        if (inventoryRepository.existsById(id)) {
-            inventoryRepository.deleteById(id);
+        Optional<InventoryItem> itemOpt = inventoryRepository.findById(id);
+        if (itemOpt.isPresent()) {
+            inventoryMovementService.detachMovements(id, itemOpt.get().getItemId());
+            inventoryRepository.delete(itemOpt.get());
+            itemCache.evict(id);
+            itemIdCache.evict(itemOpt.get().getItemId());
+            reservationLedger.forget(id);
+            catalogSearchIndex.itemRemoved(id);
+            barcodeLookupService.itemChanged(id, null);
             return true;
         }
         return false;
@@ -158,9 +270,29 @@ public class InventoryService {
     public boolean deleteItemByItemId(String itemId) {
         Optional<InventoryItem> itemOpt = inventoryRepository.findByItemId(itemId);
         if (itemOpt.isPresent()) {
+            inventoryMovementService.detachMovements(itemOpt.get().getId(), itemId);
             inventoryRepository.delete(itemOpt.get());
+            itemCache.evict(itemOpt.get().getId());
+            itemIdCache.evict(itemId);
+            reservationLedger.forget(itemOpt.get().getId());
+            catalogSearchIndex.itemRemoved(itemOpt.get().getId());
+            barcodeLookupService.itemChanged(itemOpt.get().getId(), null);
             return true;
         }
         return false;
     }
-}
\ No newline at end of file
+
+    // Load search hits by id, keeping the index's order
+    private List<InventoryItemDTO> loadInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<Long, InventoryItemDTO> byId = new HashMap<>();
+        inventoryRepository.findByIdInAsDTO(ids).forEach(item -> byId.put(item.getId(), item));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+}
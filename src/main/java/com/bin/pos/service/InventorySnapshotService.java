@@ -0,0 +1,246 @@
+package com.bin.pos.service;
+
+import com.bin.pos.dal.dto.StockLevelDTO;
+import com.bin.pos.dal.model.InventoryItem;
+import com.bin.pos.dal.model.InventorySnapshot;
+import com.bin.pos.dal.repository.InventoryMovementRepository;
+import com.bin.pos.dal.repository.InventoryMovementRepository.ItemChange;
+import com.bin.pos.dal.repository.InventoryRepository;
+import com.bin.pos.dal.repository.InventorySnapshotRepository;
+import com.bin.pos.dal.repository.InventorySnapshotRepository.ItemHeader;
+import com.bin.pos.dal.repository.InventorySnapshotRepository.ItemQuantity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Answers "how much of an item was in stock at time T" from periodic snapshots of every item's
+ * stock and the movement ledger: the latest snapshot at or before T plus the movements after it,
+ * so a lookup never replays more than one snapshot interval.
+ *
+ * Each run is the previous run plus the ledger between the two, so it only counts movements that
+ * have been written. On-hand stock runs ahead of or behind the ledger while movements and
+ * reserved stock changes are queued, so it is only compared, and items whose on-hand quantity
+ * less the later movements disagrees are logged. Runs are taken settle-seconds in the past. The
+ * first run, and stock at T before it, are worked back from the on-hand quantities.
+ */
+@Service
+public class InventorySnapshotService {
+
+    private static final Logger log = LoggerFactory.getLogger(InventorySnapshotService.class);
+
+    private static final String INSERT_SNAPSHOT_SQL =
+            "INSERT INTO inventory_snapshots (taken_at, inventory_item_id, quantity) VALUES (?, ?, ?)";
+
+    // Drifted items named in the log of one run; all of them are counted
+    private static final int LOGGED_DRIFTS = 20;
+
+    private final InventorySnapshotRepository inventorySnapshotRepository;
+    private final InventoryMovementRepository inventoryMovementRepository;
+    private final InventoryRepository inventoryRepository;
+    private final InventoryMovementService inventoryMovementService;
+    private final StockReservationLedger reservationLedger;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration settle;
+
+    // One run at a time, a second one would read the first one's rows half written
+    private final ReentrantLock runLock = new ReentrantLock();
+
+    @Autowired
+    public InventorySnapshotService(
+            InventorySnapshotRepository inventorySnapshotRepository,
+            InventoryMovementRepository inventoryMovementRepository,
+            InventoryRepository inventoryRepository,
+            InventoryMovementService inventoryMovementService,
+            StockReservationLedger reservationLedger,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${pos.inventory.snapshots.settle-seconds:300}") long settleSeconds) {
+        this.inventorySnapshotRepository = inventorySnapshotRepository;
+        this.inventoryMovementRepository = inventoryMovementRepository;
+        this.inventoryRepository = inventoryRepository;
+        this.inventoryMovementService = inventoryMovementService;
+        this.reservationLedger = reservationLedger;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.settle = Duration.ofSeconds(settleSeconds);
+    }
+
+    @Scheduled(cron = "${pos.inventory.snapshots.cron:0 30 2 * * *}")
+    public void scheduledSnapshot() {
+        try {
+            takeSnapshot(null);
+        } catch (RuntimeException e) {
+            log.error("Stock snapshot failed", e);
+        }
+    }
+
+    /**
+     * Snapshot every item's stock as of takenAt, by default settle-seconds ago.
+     * Returns the number of items written.
+     */
+    public int takeSnapshot(LocalDateTime takenAt) {
+        LocalDateTime latest = LocalDateTime.now().minus(settle);
+        // Whole seconds, so the run time reads back exactly whatever the column precision
+        LocalDateTime at = (takenAt != null ? takenAt : latest).truncatedTo(ChronoUnit.SECONDS);
+        if (at.isAfter(latest)) {
+            throw new IllegalArgumentException("Snapshots must be at least " + settle.toSeconds() + "s in the past");
+        }
+
+        runLock.lock();
+        try {
+            // Stock changes and movements still queued in memory would otherwise be missing
+            reservationLedger.flush();
+            inventoryMovementService.flush();
+            return transactionTemplate.execute(status -> writeRun(at));
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<StockLevelDTO> getStockAt(String itemId, LocalDateTime at) {
+        Optional<InventoryItem> itemOpt = inventoryRepository.findByItemId(itemId);
+        if (itemOpt.isEmpty()) {
+            return Optional.empty();
+        }
+
+        InventoryItem item = itemOpt.get();
+        Optional<InventorySnapshot> snapshot = inventorySnapshotRepository
+                .findFirstByInventoryItemIdAndTakenAtLessThanEqualOrderByTakenAtDesc(item.getId(), at);
+        if (snapshot.isEmpty()) {
+            Optional<ItemChange> since = inventoryMovementRepository.sumChangesOfItemAfter(item.getId(), at);
+            return Optional.of(new StockLevelDTO(
+                    item.getItemId(), item.getProduct().getName(), item.getProduct().getCategory(), at,
+                    item.getQuantity() - since.map(ItemChange::getQuantityChange).orElse(0L),
+                    null, since.map(ItemChange::getMovements).orElse(0L)));
+        }
+
+        Optional<ItemChange> change = inventoryMovementRepository
+                .sumChangesOfItemBetween(item.getId(), snapshot.get().getTakenAt(), at);
+        return Optional.of(new StockLevelDTO(
+                item.getItemId(), item.getProduct().getName(), item.getProduct().getCategory(), at,
+                snapshot.get().getQuantity() + change.map(ItemChange::getQuantityChange).orElse(0L),
+                snapshot.get().getTakenAt(),
+                change.map(ItemChange::getMovements).orElse(0L)));
+    }
+
+    /**
+     * Stock of every item of a category at one point in time, in three set-based queries
+     */
+    @Transactional(readOnly = true)
+    public List<StockLevelDTO> getCategoryStockAt(String category, LocalDateTime at) {
+        if (category == null || category.isBlank()) {
+            throw new IllegalArgumentException("Category is required");
+        }
+
+        Optional<LocalDateTime> run = inventorySnapshotRepository.findLatestRunAtOrBefore(at);
+        Map<Long, Integer> base = new HashMap<>();
+        run.ifPresent(takenAt -> inventorySnapshotRepository.findRunInCategory(takenAt, category)
+                .forEach(row -> base.put(row.getInventoryItemId(), row.getQuantity())));
+        // Without a run, the ledger since T is undone from the on-hand quantities instead
+        Map<Long, ItemChange> changes = new HashMap<>();
+        (run.isPresent()
+                ? inventoryMovementRepository.sumChangesBetweenInCategory(category, run.get(), at)
+                : inventoryMovementRepository.sumChangesAfterInCategory(category, at))
+                .forEach(row -> changes.put(row.getInventoryItemId(), row));
+        int sign = run.isPresent() ? 1 : -1;
+
+        List<ItemHeader> items = inventorySnapshotRepository.findItemsInCategory(category);
+        List<StockLevelDTO> levels = new ArrayList<>(items.size());
+        for (ItemHeader item : items) {
+            ItemChange change = changes.get(item.getInventoryItemId());
+            long quantity = run.isPresent() ? base.getOrDefault(item.getInventoryItemId(), 0) : item.getQuantity();
+            levels.add(new StockLevelDTO(item.getItemId(), item.getName(), item.getCategory(), at,
+                    quantity + sign * (change != null ? change.getQuantityChange() : 0),
+                    run.orElse(null),
+                    change != null ? change.getMovements() : 0));
+        }
+        return levels;
+    }
+
+    private int writeRun(LocalDateTime at) {
+        if (inventorySnapshotRepository.existsByTakenAt(at)) {
+            throw new IllegalStateException("A snapshot already exists for " + at);
+        }
+
+        Optional<LocalDateTime> previous = inventorySnapshotRepository.findLatestRunAtOrBefore(at);
+        Map<Long, Long> onHand = fromOnHand(at);
+        Map<Long, Long> quantities = onHand;
+        if (previous.isPresent()) {
+            quantities = fromPreviousRun(previous.get(), at, onHand.keySet());
+            reportDrift(quantities, onHand, previous.get(), at);
+        }
+
+        Timestamp time = Timestamp.valueOf(at);
+        List<Object[]> rows = new ArrayList<>(quantities.size());
+        quantities.forEach((itemId, quantity) -> rows.add(new Object[]{time, itemId, Math.toIntExact(quantity)}));
+        jdbcTemplate.batchUpdate(INSERT_SNAPSHOT_SQL, rows);
+
+        log.info("Stock snapshot at {}: {} item(s)", at, rows.size());
+        return rows.size();
+    }
+
+    private Map<Long, Long> fromPreviousRun(LocalDateTime previous, LocalDateTime at, Set<Long> items) {
+        Map<Long, Long> quantities = new HashMap<>();
+        for (Long item : items) {
+            quantities.put(item, 0L);
+        }
+        for (ItemQuantity row : inventorySnapshotRepository.findRun(previous)) {
+            quantities.computeIfPresent(row.getInventoryItemId(), (id, quantity) -> quantity + row.getQuantity());
+        }
+        for (ItemChange row : inventoryMovementRepository.sumChangesBetween(previous, at)) {
+            quantities.computeIfPresent(row.getInventoryItemId(), (id, quantity) -> quantity + row.getQuantityChange());
+        }
+        return quantities;
+    }
+
+    // Where on hand disagrees with the ledger, sales still queued included; the ledger figure is kept
+    private void reportDrift(Map<Long, Long> replayed, Map<Long, Long> onHand, LocalDateTime previous, LocalDateTime at) {
+        List<String> drifted = new ArrayList<>();
+        int count = 0;
+        for (Map.Entry<Long, Long> entry : onHand.entrySet()) {
+            long fromLedger = replayed.getOrDefault(entry.getKey(), 0L);
+            if (fromLedger != entry.getValue()) {
+                if (++count <= LOGGED_DRIFTS) {
+                    drifted.add("item " + entry.getKey() + ": ledger " + fromLedger + ", on hand " + entry.getValue());
+                }
+            }
+        }
+        if (count > 0) {
+            log.warn("Stock snapshot at {}: {} item(s) on hand disagree with the run at {} plus the ledger: {}",
+                    at, count, previous, String.join(", ", drifted));
+        }
+    }
+
+    private Map<Long, Long> fromOnHand(LocalDateTime at) {
+        Map<Long, Long> quantities = new HashMap<>();
+        for (ItemQuantity row : inventorySnapshotRepository.findCurrentQuantities()) {
+            quantities.put(row.getInventoryItemId(), row.getQuantity().longValue());
+        }
+        for (ItemChange row : inventoryMovementRepository.sumChangesAfter(at)) {
+            quantities.computeIfPresent(row.getInventoryItemId(), (id, quantity) -> quantity - row.getQuantityChange());
+        }
+        return quantities;
+    }
+}
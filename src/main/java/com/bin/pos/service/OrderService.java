@@ -1,60 +1,86 @@
 package com.bin.pos.service;
 
+import com.bin.pos.dal.dto.ExportFormat;
+import com.bin.pos.dal.dto.OrderTransactionDTO;
 import com.bin.pos.dal.model.InventoryItem;
 import com.bin.pos.dal.model.OrderItem;
 import com.bin.pos.dal.model.OrderStatus;
 import com.bin.pos.dal.model.OrderTransaction;
+import com.bin.pos.dal.repository.CustomerRepository;
 import com.bin.pos.dal.repository.InventoryRepository;
 import com.bin.pos.dal.repository.OrderRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Service
+@Timed("pos.service")
 public class OrderService {
 
     private final OrderRepository orderRepository;
+    private final CustomerRepository customerRepository;
     private final InventoryRepository inventoryRepository;
     private final InventoryService inventoryService;
+    private final StreamingExportService streamingExportService;
 
     @Autowired
     public OrderService(
             OrderRepository orderRepository,
+            CustomerRepository customerRepository,
             InventoryRepository inventoryRepository,
-            InventoryService inventoryService) {
+            InventoryService inventoryService,
+            StreamingExportService streamingExportService) {
         this.orderRepository = orderRepository;
+        this.customerRepository = customerRepository;
         this.inventoryRepository = inventoryRepository;
         this.inventoryService = inventoryService;
+        this.streamingExportService = streamingExportService;
     }
 
-    public List<OrderTransaction> getAllOrders() {
-        return orderRepository.findAllWithCustomer();
+    // List views are selected straight into DTOs
+    public List<OrderTransactionDTO> getAllOrders() {
+        return orderRepository.findAllAsDTO();
     }
 
     public Optional<OrderTransaction> getOrderById(Long id) {
-        return orderRepository.findById(id);
+        return orderRepository.findByIdWithCustomer(id);
     }
 
     public Optional<OrderTransaction> getOrderByOrderId(String orderId) {
         return orderRepository.findByOrderIdWithCustomer(orderId);
     }
 
-    public List<OrderTransaction> getOrdersByCustomer(String customerId) {
-        return orderRepository.findByCustomerCustomerId(customerId);
+    public List<OrderTransactionDTO> getOrdersByCustomer(String customerId) {
+        return orderRepository.findByCustomerIdAsDTO(customerId);
     }
 
-    public List<OrderTransaction> getOrdersByStatus(OrderStatus status) {
-        return orderRepository.findByStatus(status);
+    public List<OrderTransactionDTO> getOrdersByStatus(OrderStatus status) {
+        return orderRepository.findByStatusAsDTO(status);
     }
 
-    public List<OrderTransaction> getOrdersInPeriod(LocalDateTime start, LocalDateTime end) {
-        return orderRepository.findOrdersInPeriod(start, end);
+    public List<OrderTransactionDTO> getOrdersInPeriod(LocalDateTime start, LocalDateTime end) {
+        return orderRepository.findInPeriodAsDTO(start, end);
+    }
+
+    /**
+     * Write every order placed in the period to the output as it is read
+     */
+    @Transactional(readOnly = true)
+    public long exportOrdersInPeriod(LocalDateTime start, LocalDateTime end, ExportFormat format,
+                                     OutputStream out) throws IOException {
+        try (Stream<OrderTransaction> orders = orderRepository.streamOrdersInPeriod(start, end)) {
+            return streamingExportService.export(orders, OrderTransactionDTO::new, format, out);
+        }
     }
 
     @Transactional
@@ -68,6 +94,13 @@ public class OrderService {
         order.setOrderDate(LocalDateTime.now());
         order.setStatus(OrderStatus.PENDING);
 
+        // The request only carries the customer's id
+        if (order.getCustomer() != null && order.getCustomer().getId() != null) {
+            Long customerId = order.getCustomer().getId();
+            order.setCustomer(customerRepository.findById(customerId)
+                    .orElseThrow(() -> new IllegalArgumentException("Customer not found: " + customerId)));
+        }
+
         // Process order items if they exist
         if (order.getItems() != null && !order.getItems().isEmpty()) {
             for (OrderItem item : order.getItems()) {
@@ -83,7 +116,7 @@ public class OrderService {
 
     @Transactional
     public OrderTransaction addItemToOrder(Long orderId, Long itemId, int quantity, BigDecimal unitPrice) {
-        Optional<OrderTransaction> orderOpt = orderRepository.findById(orderId);
+        Optional<OrderTransaction> orderOpt = orderRepository.findByIdWithCustomer(orderId);
         Optional<InventoryItem> itemOpt = inventoryRepository.findById(itemId);
 
         if (orderOpt.isPresent() && itemOpt.isPresent()) {
@@ -150,7 +183,7 @@ public class OrderService {
 
     @Transactional
     public OrderTransaction updateOrderStatus(Long id, OrderStatus status) {
-        Optional<OrderTransaction> orderOpt = orderRepository.findById(id);
+        Optional<OrderTransaction> orderOpt = orderRepository.findByIdWithCustomer(id);
 
         if (orderOpt.isPresent()) {
             OrderTransaction order = orderOpt.get();
@@ -180,7 +213,7 @@ public class OrderService {
 
     @Transactional
     public OrderTransaction updateTrackingInfo(Long id, String trackingNumber) {
-        Optional<OrderTransaction> orderOpt = orderRepository.findById(id);
+        Optional<OrderTransaction> orderOpt = orderRepository.findByIdWithCustomer(id);
 
         if (orderOpt.isPresent()) {
             OrderTransaction order = orderOpt.get();
@@ -205,7 +238,7 @@ public class OrderService {
 
     @Transactional
     public OrderTransaction cancelOrder(Long id) {
-        Optional<OrderTransaction> orderOpt = orderRepository.findById(id);
+        Optional<OrderTransaction> orderOpt = orderRepository.findByIdWithCustomer(id);
 
         if (orderOpt.isPresent()) {
             OrderTransaction order = orderOpt.get();
@@ -234,7 +267,7 @@ public class OrderService {
 
     @Transactional
     public OrderTransaction processOrderRefund(Long id) {
-        Optional<OrderTransaction> orderOpt = orderRepository.findById(id);
+        Optional<OrderTransaction> orderOpt = orderRepository.findByIdWithCustomer(id);
 
         if (orderOpt.isPresent()) {
             OrderTransaction order = orderOpt.get();
@@ -1,10 +1,14 @@
 package com.bin.pos.service;
 
+import com.bin.pos.config.CacheConfig;
 import com.bin.pos.dal.dto.ProductDTO;
 import com.bin.pos.dal.model.Product;
 import com.bin.pos.dal.model.ProductStatus;
 import com.bin.pos.dal.repository.ProductRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -17,27 +21,42 @@ import java.util.stream.Collectors;
 public class ProductService {
 
     private final ProductRepository productRepository;
+    private final CatalogSearchIndex catalogSearchIndex;
+    private final BarcodeLookupService barcodeLookupService;
 
     @Autowired
-    public ProductService(ProductRepository productRepository) {
+    public ProductService(
+            ProductRepository productRepository,
+            CatalogSearchIndex catalogSearchIndex,
+            BarcodeLookupService barcodeLookupService) {
         this.productRepository = productRepository;
+        this.catalogSearchIndex = catalogSearchIndex;
+        this.barcodeLookupService = barcodeLookupService;
     }
 
+    @Cacheable(cacheNames = CacheConfig.PRODUCT_LIST, key = "'all'")
     public List<ProductDTO> getAllProducts() {
         return productRepository.findAll().stream()
                 .map(ProductDTO::new)
                 .collect(Collectors.toList());
     }
 
+    @Cacheable(cacheNames = CacheConfig.PRODUCTS_BY_ID, key = "#id", unless = "#result == null")
     public Optional<ProductDTO> getProductById(Long id) {
         return productRepository.findById(id).map(ProductDTO::new);
     }
 
+    @Cacheable(cacheNames = CacheConfig.PRODUCTS_BY_PRODUCT_ID, key = "#productId", unless = "#result == null")
     public Optional<ProductDTO> getProductByProductId(String productId) {
         return productRepository.findByProductId(productId).map(ProductDTO::new);
     }
 
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.PRODUCT_LIST, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.PRODUCTS_BY_ID, key = "#result.id"),
+            @CacheEvict(cacheNames = CacheConfig.PRODUCTS_BY_PRODUCT_ID, key = "#result.productId")
+    })
     public ProductDTO createProduct(ProductDTO productDTO) {
         Product product = new Product();
         // Auto-generate productId if not provided or empty
@@ -50,28 +69,45 @@ public class ProductService {
         product.setDescription(productDTO.getDescription());
         product.setUnitPrice(productDTO.getUnitPrice());
         product.setCategory(productDTO.getCategory());
-        product.setBarcode(productDTO.getBarcode());
+        product.setBarcode(uniqueBarcode(productDTO.getBarcode(), null));
         product.setStatus(productDTO.getStatus() != null ?
                 ProductStatus.valueOf(productDTO.getStatus()) : ProductStatus.ACTIVE);
         return new ProductDTO(productRepository.save(product));
     }
 
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.PRODUCT_LIST, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.PRODUCTS_BY_ID, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.PRODUCTS_BY_PRODUCT_ID, key = "#result.productId", condition = "#result != null"),
+            // Inventory items embed their product
+            @CacheEvict(cacheNames = CacheConfig.INVENTORY_ITEMS, allEntries = true)
+    })
     public ProductDTO updateProduct(Long id, ProductDTO productDTO) {
         return productRepository.findById(id).map(existingProduct -> {
             existingProduct.setName(productDTO.getName());
             existingProduct.setDescription(productDTO.getDescription());
             existingProduct.setUnitPrice(productDTO.getUnitPrice());
             existingProduct.setCategory(productDTO.getCategory());
-            existingProduct.setBarcode(productDTO.getBarcode());
+            String previousBarcode = existingProduct.getBarcode();
+            existingProduct.setBarcode(uniqueBarcode(productDTO.getBarcode(), id));
             existingProduct.setStatus(productDTO.getStatus() != null ?
                     ProductStatus.valueOf(productDTO.getStatus()) : existingProduct.getStatus());
             // productId remains unchanged during update
-            return new ProductDTO(productRepository.save(existingProduct));
+            Product saved = productRepository.save(existingProduct);
+            catalogSearchIndex.productSaved(saved);
+            barcodeLookupService.productChanged(previousBarcode, saved.getBarcode());
+            return new ProductDTO(saved);
         }).orElse(null);
     }
 
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.PRODUCT_LIST, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.PRODUCTS_BY_ID, key = "#result.id", condition = "#result != null"),
+            @CacheEvict(cacheNames = CacheConfig.PRODUCTS_BY_PRODUCT_ID, key = "#productId"),
+            @CacheEvict(cacheNames = CacheConfig.INVENTORY_ITEMS, allEntries = true)
+    })
     public ProductDTO updateProductByProductId(String productId, ProductDTO productDTO) {
         return productRepository.findByProductId(productId).map(existingProduct -> {
             return updateProduct(existingProduct.getId(), productDTO);
@@ -79,24 +115,53 @@ public class ProductService {
     }
 
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.PRODUCT_LIST, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.PRODUCTS_BY_ID, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.PRODUCTS_BY_PRODUCT_ID, allEntries = true)
+    })
     public boolean deleteProduct(Long id) {
-        if (productRepository.existsById(id)) {
-            productRepository.deleteById(id);
+        Optional<Product> productOpt = productRepository.findById(id);
+        if (productOpt.isPresent()) {
+            productRepository.delete(productOpt.get());
+            catalogSearchIndex.productRemoved(id);
+            barcodeLookupService.productChanged(productOpt.get().getBarcode());
             return true;
         }
         return false;
     }
 
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.PRODUCT_LIST, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.PRODUCTS_BY_ID, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.PRODUCTS_BY_PRODUCT_ID, key = "#productId")
+    })
     public boolean deleteProductByProductId(String productId) {
         Optional<Product> productOpt = productRepository.findByProductId(productId);
         if (productOpt.isPresent()) {
             productRepository.delete(productOpt.get());
+            catalogSearchIndex.productRemoved(productOpt.get().getId());
+            barcodeLookupService.productChanged(productOpt.get().getBarcode());
             return true;
         }
         return false;
     }
 
+    // Blank barcodes are stored as null so they don't collide with each other
+    private String uniqueBarcode(String barcode, Long productId) {
+        if (barcode == null || barcode.trim().isEmpty()) {
+            return null;
+        }
+        String trimmed = barcode.trim();
+        productRepository.findByBarcode(trimmed)
+                .filter(other -> !other.getId().equals(productId))
+                .ifPresent(other -> {
+                    throw new IllegalStateException("Barcode " + trimmed + " is already used by product " + other.getProductId());
+                });
+        return trimmed;
+    }
+
     private String generateUniqueProductId() {
         String productId;
         do {
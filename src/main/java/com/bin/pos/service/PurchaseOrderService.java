@@ -0,0 +1,301 @@
+package com.bin.pos.service;
+
+import com.bin.pos.dal.dto.PurchaseOrderDTO;
+import com.bin.pos.dal.dto.PurchaseOrderPriceRequest;
+import com.bin.pos.dal.dto.PurchaseOrderRequest;
+import com.bin.pos.dal.dto.PurchaseReceiptRequest;
+import com.bin.pos.dal.model.InventoryItem;
+import com.bin.pos.dal.model.PurchaseOrder;
+import com.bin.pos.dal.model.PurchaseOrderItem;
+import com.bin.pos.dal.model.PurchaseOrderStatus;
+import com.bin.pos.dal.model.Supplier;
+import com.bin.pos.dal.repository.InventoryRepository;
+import com.bin.pos.dal.repository.PurchaseOrderRepository;
+import com.bin.pos.dal.repository.SupplierRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Purchase orders from draft to delivery. A delivery is received in one transaction:
+ * every line is checked against what is still outstanding, then the stock of all
+ * items is raised in one batched update and their PURCHASE movements are recorded.
+ * Drafted lines of items never bought before have no unit cost; they are priced
+ * while the order is reviewed, and it cannot be approved before.
+ */
+@Service
+public class PurchaseOrderService {
+
+    // Moves allowed through updateStatus; the received states are only reached by receiving
+    private static final Map<PurchaseOrderStatus, Set<PurchaseOrderStatus>> TRANSITIONS = new EnumMap<>(PurchaseOrderStatus.class);
+
+    static {
+        TRANSITIONS.put(PurchaseOrderStatus.DRAFT, EnumSet.of(PurchaseOrderStatus.PENDING, PurchaseOrderStatus.APPROVED, PurchaseOrderStatus.CANCELLED));
+        TRANSITIONS.put(PurchaseOrderStatus.PENDING, EnumSet.of(PurchaseOrderStatus.APPROVED, PurchaseOrderStatus.CANCELLED));
+        TRANSITIONS.put(PurchaseOrderStatus.APPROVED, EnumSet.of(PurchaseOrderStatus.ORDERED, PurchaseOrderStatus.CANCELLED));
+        TRANSITIONS.put(PurchaseOrderStatus.ORDERED, EnumSet.of(PurchaseOrderStatus.CANCELLED));
+    }
+
+    private static final String UPDATE_RECEIVED_SQL =
+            "UPDATE purchase_order_items SET received_quantity = ? WHERE id = ?";
+
+    private static final String UPDATE_UNIT_COST_SQL =
+            "UPDATE purchase_order_items SET unit_cost = ? WHERE id = ?";
+
+    private static final Set<PurchaseOrderStatus> PRICEABLE = EnumSet.of(
+            PurchaseOrderStatus.DRAFT, PurchaseOrderStatus.PENDING);
+
+    // Moving an order here commits to its costs, so every line must be priced
+    private static final Set<PurchaseOrderStatus> NEEDS_PRICES = EnumSet.of(
+            PurchaseOrderStatus.APPROVED, PurchaseOrderStatus.ORDERED);
+
+    private static final Set<PurchaseOrderStatus> RECEIVABLE = EnumSet.of(
+            PurchaseOrderStatus.APPROVED, PurchaseOrderStatus.ORDERED, PurchaseOrderStatus.PARTIALLY_RECEIVED);
+
+    private final PurchaseOrderRepository purchaseOrderRepository;
+    private final SupplierRepository supplierRepository;
+    private final InventoryRepository inventoryRepository;
+    private final StockMutationService stockMutationService;
+    private final StockReservationLedger reservationLedger;
+    private final InventoryMovementService inventoryMovementService;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public PurchaseOrderService(
+            PurchaseOrderRepository purchaseOrderRepository,
+            SupplierRepository supplierRepository,
+            InventoryRepository inventoryRepository,
+            StockMutationService stockMutationService,
+            StockReservationLedger reservationLedger,
+            InventoryMovementService inventoryMovementService,
+            JdbcTemplate jdbcTemplate) {
+        this.purchaseOrderRepository = purchaseOrderRepository;
+        this.supplierRepository = supplierRepository;
+        this.inventoryRepository = inventoryRepository;
+        this.stockMutationService = stockMutationService;
+        this.reservationLedger = reservationLedger;
+        this.inventoryMovementService = inventoryMovementService;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Transactional(readOnly = true)
+    public List<PurchaseOrderDTO> getPurchaseOrders(PurchaseOrderStatus status) {
+        List<PurchaseOrder> orders = status != null
+                ? purchaseOrderRepository.findByStatusWithSupplier(status)
+                : purchaseOrderRepository.findAllWithSupplier();
+        return orders.stream().map(order -> new PurchaseOrderDTO(order, false)).toList();
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<PurchaseOrderDTO> getPurchaseOrder(String poId) {
+        return purchaseOrderRepository.findByPoIdWithLines(poId).map(order -> new PurchaseOrderDTO(order, true));
+    }
+
+    @Transactional
+    public PurchaseOrderDTO createPurchaseOrder(PurchaseOrderRequest request) {
+        if (request.getItems() == null || request.getItems().isEmpty()) {
+            throw new IllegalArgumentException("A purchase order needs at least one line");
+        }
+        Supplier supplier = supplierRepository.findBySupplierId(request.getSupplierId())
+                .orElseThrow(() -> new IllegalArgumentException("Supplier not found: " + request.getSupplierId()));
+
+        List<String> itemIds = request.getItems().stream().map(PurchaseOrderRequest.Line::getItemId).toList();
+        Map<String, InventoryItem> items = new HashMap<>();
+        inventoryRepository.findByItemIdIn(itemIds).forEach(item -> items.put(item.getItemId(), item));
+
+        PurchaseOrder order = new PurchaseOrder();
+        order.setPoId("PO-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase());
+        order.setSupplier(supplier);
+        order.setStatus(PurchaseOrderStatus.DRAFT);
+        order.setOrderDate(LocalDateTime.now());
+        order.setExpectedDeliveryDate(request.getExpectedDeliveryDate());
+        order.setReferenceNumber(request.getReferenceNumber());
+        order.setNotes(request.getNotes());
+
+        BigDecimal total = BigDecimal.ZERO;
+        for (PurchaseOrderRequest.Line requested : request.getItems()) {
+            InventoryItem item = items.get(requested.getItemId());
+            if (item == null) {
+                throw new IllegalArgumentException("Inventory item not found: " + requested.getItemId());
+            }
+            if (requested.getQuantity() <= 0) {
+                throw new IllegalArgumentException("Quantity of " + requested.getItemId() + " must be positive");
+            }
+            BigDecimal unitCost = requested.getUnitCost() != null ? requested.getUnitCost() : BigDecimal.ZERO;
+            if (unitCost.signum() < 0) {
+                throw new IllegalArgumentException("Unit cost of " + requested.getItemId() + " cannot be negative");
+            }
+
+            PurchaseOrderItem line = new PurchaseOrderItem();
+            line.setPurchaseOrder(order);
+            line.setItem(item);
+            line.setQuantity(requested.getQuantity());
+            line.setUnitCost(unitCost);
+            line.setNotes(requested.getNotes());
+            order.getItems().add(line);
+            total = total.add(line.getSubtotal());
+        }
+        order.setTotalAmount(total);
+
+        return new PurchaseOrderDTO(purchaseOrderRepository.save(order), true);
+    }
+
+    @Transactional
+    public Optional<PurchaseOrderDTO> updateStatus(String poId, PurchaseOrderStatus status) {
+        Optional<PurchaseOrder> orderOpt = purchaseOrderRepository.findByPoIdForUpdate(poId);
+        if (orderOpt.isEmpty()) {
+            return Optional.empty();
+        }
+
+        PurchaseOrder order = orderOpt.get();
+        if (!TRANSITIONS.getOrDefault(order.getStatus(), Set.of()).contains(status)) {
+            throw new IllegalStateException("Cannot move a " + order.getStatus() + " purchase order to " + status);
+        }
+        if (NEEDS_PRICES.contains(status)) {
+            long unpriced = purchaseOrderRepository.countUnpricedLines(order.getId());
+            if (unpriced > 0) {
+                throw new IllegalStateException("Purchase order " + poId + " has " + unpriced + " unpriced line(s)");
+            }
+        }
+        order.setStatus(status);
+        return getPurchaseOrder(poId);
+    }
+
+    /**
+     * Set the unit costs of an order under review and recompute its total
+     */
+    @Transactional
+    public Optional<PurchaseOrderDTO> price(String poId, PurchaseOrderPriceRequest request) {
+        if (request.getItems() == null || request.getItems().isEmpty()) {
+            throw new IllegalArgumentException("A price update needs at least one line");
+        }
+        Optional<PurchaseOrder> orderOpt = purchaseOrderRepository.findByPoIdForUpdate(poId);
+        if (orderOpt.isEmpty()) {
+            return Optional.empty();
+        }
+        PurchaseOrder order = orderOpt.get();
+        if (!PRICEABLE.contains(order.getStatus())) {
+            throw new IllegalStateException("Cannot price a " + order.getStatus() + " purchase order");
+        }
+
+        Map<String, BigDecimal> costs = new HashMap<>();
+        for (PurchaseOrderPriceRequest.Line line : request.getItems()) {
+            if (line.getUnitCost() == null || line.getUnitCost().signum() < 0) {
+                throw new IllegalArgumentException("Unit cost of " + line.getItemId() + " must be zero or more");
+            }
+            costs.put(line.getItemId(), line.getUnitCost());
+        }
+
+        // An item ordered on several lines gets the cost on each of them
+        List<PurchaseOrderItem> orderLines = purchaseOrderRepository.findLinesForReceipt(order.getId());
+        Set<String> unmatched = new HashSet<>(costs.keySet());
+        List<Object[]> updates = new ArrayList<>();
+        BigDecimal total = BigDecimal.ZERO;
+        for (PurchaseOrderItem line : orderLines) {
+            BigDecimal cost = costs.get(line.getItem().getItemId());
+            if (cost != null) {
+                unmatched.remove(line.getItem().getItemId());
+                line.setUnitCost(cost);
+                updates.add(new Object[]{cost, line.getId()});
+            }
+            if (line.getUnitCost() != null) {
+                total = total.add(line.getSubtotal());
+            }
+        }
+        if (!unmatched.isEmpty()) {
+            throw new IllegalArgumentException("Items " + unmatched + " are not on purchase order " + poId);
+        }
+
+        jdbcTemplate.batchUpdate(UPDATE_UNIT_COST_SQL, updates);
+        order.setTotalAmount(total);
+        return Optional.of(new PurchaseOrderDTO(order, orderLines));
+    }
+
+    /**
+     * Receive a delivery against an order. Either the whole delivery is applied, lines,
+     * stock and movements, or none of it is.
+     */
+    @Transactional
+    public Optional<PurchaseOrderDTO> receive(String poId, PurchaseReceiptRequest request) {
+        if (request.getItems() == null || request.getItems().isEmpty()) {
+            throw new IllegalArgumentException("A receipt needs at least one line");
+        }
+        // Locked, so two receipts of the same order cannot both pass the checks below
+        Optional<PurchaseOrder> orderOpt = purchaseOrderRepository.findByPoIdForUpdate(poId);
+        if (orderOpt.isEmpty()) {
+            return Optional.empty();
+        }
+        PurchaseOrder order = orderOpt.get();
+        if (!RECEIVABLE.contains(order.getStatus())) {
+            throw new IllegalStateException("Cannot receive a " + order.getStatus() + " purchase order");
+        }
+
+        Map<String, Integer> delivered = new LinkedHashMap<>();
+        for (PurchaseReceiptRequest.Line line : request.getItems()) {
+            if (line.getQuantity() <= 0) {
+                throw new IllegalArgumentException("Received quantity of " + line.getItemId() + " must be positive");
+            }
+            delivered.merge(line.getItemId(), line.getQuantity(), Integer::sum);
+        }
+
+        List<PurchaseOrderItem> orderLines = purchaseOrderRepository.findLinesForReceipt(order.getId());
+        Map<String, List<PurchaseOrderItem>> linesByItem = new HashMap<>();
+        for (PurchaseOrderItem line : orderLines) {
+            linesByItem.computeIfAbsent(line.getItem().getItemId(), id -> new ArrayList<>()).add(line);
+        }
+
+        Map<Long, Integer> received = new HashMap<>();
+        List<Object[]> updates = new ArrayList<>();
+        delivered.forEach((itemId, quantity) -> {
+            List<PurchaseOrderItem> lines = linesByItem.get(itemId);
+            if (lines == null) {
+                throw new IllegalArgumentException("Item " + itemId + " is not on purchase order " + poId);
+            }
+            int outstanding = lines.stream().mapToInt(line -> line.getQuantity() - line.getReceivedQuantity()).sum();
+            if (quantity > outstanding) {
+                throw new IllegalArgumentException("Receiving " + quantity + " of " + itemId
+                        + " exceeds the " + outstanding + " outstanding");
+            }
+
+            // An item ordered on several lines fills them in order
+            int remaining = quantity;
+            for (PurchaseOrderItem line : lines) {
+                int take = Math.min(remaining, line.getQuantity() - line.getReceivedQuantity());
+                if (take > 0) {
+                    line.setReceivedQuantity(line.getReceivedQuantity() + take);
+                    updates.add(new Object[]{line.getReceivedQuantity(), line.getId()});
+                    remaining -= take;
+                }
+            }
+            received.put(lines.get(0).getItem().getId(), quantity);
+        });
+
+        jdbcTemplate.batchUpdate(UPDATE_RECEIVED_SQL, updates);
+        if (reservationLedger.isEnabled()) {
+            reservationLedger.restock(received);
+        } else {
+            stockMutationService.restoreStock(received);
+        }
+        inventoryMovementService.recordPurchase(received, poId);
+
+        boolean complete = orderLines.stream().allMatch(line -> line.getReceivedQuantity() >= line.getQuantity());
+        order.setStatus(complete ? PurchaseOrderStatus.RECEIVED : PurchaseOrderStatus.PARTIALLY_RECEIVED);
+        order.setDeliveryDate(LocalDateTime.now());
+        return Optional.of(new PurchaseOrderDTO(order, orderLines));
+    }
+}
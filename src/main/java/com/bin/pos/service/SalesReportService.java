@@ -0,0 +1,176 @@
+package com.bin.pos.service;
+
+import com.bin.pos.dal.dto.SalesReport;
+import com.bin.pos.dal.dto.SalesReportRow;
+import com.bin.pos.dal.model.TransactionStatus;
+import com.bin.pos.dal.repository.SalesReportRepository;
+import com.bin.pos.dal.repository.SalesReportRepository.Totals;
+import com.bin.pos.dal.repository.SalesReportRepository.Units;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Sales reports over completed transactions, aggregated in the database
+ */
+@Service
+@Transactional(readOnly = true)
+public class SalesReportService {
+
+    private static final TransactionStatus REPORTED_STATUS = TransactionStatus.COMPLETED;
+    private static final String UNASSIGNED = "UNASSIGNED";
+
+    private final SalesReportRepository salesReportRepository;
+
+    @Autowired
+    public SalesReportService(SalesReportRepository salesReportRepository) {
+        this.salesReportRepository = salesReportRepository;
+    }
+
+    public SalesReport getSummary(LocalDateTime start, LocalDateTime end) {
+        validateRange(start, end);
+        SalesReportRow total = toRow(salesReportRepository.totals(REPORTED_STATUS, start, end),
+                unitsOf(salesReportRepository.units(REPORTED_STATUS, start, end)));
+        return new SalesReport("total", start, end, withShare(total, total.getRevenue()), new ArrayList<>());
+    }
+
+    public SalesReport getByDay(LocalDateTime start, LocalDateTime end) {
+        validateRange(start, end);
+        return report("day", start, end,
+                salesReportRepository.totalsByDay(REPORTED_STATUS, start, end),
+                salesReportRepository.unitsByDay(REPORTED_STATUS, start, end),
+                Comparator.comparing(SalesReportRow::getKey));
+    }
+
+    public SalesReport getByHour(LocalDateTime start, LocalDateTime end) {
+        validateRange(start, end);
+        return report("hour", start, end,
+                salesReportRepository.totalsByHour(REPORTED_STATUS, start, end),
+                salesReportRepository.unitsByHour(REPORTED_STATUS, start, end),
+                Comparator.comparing(row -> Integer.parseInt(row.getKey())));
+    }
+
+    public SalesReport getByCashier(LocalDateTime start, LocalDateTime end) {
+        validateRange(start, end);
+        return report("cashier", start, end,
+                salesReportRepository.totalsByCashier(REPORTED_STATUS, start, end),
+                salesReportRepository.unitsByCashier(REPORTED_STATUS, start, end),
+                Comparator.comparing(SalesReportRow::getRevenue).reversed());
+    }
+
+    public SalesReport getByPaymentMethod(LocalDateTime start, LocalDateTime end) {
+        validateRange(start, end);
+        return report("paymentMethod", start, end,
+                salesReportRepository.totalsByPaymentMethod(REPORTED_STATUS, start, end),
+                salesReportRepository.unitsByPaymentMethod(REPORTED_STATUS, start, end),
+                Comparator.comparing(SalesReportRow::getRevenue).reversed());
+    }
+
+    /**
+     * Product lines by their product's category, and service lines in one SERVICES row, so
+     * the revenue adds up to the summary's. Each sale's tax is shared out over its lines by
+     * net amount; rows are rounded separately, so the total can be a cent off the summary.
+     * Units include the service quantities, which the summary does not count.
+     */
+    public SalesReport getByCategory(LocalDateTime start, LocalDateTime end) {
+        validateRange(start, end);
+        List<SalesReportRow> rows = new ArrayList<>();
+        for (SalesReportRepository.CategoryTotals totals : salesReportRepository.totalsByCategory(REPORTED_STATUS, start, end)) {
+            rows.add(toRow(totals, totals.getUnits() != null ? totals.getUnits() : 0));
+        }
+        SalesReportRepository.CategoryTotals services = salesReportRepository.serviceTotals(REPORTED_STATUS, start, end);
+        if (services != null && services.getTransactions() != null && services.getTransactions() > 0) {
+            rows.add(toRow(services, services.getUnits() != null ? services.getUnits() : 0));
+        }
+        rows.sort(Comparator.comparing(SalesReportRow::getRevenue).reversed());
+
+        // A sale can span several categories, so its baskets are counted once from the headers
+        Totals baskets = salesReportRepository.totals(REPORTED_STATUS, start, end);
+        return finish("category", start, end, rows, baskets.getTransactions());
+    }
+
+    private SalesReport report(String groupBy, LocalDateTime start, LocalDateTime end,
+                               List<Totals> totals, List<Units> units, Comparator<SalesReportRow> order) {
+        Map<String, Long> unitsByKey = new HashMap<>();
+        units.forEach(row -> unitsByKey.put(keyOf(row.getBucket()), unitsOf(row)));
+
+        List<SalesReportRow> rows = new ArrayList<>(totals.size());
+        for (Totals row : totals) {
+            rows.add(toRow(row, unitsByKey.getOrDefault(keyOf(row.getBucket()), 0L)));
+        }
+        rows.sort(order);
+        return finish(groupBy, start, end, rows, null);
+    }
+
+    private SalesReport finish(String groupBy, LocalDateTime start, LocalDateTime end, List<SalesReportRow> rows,
+                               Long transactions) {
+        SalesReportRow total = new SalesReportRow();
+        total.setKey("TOTAL");
+        for (SalesReportRow row : rows) {
+            total.setUnits(total.getUnits() + row.getUnits());
+            total.setRevenue(total.getRevenue().add(row.getRevenue()));
+            total.setTaxAmount(total.getTaxAmount().add(row.getTaxAmount()));
+        }
+        total.setTransactions(transactions != null
+                ? transactions
+                : rows.stream().mapToLong(SalesReportRow::getTransactions).sum());
+        total.setAverageBasket(average(total.getRevenue(), total.getTransactions()));
+
+        rows.forEach(row -> withShare(row, total.getRevenue()));
+        withShare(total, total.getRevenue());
+        return new SalesReport(groupBy, start, end, total, rows);
+    }
+
+    private SalesReportRow toRow(Totals totals, long units) {
+        SalesReportRow row = new SalesReportRow();
+        row.setKey(keyOf(totals.getBucket()));
+        row.setTransactions(totals.getTransactions() != null ? totals.getTransactions() : 0);
+        row.setUnits(units);
+        row.setRevenue(money(totals.getRevenue()));
+        row.setTaxAmount(money(totals.getTaxAmount()));
+        row.setAverageBasket(average(row.getRevenue(), row.getTransactions()));
+        return row;
+    }
+
+    private static SalesReportRow withShare(SalesReportRow row, BigDecimal totalRevenue) {
+        if (totalRevenue.signum() != 0) {
+            row.setRevenueShare(row.getRevenue().multiply(BigDecimal.valueOf(100))
+                    .divide(totalRevenue, 2, RoundingMode.HALF_UP));
+        }
+        return row;
+    }
+
+    private static long unitsOf(Units units) {
+        return units != null && units.getUnits() != null ? units.getUnits() : 0;
+    }
+
+    private static String keyOf(Object bucket) {
+        return bucket != null ? Objects.toString(bucket) : UNASSIGNED;
+    }
+
+    private static BigDecimal money(BigDecimal value) {
+        return value != null ? value.setScale(2, RoundingMode.HALF_UP) : BigDecimal.ZERO.setScale(2);
+    }
+
+    private static BigDecimal average(BigDecimal revenue, long transactions) {
+        return transactions > 0
+                ? revenue.divide(BigDecimal.valueOf(transactions), 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO.setScale(2);
+    }
+
+    private static void validateRange(LocalDateTime start, LocalDateTime end) {
+        if (start == null || end == null || !start.isBefore(end)) {
+            throw new IllegalArgumentException("Report start must be before end");
+        }
+    }
+}
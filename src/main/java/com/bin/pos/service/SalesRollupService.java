@@ -0,0 +1,443 @@
+package com.bin.pos.service;
+
+import com.bin.pos.dal.dto.RollupCheckResult;
+import com.bin.pos.dal.dto.RollupDiscrepancy;
+import com.bin.pos.dal.model.DailyItemRollup;
+import com.bin.pos.dal.model.DailySalesRollup;
+import com.bin.pos.dal.model.SalesTransaction;
+import com.bin.pos.dal.model.TransactionItem;
+import com.bin.pos.dal.model.TransactionStatus;
+import com.bin.pos.dal.repository.DailyItemRollupRepository;
+import com.bin.pos.dal.repository.DailySalesRollupRepository;
+import com.bin.pos.dal.repository.SalesReportRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Keeps the daily sales and per-item rollups in step with completed sales.
+ *
+ * Completions and returns are turned into signed deltas that are merged in
+ * memory once their transaction commits and written in one batch on a
+ * schedule, so checkouts never contend on the shared per-day rows. Any date
+ * range can be rebuilt from the source tables and checked against them; sales
+ * wait to commit while a rebuild runs.
+ */
+@Service
+public class SalesRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(SalesRollupService.class);
+
+    private static final String UPDATE_DAY_SQL =
+            "UPDATE daily_sales_rollups SET transactions = transactions + ?, units = units + ?, " +
+                    "subtotal = subtotal + ?, tax_amount = tax_amount + ?, revenue = revenue + ?, updated_at = ? " +
+                    "WHERE sales_date = ?";
+
+    private static final String INSERT_DAY_SQL =
+            "INSERT INTO daily_sales_rollups (transactions, units, subtotal, tax_amount, revenue, updated_at, sales_date) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_ITEM_SQL =
+            "UPDATE daily_item_rollups SET units = units + ?, net_sales = net_sales + ?, updated_at = ? " +
+                    "WHERE sales_date = ? AND inventory_item_id = ?";
+
+    private static final String INSERT_ITEM_SQL =
+            "INSERT INTO daily_item_rollups (units, net_sales, updated_at, sales_date, inventory_item_id) " +
+                    "VALUES (?, ?, ?, ?, ?)";
+
+    private static final TransactionStatus ROLLED_UP_STATUS = TransactionStatus.COMPLETED;
+
+    private final DailySalesRollupRepository dailySalesRollupRepository;
+    private final DailyItemRollupRepository dailyItemRollupRepository;
+    private final SalesReportRepository salesReportRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<LocalDate, DayDelta> pendingDays = new ConcurrentHashMap<>();
+    private final Map<DailyItemRollup.Key, ItemDelta> pendingItems = new ConcurrentHashMap<>();
+
+    // Serializes flushes with rebuilds of the same rows
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    // Sales hold the read side from just before their commit until their delta is merged, so a
+    // rebuild reads the source tables with every committed sale's delta either flushed or still to come
+    private final ReentrantReadWriteLock commitLock = new ReentrantReadWriteLock();
+
+    @Autowired
+    public SalesRollupService(
+            DailySalesRollupRepository dailySalesRollupRepository,
+            DailyItemRollupRepository dailyItemRollupRepository,
+            SalesReportRepository salesReportRepository,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager) {
+        this.dailySalesRollupRepository = dailySalesRollupRepository;
+        this.dailyItemRollupRepository = dailyItemRollupRepository;
+        this.salesReportRepository = salesReportRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Its own transaction: rebuild and the read-only verify flush from inside theirs
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Count a sale that has just been completed
+     */
+    public void recordSale(SalesTransaction transaction) {
+        record(transaction, 1);
+    }
+
+    /**
+     * Take a returned sale back out of its day
+     */
+    public void recordReturn(SalesTransaction transaction) {
+        record(transaction, -1);
+    }
+
+    @Transactional(readOnly = true)
+    public List<DailySalesRollup> getDailyRollups(LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        return dailySalesRollupRepository.findBySalesDateBetweenOrderBySalesDate(from, to);
+    }
+
+    @Transactional(readOnly = true)
+    public List<DailyItemRollupRepository.ItemTotals> getItemTotals(LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        return dailyItemRollupRepository.sumByItem(from, to);
+    }
+
+    /**
+     * Write all pending deltas in one transaction; on failure they are kept for the next run
+     */
+    @Scheduled(fixedDelayString = "${pos.reports.rollups.flush-interval-ms:5000}")
+    public void flush() {
+        writeLock.lock();
+        try {
+            Map<LocalDate, DayDelta> days = drain(pendingDays);
+            Map<DailyItemRollup.Key, ItemDelta> items = drain(pendingItems);
+            if (days.isEmpty() && items.isEmpty()) {
+                return;
+            }
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    writeDays(days);
+                    writeItems(items);
+                });
+            } catch (RuntimeException e) {
+                log.error("Rollup flush failed, retrying {} day(s) on the next run", days.size(), e);
+                days.forEach((day, delta) -> pendingDays.merge(day, delta, DayDelta::plus));
+                items.forEach((key, delta) -> pendingItems.merge(key, delta, ItemDelta::plus));
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * Replace the rollups of [from, to] with fresh aggregates of the source tables.
+     * Returns the number of days that had sales.
+     */
+    @Transactional
+    public int rebuild(LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        writeLock.lock();
+        commitLock.writeLock().lock();
+        try {
+            // Pending deltas would otherwise be added on top of the rebuilt rows
+            flush();
+
+            LocalDateTime start = from.atStartOfDay();
+            LocalDateTime end = to.plusDays(1).atStartOfDay();
+            jdbcTemplate.update("DELETE FROM daily_sales_rollups WHERE sales_date BETWEEN ? AND ?", from, to);
+            jdbcTemplate.update("DELETE FROM daily_item_rollups WHERE sales_date BETWEEN ? AND ?", from, to);
+
+            Map<LocalDate, DayDelta> days = sourceDays(start, end);
+            Map<DailyItemRollup.Key, ItemDelta> items = new HashMap<>();
+            salesReportRepository.totalsByDayAndItem(ROLLED_UP_STATUS, start, end).forEach(row -> items.put(
+                    new DailyItemRollup.Key(toDate(row.getBucket()), row.getInventoryItemId()),
+                    new ItemDelta(row.getUnits() != null ? row.getUnits() : 0, money(row.getNetSales()))));
+
+            insertDays(days);
+            insertItems(items);
+            log.info("Rebuilt sales rollups for {} to {}: {} day(s), {} item row(s)", from, to, days.size(), items.size());
+            return days.size();
+        } finally {
+            commitLock.writeLock().unlock();
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Compare each day's rollup with the source tables
+     */
+    @Transactional(readOnly = true)
+    public RollupCheckResult verify(LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        flush();
+
+        Map<LocalDate, DayDelta> expected = sourceDays(from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+        Map<LocalDate, DailySalesRollup> actual = new HashMap<>();
+        dailySalesRollupRepository.findBySalesDateBetweenOrderBySalesDate(from, to)
+                .forEach(rollup -> actual.put(rollup.getSalesDate(), rollup));
+
+        TreeMap<LocalDate, Boolean> allDays = new TreeMap<>();
+        expected.keySet().forEach(day -> allDays.put(day, true));
+        actual.keySet().forEach(day -> allDays.put(day, true));
+
+        List<RollupDiscrepancy> discrepancies = new ArrayList<>();
+        for (LocalDate day : allDays.keySet()) {
+            DayDelta source = expected.getOrDefault(day, DayDelta.ZERO);
+            DailySalesRollup rollup = actual.get(day);
+            long transactions = rollup != null ? rollup.getTransactions() : 0;
+            long units = rollup != null ? rollup.getUnits() : 0;
+            BigDecimal revenue = rollup != null ? money(rollup.getRevenue()) : money(null);
+
+            if (source.transactions != transactions || source.units != units
+                    || source.revenue.compareTo(revenue) != 0) {
+                discrepancies.add(new RollupDiscrepancy(day, source.transactions, transactions,
+                        source.units, units, source.revenue, revenue));
+            }
+        }
+
+        return new RollupCheckResult(from, to, allDays.size(), discrepancies.isEmpty(), discrepancies);
+    }
+
+    private void record(SalesTransaction transaction, int sign) {
+        if (transaction.getCreationTime() == null) {
+            return;
+        }
+
+        // Sales are bucketed by the day they were rung up, the same as the reports
+        LocalDate day = transaction.getCreationTime().toLocalDate();
+        long units = 0;
+        Map<DailyItemRollup.Key, ItemDelta> itemDeltas = new HashMap<>();
+        for (TransactionItem item : transaction.getItems()) {
+            units += item.getQuantity();
+            itemDeltas.merge(new DailyItemRollup.Key(day, item.getItem().getId()),
+                    new ItemDelta((long) sign * item.getQuantity(), signed(item.getSubtotal(), sign)),
+                    ItemDelta::plus);
+        }
+
+        DayDelta dayDelta = new DayDelta(sign, sign * units, signed(transaction.getSubtotal(), sign),
+                signed(transaction.getTaxAmount(), sign), signed(transaction.getTotal(), sign));
+
+        Runnable merge = () -> {
+            pendingDays.merge(day, dayDelta, DayDelta::plus);
+            itemDeltas.forEach((key, delta) -> pendingItems.merge(key, delta, ItemDelta::plus));
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            merge.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean locked;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                commitLock.readLock().lock();
+                locked = true;
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    if (status == STATUS_COMMITTED) {
+                        merge.run();
+                    }
+                } finally {
+                    if (locked) {
+                        commitLock.readLock().unlock();
+                    }
+                }
+            }
+        });
+    }
+
+    private Map<LocalDate, DayDelta> sourceDays(LocalDateTime start, LocalDateTime end) {
+        Map<LocalDate, Long> units = new HashMap<>();
+        salesReportRepository.unitsByDay(ROLLED_UP_STATUS, start, end).forEach(row ->
+                units.put(toDate(row.getBucket()), row.getUnits() != null ? row.getUnits() : 0));
+
+        Map<LocalDate, DayDelta> days = new HashMap<>();
+        salesReportRepository.totalsByDay(ROLLED_UP_STATUS, start, end).forEach(row -> {
+            LocalDate day = toDate(row.getBucket());
+            days.put(day, new DayDelta(row.getTransactions(), units.getOrDefault(day, 0L),
+                    money(row.getSubtotal()), money(row.getTaxAmount()), money(row.getRevenue())));
+        });
+        return days;
+    }
+
+    private void writeDays(Map<LocalDate, DayDelta> days) {
+        if (days.isEmpty()) {
+            return;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<LocalDate> keys = new ArrayList<>(days.keySet());
+        List<Object[]> updates = new ArrayList<>(keys.size());
+        keys.forEach(day -> updates.add(dayArgs(day, days.get(day), now)));
+
+        int[] counts = jdbcTemplate.batchUpdate(UPDATE_DAY_SQL, updates);
+        Map<LocalDate, DayDelta> missing = new HashMap<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                missing.put(keys.get(i), days.get(keys.get(i)));
+            }
+        }
+        insertDays(missing);
+    }
+
+    private void writeItems(Map<DailyItemRollup.Key, ItemDelta> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<DailyItemRollup.Key> keys = new ArrayList<>(items.keySet());
+        List<Object[]> updates = new ArrayList<>(keys.size());
+        keys.forEach(key -> updates.add(itemArgs(key, items.get(key), now)));
+
+        int[] counts = jdbcTemplate.batchUpdate(UPDATE_ITEM_SQL, updates);
+        Map<DailyItemRollup.Key, ItemDelta> missing = new HashMap<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                missing.put(keys.get(i), items.get(keys.get(i)));
+            }
+        }
+        insertItems(missing);
+    }
+
+    private void insertDays(Map<LocalDate, DayDelta> days) {
+        if (days.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(days.size());
+        days.forEach((day, delta) -> rows.add(dayArgs(day, delta, now)));
+        jdbcTemplate.batchUpdate(INSERT_DAY_SQL, rows);
+    }
+
+    private void insertItems(Map<DailyItemRollup.Key, ItemDelta> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(items.size());
+        items.forEach((key, delta) -> rows.add(itemArgs(key, delta, now)));
+        jdbcTemplate.batchUpdate(INSERT_ITEM_SQL, rows);
+    }
+
+    // Same parameter order for UPDATE and INSERT
+    private static Object[] dayArgs(LocalDate day, DayDelta delta, Timestamp now) {
+        return new Object[]{delta.transactions, delta.units, delta.subtotal, delta.taxAmount, delta.revenue,
+                now, java.sql.Date.valueOf(day)};
+    }
+
+    private static Object[] itemArgs(DailyItemRollup.Key key, ItemDelta delta, Timestamp now) {
+        return new Object[]{delta.units, delta.netSales, now, java.sql.Date.valueOf(key.getSalesDate()),
+                key.getInventoryItemId()};
+    }
+
+    private static <K, V> Map<K, V> drain(Map<K, V> pending) {
+        Map<K, V> drained = new HashMap<>();
+        for (K key : new ArrayList<>(pending.keySet())) {
+            V value = pending.remove(key);
+            if (value != null) {
+                drained.put(key, value);
+            }
+        }
+        return drained;
+    }
+
+    private static LocalDate toDate(Object bucket) {
+        if (bucket instanceof LocalDate date) {
+            return date;
+        }
+        if (bucket instanceof java.sql.Date date) {
+            return date.toLocalDate();
+        }
+        return LocalDate.parse(bucket.toString());
+    }
+
+    private static BigDecimal signed(BigDecimal value, int sign) {
+        BigDecimal amount = money(value);
+        return sign < 0 ? amount.negate() : amount;
+    }
+
+    private static BigDecimal money(BigDecimal value) {
+        return value != null ? value.setScale(2, RoundingMode.HALF_UP) : BigDecimal.ZERO.setScale(2);
+    }
+
+    private static void validateRange(LocalDate from, LocalDate to) {
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new IllegalArgumentException("Rollup range start must not be after its end");
+        }
+    }
+
+    private static final class DayDelta {
+        private static final DayDelta ZERO = new DayDelta(0, 0, money(null), money(null), money(null));
+
+        private final long transactions;
+        private final long units;
+        private final BigDecimal subtotal;
+        private final BigDecimal taxAmount;
+        private final BigDecimal revenue;
+
+        private DayDelta(long transactions, long units, BigDecimal subtotal, BigDecimal taxAmount, BigDecimal revenue) {
+            this.transactions = transactions;
+            this.units = units;
+            this.subtotal = subtotal;
+            this.taxAmount = taxAmount;
+            this.revenue = revenue;
+        }
+
+        private DayDelta plus(DayDelta other) {
+            return new DayDelta(transactions + other.transactions, units + other.units,
+                    subtotal.add(other.subtotal), taxAmount.add(other.taxAmount), revenue.add(other.revenue));
+        }
+    }
+
+    private static final class ItemDelta {
+        private final long units;
+        private final BigDecimal netSales;
+
+        private ItemDelta(long units, BigDecimal netSales) {
+            this.units = units;
+            this.netSales = netSales;
+        }
+
+        private ItemDelta plus(ItemDelta other) {
+            return new ItemDelta(units + other.units, netSales.add(other.netSales));
+        }
+    }
+}
@@ -1,28 +1,59 @@
 package com.bin.pos.service;
 
+import com.bin.pos.dal.dto.CheckoutRequest;
+import com.bin.pos.dal.dto.CursorPage;
 import com.bin.pos.dal.dto.DTOConverter;
+import com.bin.pos.dal.dto.ExportFormat;
 import com.bin.pos.dal.dto.TransactionDTO;
+import com.bin.pos.dal.dto.TransactionSummaryDTO;
 import com.bin.pos.dal.model.*;
+import com.bin.pos.dal.repository.CustomerRepository;
 import com.bin.pos.dal.repository.InventoryRepository;
 import com.bin.pos.dal.repository.PaymentRepository;
 import com.bin.pos.dal.repository.SalesRepository;
+import com.bin.pos.dal.repository.ServiceRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
+@Timed("pos.service")  // Every public method, tagged by class and method
 public class SalesService {
 
+    // History lists are paged so a request never holds more than one page in memory
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+
     private final SalesRepository salesRepository;
     private final InventoryRepository inventoryRepository;
     private final PaymentRepository paymentRepository;
-    private final InventoryService inventoryService;
+    private final CustomerRepository customerRepository;
+    private final ServiceRepository serviceRepository;
+    private final StockMutationService stockMutationService;
+    private final StockReservationLedger reservationLedger;
+    private final StreamingExportService streamingExportService;
+    private final SalesRollupService salesRollupService;
+    private final InventoryMovementService inventoryMovementService;
     private final DTOConverter dtoConverter;
 
     @Autowired
@@ -30,22 +61,35 @@ public class SalesService {
             SalesRepository salesRepository,
             InventoryRepository inventoryRepository,
             PaymentRepository paymentRepository,
-            InventoryService inventoryService,
+            CustomerRepository customerRepository,
+            ServiceRepository serviceRepository,
+            StockMutationService stockMutationService,
+            StockReservationLedger reservationLedger,
+            StreamingExportService streamingExportService,
+            SalesRollupService salesRollupService,
+            InventoryMovementService inventoryMovementService,
             DTOConverter dtoConverter) {
         this.salesRepository = salesRepository;
         this.inventoryRepository = inventoryRepository;
         this.paymentRepository = paymentRepository;
-        this.inventoryService = inventoryService;
+        this.customerRepository = customerRepository;
+        this.serviceRepository = serviceRepository;
+        this.stockMutationService = stockMutationService;
+        this.reservationLedger = reservationLedger;
+        this.streamingExportService = streamingExportService;
+        this.salesRollupService = salesRollupService;
+        this.inventoryMovementService = inventoryMovementService;
         this.dtoConverter = dtoConverter;
     }
 
     /**
-     * Get all transactions as DTOs
+     * Get a page of transactions, newest first
      */
     @Transactional(readOnly = true)
-    public List<TransactionDTO> getAllTransactionsAsDTO() {
-        List<SalesTransaction> transactions = salesRepository.findAllWithBasicDetails();
-        return dtoConverter.convertToDTO(transactions);
+    public CursorPage<TransactionSummaryDTO> getTransactionsPage(String cursor, Integer size) {
+        Cursor after = Cursor.decode(cursor);
+        int pageSize = pageSize(size);
+        return toPage(salesRepository.findSummaryPage(after.time, after.id, PageRequest.of(0, pageSize + 1)), pageSize);
     }
 
     /**
@@ -67,30 +111,112 @@ public class SalesService {
     }
 
     /**
-     * Get all transactions by customer as DTOs
+     * Get a page of a customer's transactions, newest first
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<TransactionSummaryDTO> getTransactionsPageByCustomer(String customerId, String cursor, Integer size) {
+        Cursor after = Cursor.decode(cursor);
+        int pageSize = pageSize(size);
+        return toPage(salesRepository.findSummaryPageByCustomer(
+                customerId, after.time, after.id, PageRequest.of(0, pageSize + 1)), pageSize);
+    }
+
+    /**
+     * Get a page of transactions with the given status, newest first
      */
     @Transactional(readOnly = true)
-    public List<TransactionDTO> getTransactionsByCustomerAsDTO(String customerId) {
-        List<SalesTransaction> transactions = salesRepository.findByCustomerCustomerId(customerId);
-        return dtoConverter.convertToDTO(transactions);
+    public CursorPage<TransactionSummaryDTO> getTransactionsPageByStatus(TransactionStatus status, String cursor, Integer size) {
+        Cursor after = Cursor.decode(cursor);
+        int pageSize = pageSize(size);
+        return toPage(salesRepository.findSummaryPageByStatus(
+                status, after.time, after.id, PageRequest.of(0, pageSize + 1)), pageSize);
     }
 
     /**
-     * Get all transactions by status as DTOs
+     * Get a page of transactions created in the period, newest first
      */
     @Transactional(readOnly = true)
-    public List<TransactionDTO> getTransactionsByStatusAsDTO(TransactionStatus status) {
-        List<SalesTransaction> transactions = salesRepository.findByStatus(status);
-        return dtoConverter.convertToDTO(transactions);
+    public CursorPage<TransactionSummaryDTO> getTransactionsPageInPeriod(LocalDateTime start, LocalDateTime end,
+                                                                        String cursor, Integer size) {
+        Cursor after = Cursor.decode(cursor);
+        int pageSize = pageSize(size);
+        return toPage(salesRepository.findSummaryPageInPeriod(
+                start, end, after.time, after.id, PageRequest.of(0, pageSize + 1)), pageSize);
     }
 
     /**
-     * Get all transactions in period as DTOs
+     * Write every transaction created in the period to the output as it is read
      */
     @Transactional(readOnly = true)
-    public List<TransactionDTO> getTransactionsInPeriodAsDTO(LocalDateTime start, LocalDateTime end) {
-        List<SalesTransaction> transactions = salesRepository.findTransactionsInPeriod(start, end);
-        return dtoConverter.convertToDTO(transactions);
+    public long exportTransactionsInPeriod(LocalDateTime start, LocalDateTime end, ExportFormat format,
+                                           OutputStream out) throws IOException {
+        try (Stream<TransactionSummaryDTO> rows = salesRepository.streamSummariesInPeriod(start, end)) {
+            return streamingExportService.export(rows, Function.identity(), format, out);
+        }
+    }
+
+    // The signed-in user ringing up the sale, for per-cashier reporting
+    private String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : null;
+    }
+
+    private int pageSize(Integer size) {
+        if (size == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return size;
+    }
+
+    // One row beyond the page is fetched to tell whether another page follows
+    private CursorPage<TransactionSummaryDTO> toPage(List<TransactionSummaryDTO> rows, int pageSize) {
+        boolean hasMore = rows.size() > pageSize;
+        List<TransactionSummaryDTO> content = hasMore ? new ArrayList<>(rows.subList(0, pageSize)) : rows;
+
+        String nextCursor = null;
+        if (hasMore) {
+            TransactionSummaryDTO last = content.get(content.size() - 1);
+            nextCursor = new Cursor(last.getCreationTime(), last.getId()).encode();
+        }
+        return new CursorPage<>(content, content.size(), hasMore, nextCursor);
+    }
+
+    /**
+     * Position in the (creationTime, id) ordering, sent to clients as an opaque token
+     */
+    private static final class Cursor {
+        // Sorts after every real row, so the first page starts at the newest transaction
+        private static final Cursor START = new Cursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+
+        private final LocalDateTime time;
+        private final Long id;
+
+        private Cursor(LocalDateTime time, Long id) {
+            this.time = time;
+            this.id = id;
+        }
+
+        private String encode() {
+            String raw = time + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private static Cursor decode(String cursor) {
+            if (cursor == null || cursor.isEmpty()) {
+                return START;
+            }
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.lastIndexOf('|');
+                return new Cursor(LocalDateTime.parse(raw.substring(0, separator)),
+                        Long.parseLong(raw.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid page cursor");
+            }
+        }
     }
 
     // Original methods for entity operations
@@ -133,6 +259,7 @@ public class SalesService {
         // Set initial transaction values
         transaction.setCreationTime(LocalDateTime.now());
         transaction.setStatus(TransactionStatus.DRAFT);
+        transaction.setCashierUsername(currentUsername());
 
         // Set default payment method if not provided
         if (transaction.getPaymentMethod() == null) {
@@ -173,6 +300,128 @@ public class SalesService {
         return salesRepository.save(savedTransaction);
     }
 
+    /**
+     * Price, validate, persist and complete a whole basket in one transaction.
+     * Items and services are resolved with one query each and stock is taken in
+     * a single batch, so the cost does not grow with round trips per line.
+     */
+    @Transactional
+    public TransactionDTO checkout(CheckoutRequest request) {
+        if (request.getCustomerId() == null || request.getCustomerId().isEmpty()) {
+            throw new IllegalArgumentException("Customer is required for transactions. Customer cannot be null.");
+        }
+        if (request.getItems().isEmpty() && request.getServiceItems().isEmpty()) {
+            throw new IllegalArgumentException("Basket must contain at least one item or service");
+        }
+        if (request.getPayments().isEmpty()) {
+            throw new IllegalArgumentException("At least one payment is required");
+        }
+
+        Customer customer = customerRepository.findByCustomerId(request.getCustomerId())
+                .orElseThrow(() -> new IllegalArgumentException("Customer not found: " + request.getCustomerId()));
+
+        Map<String, InventoryItem> inventory = inventoryRepository.findByItemIdIn(
+                        request.getItems().stream().map(CheckoutRequest.ItemLine::getItemId).collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(InventoryItem::getItemId, Function.identity(), (a, b) -> a));
+        Map<String, ServiceOffering> services = request.getServiceItems().isEmpty() ? Map.of() :
+                serviceRepository.findByServiceIdIn(
+                                request.getServiceItems().stream().map(CheckoutRequest.ServiceLine::getServiceId).collect(Collectors.toSet()))
+                        .stream()
+                        .collect(Collectors.toMap(ServiceOffering::getServiceId, Function.identity(), (a, b) -> a));
+
+        SalesTransaction transaction = new SalesTransaction();
+        transaction.setTransactionId("TRX-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase());
+        transaction.setCustomer(customer);
+        transaction.setCreationTime(LocalDateTime.now());
+        transaction.setCashierUsername(currentUsername());
+        transaction.setTaxRate(request.getTaxRate() != null ? request.getTaxRate() : BigDecimal.ZERO);
+        transaction.setNotes(request.getNotes());
+
+        for (CheckoutRequest.ItemLine line : request.getItems()) {
+            InventoryItem item = inventory.get(line.getItemId());
+            if (item == null) {
+                throw new IllegalArgumentException("Item not found: " + line.getItemId());
+            }
+            if (line.getQuantity() < 1) {
+                throw new IllegalArgumentException("Quantity must be at least 1 for item " + line.getItemId());
+            }
+
+            TransactionItem transactionItem = new TransactionItem();
+            transactionItem.setSalesTransaction(transaction);
+            transactionItem.setItem(item);
+            transactionItem.setQuantity(line.getQuantity());
+            transactionItem.setUnitPrice(line.getUnitPrice() != null ? line.getUnitPrice() : item.getPrice());
+            transactionItem.setDiscountAmount(line.getDiscountAmount() != null ? line.getDiscountAmount() : BigDecimal.ZERO);
+            transaction.getItems().add(transactionItem);
+        }
+
+        for (CheckoutRequest.ServiceLine line : request.getServiceItems()) {
+            ServiceOffering service = services.get(line.getServiceId());
+            if (service == null || !service.isActive()) {
+                throw new IllegalArgumentException("Service not found or inactive: " + line.getServiceId());
+            }
+            if (line.getQuantity() < 1) {
+                throw new IllegalArgumentException("Quantity must be at least 1 for service " + line.getServiceId());
+            }
+
+            ServiceTransactionItem serviceItem = new ServiceTransactionItem();
+            serviceItem.setSalesTransaction(transaction);
+            serviceItem.setService(service);
+            serviceItem.setQuantity(line.getQuantity());
+            serviceItem.setUnitPrice(line.getUnitPrice() != null ? line.getUnitPrice() : service.getPrice());
+            serviceItem.setDiscountAmount(line.getDiscountAmount() != null ? line.getDiscountAmount() : BigDecimal.ZERO);
+            serviceItem.setNotes(line.getNotes());
+            transaction.getServiceItems().add(serviceItem);
+        }
+
+        BigDecimal amountPaid = BigDecimal.ZERO;
+        for (CheckoutRequest.Payment payment : request.getPayments()) {
+            if (payment.getPaymentMethod() == null || payment.getAmount() == null
+                    || payment.getAmount().signum() <= 0) {
+                throw new IllegalArgumentException("Each payment needs a method and a positive amount");
+            }
+            amountPaid = amountPaid.add(payment.getAmount());
+        }
+
+        // Validate payment amount
+        if (amountPaid.compareTo(transaction.getTotal()) < 0) {
+            throw new IllegalArgumentException("Payment amount must be at least the transaction total");
+        }
+
+        transaction.setStatus(TransactionStatus.COMPLETED);
+        transaction.setPaymentMethod(request.getPayments().get(0).getPaymentMethod());
+        transaction.setAmountPaid(amountPaid);
+        transaction.setCompletionTime(LocalDateTime.now());
+
+        SalesTransaction savedTransaction = salesRepository.save(transaction);
+
+        // Take the whole basket out of stock in one pass; a shortfall rolls back the sale
+        Map<Long, Integer> sold = quantitiesByItem(savedTransaction);
+        if (reservationLedger.isEnabled()) {
+            reservationLedger.commit(savedTransaction.getId(), sold);
+        } else {
+            stockMutationService.decrementStock(sold);
+        }
+        inventoryMovementService.recordSale(sold, savedTransaction.getTransactionId());
+        salesRollupService.recordSale(savedTransaction);
+
+        List<PaymentTransaction> payments = new ArrayList<>();
+        for (CheckoutRequest.Payment line : request.getPayments()) {
+            PaymentTransaction payment = new PaymentTransaction();
+            payment.setPaymentId(UUID.randomUUID().toString());
+            payment.setSalesTransaction(savedTransaction);
+            payment.setAmount(line.getAmount());
+            payment.setPaymentMethod(line.getPaymentMethod());
+            payment.setStatus(PaymentStatus.COMPLETED);
+            payment.setReferenceNumber(line.getReferenceNumber());
+            payments.add(payment);
+        }
+        paymentRepository.saveAll(payments);
+
+        return dtoConverter.convertToDTO(savedTransaction);
+    }
+
     @Transactional
     public SalesTransaction addItemToTransaction(Long transactionId, Long itemId, int quantity, BigDecimal unitPrice) {
         Optional<SalesTransaction> transactionOpt = salesRepository.findById(transactionId);
@@ -182,6 +431,11 @@ public class SalesService {
             SalesTransaction transaction = transactionOpt.get();
             InventoryItem item = itemOpt.get();
 
+            // Hold the units for this sale before it is paid
+            if (reservationLedger.isEnabled()) {
+                reservationLedger.reserve(transaction.getId(), itemId, quantity);
+            }
+
             // Check if item is already in the transaction
             Optional<TransactionItem> existingItem = transaction.getItems().stream()
                     .filter(i -> i.getItem().getId().equals(itemId))
@@ -208,6 +462,15 @@ public class SalesService {
         return null;
     }
 
+    @Transactional
+    public SalesTransaction addItemToTransaction(Long transactionId, String itemId, int quantity, BigDecimal unitPrice) {
+        Optional<InventoryItem> itemOpt = inventoryRepository.findByItemId(itemId);
+        if (itemOpt.isPresent()) {
+            return addItemToTransaction(transactionId, itemOpt.get().getId(), quantity, unitPrice);
+        }
+        return null;
+    }
+
     @Transactional
     public SalesTransaction addItemToTransactionByIds(String transactionId, String itemId, int quantity, BigDecimal unitPrice) {
         Optional<SalesTransaction> transactionOpt = salesRepository.findByTransactionId(transactionId);
@@ -226,9 +489,15 @@ public class SalesService {
 
         if (transactionOpt.isPresent()) {
             SalesTransaction transaction = transactionOpt.get();
-            boolean removed = transaction.getItems().removeIf(item -> item.getId().equals(transactionItemId));
+            Optional<TransactionItem> line = transaction.getItems().stream()
+                    .filter(item -> item.getId().equals(transactionItemId))
+                    .findFirst();
 
-            if (removed) {
+            if (line.isPresent()) {
+                transaction.getItems().remove(line.get());
+                if (reservationLedger.isEnabled()) {
+                    reservationLedger.release(transaction.getId(), line.get().getItem().getId(), line.get().getQuantity());
+                }
                 salesRepository.save(transaction);
                 return true;
             }
@@ -259,7 +528,17 @@ public class SalesService {
             transaction.getItems().stream()
                     .filter(item -> item.getId().equals(transactionItemId))
                     .findFirst()
-                    .ifPresent(item -> item.setQuantity(newQuantity));
+                    .ifPresent(item -> {
+                        if (reservationLedger.isEnabled()) {
+                            int change = newQuantity - item.getQuantity();
+                            if (change > 0) {
+                                reservationLedger.reserve(transaction.getId(), item.getItem().getId(), change);
+                            } else {
+                                reservationLedger.release(transaction.getId(), item.getItem().getId(), -change);
+                            }
+                        }
+                        item.setQuantity(newQuantity);
+                    });
 
             return salesRepository.save(transaction);
         }
@@ -304,10 +583,14 @@ public class SalesService {
 
     @Transactional
     public SalesTransaction processPayment(Long transactionId, PaymentMethod paymentMethod, BigDecimal amount, String referenceNumber) {
-        Optional<SalesTransaction> transactionOpt = salesRepository.findById(transactionId);
+        Optional<SalesTransaction> transactionOpt = salesRepository.findByIdWithLines(transactionId);
 
         if (transactionOpt.isPresent()) {
             SalesTransaction transaction = transactionOpt.get();
+            // Only an open draft takes payment; anything else has had its stock settled already
+            if (transaction.getStatus() != TransactionStatus.DRAFT) {
+                throw new IllegalStateException("Cannot pay a " + transaction.getStatus() + " transaction");
+            }
             BigDecimal total = transaction.getTotal();
 
             // Validate payment amount
@@ -315,6 +598,15 @@ public class SalesService {
                 throw new IllegalArgumentException("Payment amount must be at least the transaction total");
             }
 
+            // Take the whole basket out of stock in one pass; a shortfall rolls back the sale
+            Map<Long, Integer> sold = quantitiesByItem(transaction);
+            if (reservationLedger.isEnabled()) {
+                reservationLedger.commit(transaction.getId(), sold);
+            } else {
+                stockMutationService.decrementStock(sold);
+            }
+            inventoryMovementService.recordSale(sold, transaction.getTransactionId());
+
             // Create payment record
             PaymentTransaction payment = new PaymentTransaction();
             payment.setPaymentId(UUID.randomUUID().toString());
@@ -332,12 +624,9 @@ public class SalesService {
             transaction.setAmountPaid(amount);
             transaction.setCompletionTime(LocalDateTime.now());
 
-            // Update inventory quantities
-            for (TransactionItem item : transaction.getItems()) {
-                inventoryService.updateItemQuantity(item.getItem().getId(), -item.getQuantity());
-            }
-
-            return salesRepository.save(transaction);
+            SalesTransaction savedTransaction = salesRepository.save(transaction);
+            salesRollupService.recordSale(savedTransaction);
+            return savedTransaction;
         }
 
         return null;
@@ -361,6 +650,9 @@ public class SalesService {
 
             if (transaction.getStatus() != TransactionStatus.COMPLETED) {
                 transaction.setStatus(TransactionStatus.CANCELLED);
+                if (reservationLedger.isEnabled()) {
+                    reservationLedger.releaseAll(transaction.getId());
+                }
                 return salesRepository.save(transaction);
             } else {
                 throw new IllegalStateException("Cannot void a completed transaction");
@@ -385,7 +677,7 @@ public class SalesService {
 
     @Transactional
     public SalesTransaction processReturn(Long transactionId) {
-        Optional<SalesTransaction> transactionOpt = salesRepository.findById(transactionId);
+        Optional<SalesTransaction> transactionOpt = salesRepository.findByIdWithLines(transactionId);
 
         if (transactionOpt.isPresent()) {
             SalesTransaction transaction = transactionOpt.get();
@@ -401,13 +693,18 @@ public class SalesService {
 
                 paymentRepository.save(refund);
 
-                // Update inventory quantities
-                for (TransactionItem item : transaction.getItems()) {
-                    inventoryService.updateItemQuantity(item.getItem().getId(), item.getQuantity());
+                // Put the returned items back into stock
+                Map<Long, Integer> returned = quantitiesByItem(transaction);
+                if (reservationLedger.isEnabled()) {
+                    reservationLedger.restock(returned);
+                } else {
+                    stockMutationService.restoreStock(returned);
                 }
+                inventoryMovementService.recordReturn(returned, transaction.getTransactionId());
 
                 // Update transaction status
                 transaction.setStatus(TransactionStatus.RETURNED);
+                salesRollupService.recordReturn(transaction);
                 return salesRepository.save(transaction);
             } else {
                 throw new IllegalStateException("Can only return completed transactions");
@@ -429,4 +726,13 @@ public class SalesService {
         }
         return null;
     }
+
+    // Total units per inventory item id, merging repeated lines of the same item
+    private Map<Long, Integer> quantitiesByItem(SalesTransaction transaction) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (TransactionItem item : transaction.getItems()) {
+            quantities.merge(item.getItem().getId(), item.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
 }
\ No newline at end of file
@@ -1,8 +1,13 @@
 package com.bin.pos.service;
 
+import com.bin.pos.config.CacheConfig;
+import com.bin.pos.dal.dto.ServiceOfferingDTO;
 import com.bin.pos.dal.model.ServiceOffering;
 import com.bin.pos.dal.repository.ServiceRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,31 +25,46 @@ public class ServiceOfferingService {
         this.serviceRepository = serviceRepository;
     }
 
-    public List<ServiceOffering> getAllServices() {
-        return serviceRepository.findAll();
+    // Reads return DTOs: a cached entity would be shared, mutable and detached
+    @Cacheable(cacheNames = CacheConfig.SERVICE_LISTS, key = "'all'")
+    public List<ServiceOfferingDTO> getAllServices() {
+        return toDTOs(serviceRepository.findAll());
     }
 
-    public List<ServiceOffering> getActiveServices() {
-        return serviceRepository.findByActive(true);
+    @Cacheable(cacheNames = CacheConfig.SERVICE_LISTS, key = "'active'")
+    public List<ServiceOfferingDTO> getActiveServices() {
+        return toDTOs(serviceRepository.findByActive(true));
     }
 
-    public Optional<ServiceOffering> getServiceById(Long id) {
-        return serviceRepository.findById(id);
+    // Misses aren't cached, so a service created on another instance is found right away
+    @Cacheable(cacheNames = CacheConfig.SERVICES_BY_ID, key = "#id", unless = "#result == null")
+    public Optional<ServiceOfferingDTO> getServiceById(Long id) {
+        return serviceRepository.findById(id).map(ServiceOfferingDTO::new);
     }
 
-    public Optional<ServiceOffering> getServiceByServiceId(String serviceId) {
-        return serviceRepository.findByServiceId(serviceId);
+    @Cacheable(cacheNames = CacheConfig.SERVICES_BY_SERVICE_ID, key = "#serviceId", unless = "#result == null")
+    public Optional<ServiceOfferingDTO> getServiceByServiceId(String serviceId) {
+        return serviceRepository.findByServiceId(serviceId).map(ServiceOfferingDTO::new);
     }
 
-    public List<ServiceOffering> searchServices(String searchTerm) {
-        return serviceRepository.findByNameContainingIgnoreCase(searchTerm);
+    public List<ServiceOfferingDTO> searchServices(String searchTerm) {
+        return toDTOs(serviceRepository.findByNameContainingIgnoreCase(searchTerm));
     }
 
-    public List<ServiceOffering> getServicesByCategory(String category) {
-        return serviceRepository.findByCategory(category);
+    public List<ServiceOfferingDTO> getServicesByCategory(String category) {
+        return toDTOs(serviceRepository.findByCategory(category));
+    }
+
+    private static List<ServiceOfferingDTO> toDTOs(List<ServiceOffering> services) {
+        return services.stream().map(ServiceOfferingDTO::new).toList();
     }
 
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.SERVICE_LISTS, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.SERVICES_BY_ID, key = "#result.id"),
+            @CacheEvict(cacheNames = CacheConfig.SERVICES_BY_SERVICE_ID, key = "#result.serviceId")
+    })
     public ServiceOffering createService(ServiceOffering service) {
         // Generate a unique serviceId (business identifier) if not provided
         if (service.getServiceId() == null || service.getServiceId().isEmpty()) {
@@ -56,6 +76,11 @@ public class ServiceOfferingService {
     }
 
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.SERVICE_LISTS, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.SERVICES_BY_ID, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.SERVICES_BY_SERVICE_ID, key = "#result.serviceId", condition = "#result != null")
+    })
     public ServiceOffering updateService(Long id, ServiceOffering serviceDetails) {
         return serviceRepository.findById(id).map(existingService -> {
             // Update fields from serviceDetails to existingService
@@ -70,6 +95,11 @@ public class ServiceOfferingService {
     }
 
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.SERVICE_LISTS, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.SERVICES_BY_ID, key = "#result.id", condition = "#result != null"),
+            @CacheEvict(cacheNames = CacheConfig.SERVICES_BY_SERVICE_ID, key = "#serviceId")
+    })
     public ServiceOffering updateServiceByServiceId(String serviceId, ServiceOffering serviceDetails) {
         Optional<ServiceOffering> serviceOpt = serviceRepository.findByServiceId(serviceId);
         if (serviceOpt.isPresent()) {
@@ -79,6 +109,11 @@ public class ServiceOfferingService {
     }
 
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.SERVICE_LISTS, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.SERVICES_BY_ID, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.SERVICES_BY_SERVICE_ID, allEntries = true)
+    })
     public boolean toggleServiceStatus(Long id) {
         Optional<ServiceOffering> serviceOpt = serviceRepository.findById(id);
 
@@ -93,6 +128,11 @@ public class ServiceOfferingService {
     }
 
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.SERVICE_LISTS, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.SERVICES_BY_ID, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.SERVICES_BY_SERVICE_ID, key = "#serviceId")
+    })
     public boolean toggleServiceStatusByServiceId(String serviceId) {
         Optional<ServiceOffering> serviceOpt = serviceRepository.findByServiceId(serviceId);
         if (serviceOpt.isPresent()) {
@@ -102,6 +142,11 @@ public class ServiceOfferingService {
     }
 
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.SERVICE_LISTS, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.SERVICES_BY_ID, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.SERVICES_BY_SERVICE_ID, allEntries = true)
+    })
     public boolean deleteService(Long id) {
         if (serviceRepository.existsById(id)) {
             serviceRepository.deleteById(id);
@@ -111,6 +156,11 @@ public class ServiceOfferingService {
     }
 
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.SERVICE_LISTS, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.SERVICES_BY_ID, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.SERVICES_BY_SERVICE_ID, key = "#serviceId")
+    })
     public boolean deleteServiceByServiceId(String serviceId) {
         Optional<ServiceOffering> serviceOpt = serviceRepository.findByServiceId(serviceId);
         if (serviceOpt.isPresent()) {
@@ -0,0 +1,215 @@
+package com.bin.pos.service;
+
+import com.bin.pos.config.CacheConfig;
+import com.bin.pos.dal.dto.StockShortfall;
+import com.bin.pos.exception.InsufficientStockException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Applies basket-sized stock changes to inventory_items with one batched,
+ * conditional UPDATE per line instead of a read-modify-write per item.
+ */
+@Service
+public class StockMutationService {
+
+    // The WHERE guard makes each decrement atomic: a row only changes if it still has enough stock
+    private static final String DECREMENT_SQL =
+            "UPDATE inventory_items SET quantity = quantity - ?, updated_at = ? WHERE id = ? AND quantity >= ?";
+
+    // No guard: for units that have already left the shop
+    private static final String APPLY_SQL =
+            "UPDATE inventory_items SET quantity = quantity - ?, updated_at = ? WHERE id = ?";
+
+    private static final String OVERSOLD_SQL =
+            "SELECT id, item_id, quantity FROM inventory_items WHERE id IN (:ids) AND quantity < 0";
+
+    private static final String AVAILABLE_SQL =
+            "SELECT id, item_id, quantity FROM inventory_items WHERE id IN (:ids)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final BarcodeLookupService barcodeLookupService;
+    private final Cache itemCache;
+
+    @Autowired
+    public StockMutationService(
+            JdbcTemplate jdbcTemplate,
+            NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+            BarcodeLookupService barcodeLookupService,
+            CacheManager cacheManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.barcodeLookupService = barcodeLookupService;
+        this.itemCache = cacheManager.getCache(CacheConfig.INVENTORY_ITEMS);
+    }
+
+    /**
+     * Remove the given quantities (inventory item id -> units) from stock.
+     * Either every line is applied or the surrounding transaction is rolled back
+     * with an InsufficientStockException listing each short line.
+     */
+    @Transactional
+    public void decrementStock(Map<Long, Integer> quantities) {
+        List<StockShortfall> shortfalls = tryDecrementStock(quantities);
+        if (!shortfalls.isEmpty()) {
+            throw new InsufficientStockException(shortfalls);
+        }
+    }
+
+    /**
+     * Put the given quantities back into stock, e.g. for returns. An item that is no
+     * longer in inventory fails the surrounding transaction with an IllegalStateException,
+     * so no movement is recorded for units that went nowhere.
+     */
+    @Transactional
+    public void restoreStock(Map<Long, Integer> quantities) {
+        List<Map.Entry<Long, Integer>> lines = sortedLines(quantities);
+        if (lines.isEmpty()) {
+            return;
+        }
+
+        // Unguarded, so an oversold item can still be restocked
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int[][] updateCounts = jdbcTemplate.batchUpdate(APPLY_SQL, lines, lines.size(), (ps, line) -> {
+            ps.setInt(1, -line.getValue());
+            ps.setTimestamp(2, now);
+            ps.setLong(3, line.getKey());
+        });
+
+        List<Long> missing = new ArrayList<>();
+        Map<Long, Integer> applied = new HashMap<>();
+        for (int i = 0; i < lines.size(); i++) {
+            if (updateCounts[0][i] == 0) {
+                missing.add(lines.get(i).getKey());
+            } else {
+                applied.put(lines.get(i).getKey(), lines.get(i).getValue());
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException("Cannot restock items that are no longer in inventory: " + missing);
+        }
+        barcodeLookupService.stockChanged(applied);
+        applied.keySet().forEach(itemCache::evict);
+    }
+
+    /**
+     * Apply every line that can be satisfied and report the ones that could not,
+     * without failing the transaction. Negative quantities add stock.
+     */
+    @Transactional
+    public List<StockShortfall> tryDecrementStock(Map<Long, Integer> quantities) {
+        List<Map.Entry<Long, Integer>> lines = sortedLines(quantities);
+        if (lines.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int[] updateCounts = jdbcTemplate.batchUpdate(DECREMENT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Map.Entry<Long, Integer> line = lines.get(i);
+                ps.setInt(1, line.getValue());
+                ps.setTimestamp(2, now);
+                ps.setLong(3, line.getKey());
+                ps.setInt(4, line.getValue());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return lines.size();
+            }
+        });
+
+        Map<Long, Integer> failed = new TreeMap<>();
+        Map<Long, Integer> applied = new HashMap<>();
+        for (int i = 0; i < updateCounts.length; i++) {
+            if (updateCounts[i] == 0) {
+                failed.put(lines.get(i).getKey(), lines.get(i).getValue());
+            } else {
+                applied.put(lines.get(i).getKey(), -lines.get(i).getValue());
+            }
+        }
+        barcodeLookupService.stockChanged(applied);
+        // Cached item details carry the on-hand quantity; evictions wait for the commit
+        applied.keySet().forEach(itemCache::evict);
+
+        return failed.isEmpty() ? Collections.emptyList() : describeShortfalls(failed);
+    }
+
+    /**
+     * Take units that were already sold out of stock even where that leaves it
+     * negative, and report the items that are now oversold
+     */
+    @Transactional
+    public List<StockShortfall> applySoldStock(Map<Long, Integer> quantities) {
+        List<Map.Entry<Long, Integer>> lines = sortedLines(quantities);
+        if (lines.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(APPLY_SQL, lines, lines.size(), (ps, line) -> {
+            ps.setInt(1, line.getValue());
+            ps.setTimestamp(2, now);
+            ps.setLong(3, line.getKey());
+        });
+
+        Map<Long, Integer> applied = new HashMap<>();
+        lines.forEach(line -> applied.put(line.getKey(), -line.getValue()));
+        barcodeLookupService.stockChanged(applied);
+        applied.keySet().forEach(itemCache::evict);
+
+        List<StockShortfall> oversold = new ArrayList<>();
+        namedParameterJdbcTemplate.query(OVERSOLD_SQL, Map.of("ids", applied.keySet()), rs -> {
+            long id = rs.getLong("id");
+            oversold.add(new StockShortfall(id, rs.getString("item_id"), quantities.get(id), rs.getInt("quantity")));
+        });
+        return oversold;
+    }
+
+    // Sorted by id so concurrent baskets always lock rows in the same order
+    private static List<Map.Entry<Long, Integer>> sortedLines(Map<Long, Integer> quantities) {
+        List<Map.Entry<Long, Integer>> lines = new ArrayList<>();
+        new TreeMap<>(quantities).forEach((id, quantity) -> {
+            if (quantity != null && quantity != 0) {
+                lines.add(Map.entry(id, quantity));
+            }
+        });
+        return lines;
+    }
+
+    private List<StockShortfall> describeShortfalls(Map<Long, Integer> failed) {
+        Map<Long, StockShortfall> current = new HashMap<>();
+        namedParameterJdbcTemplate.query(AVAILABLE_SQL, Map.of("ids", failed.keySet()), rs -> {
+            long id = rs.getLong("id");
+            current.put(id, new StockShortfall(id, rs.getString("item_id"), 0, rs.getInt("quantity")));
+        });
+
+        List<StockShortfall> shortfalls = new ArrayList<>();
+        failed.forEach((id, requested) -> {
+            // Unknown items are reported with nothing available
+            StockShortfall shortfall = current.getOrDefault(id, new StockShortfall(id, null, 0, 0));
+            shortfall.setRequested(requested);
+            shortfalls.add(shortfall);
+        });
+        return shortfalls;
+    }
+}
@@ -0,0 +1,545 @@
+package com.bin.pos.service;
+
+import com.bin.pos.dal.dto.StockShortfall;
+import com.bin.pos.dal.model.PendingStockChange;
+import com.bin.pos.dal.repository.InventoryRepository;
+import com.bin.pos.dal.repository.PendingStockChangeRepository;
+import com.bin.pos.exception.InsufficientStockException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory stock reservations for draft sales.
+ *
+ * When enabled, adding an item to a draft sale reserves units against an
+ * in-memory available count instead of touching inventory_items. Completed
+ * sales and returns insert their per-item changes into pending_stock_changes
+ * in their own transaction, and those are applied to inventory_items in
+ * periodic batches, so busy items no longer hold row locks for the length of
+ * every checkout. Changes left over from a restart are applied on startup.
+ * Counters are guarded by a fixed array of striped locks; different items
+ * rarely share a stripe. Items with nothing held or pending are dropped once
+ * idle for the reservation TTL.
+ */
+@Service
+public class StockReservationLedger implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(StockReservationLedger.class);
+
+    private static final int STRIPES = 64;
+    private static final int FLUSH_BATCH = 1000;
+
+    private final InventoryRepository inventoryRepository;
+    private final PendingStockChangeRepository pendingStockChangeRepository;
+    private final StockMutationService stockMutationService;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final long reservationTtlMillis;
+
+    private final Lock[] stripes = new Lock[STRIPES];
+    private final Map<Long, ItemStock> stock = new ConcurrentHashMap<>();
+    private final Map<Long, Reservation> reservations = new ConcurrentHashMap<>();
+    // Set once a change is committed; cleared by the flush that picks it up
+    private final AtomicBoolean unflushed = new AtomicBoolean();
+    // One flush at a time, and no item is first read while one is applying its changes
+    private final Lock flushLock = new ReentrantLock();
+
+    @Autowired
+    public StockReservationLedger(
+            InventoryRepository inventoryRepository,
+            PendingStockChangeRepository pendingStockChangeRepository,
+            StockMutationService stockMutationService,
+            PlatformTransactionManager transactionManager,
+            @Value("${pos.inventory.reservations.enabled:false}") boolean enabled,
+            @Value("${pos.inventory.reservations.ttl-minutes:30}") long reservationTtlMinutes) {
+        this.inventoryRepository = inventoryRepository;
+        this.pendingStockChangeRepository = pendingStockChangeRepository;
+        this.stockMutationService = stockMutationService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.reservationTtlMillis = TimeUnit.MINUTES.toMillis(reservationTtlMinutes);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Apply what a previous run left in pending_stock_changes before any item is
+     * read, even with reservations switched off since
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        unflushed.set(true);
+        applyPendingChanges();
+    }
+
+    /**
+     * Hold units of an item for a draft sale. Only the first use of an item
+     * reads its on-hand quantity from the database.
+     */
+    public void reserve(Long transactionId, Long itemId, int quantity) {
+        if (quantity <= 0) {
+            return;
+        }
+
+        Lock lock = stripeFor(itemId);
+        ItemStock item = lockTracked(itemId);
+        try {
+            if (item.available < quantity) {
+                throw new InsufficientStockException(List.of(
+                        new StockShortfall(itemId, null, quantity, Math.max(item.available, 0))));
+            }
+            item.available -= quantity;
+            item.held += quantity;
+        } finally {
+            lock.unlock();
+        }
+
+        reservations.computeIfAbsent(transactionId, id -> new Reservation()).add(itemId, quantity);
+        TransactionHooks.afterRollback(() -> release(transactionId, itemId, quantity));
+    }
+
+    /**
+     * Give back up to the given number of units held by a draft sale
+     */
+    public void release(Long transactionId, Long itemId, int quantity) {
+        Reservation reservation = reservations.get(transactionId);
+        if (reservation == null || quantity <= 0) {
+            return;
+        }
+
+        int released = reservation.remove(itemId, quantity);
+        returnToAvailable(itemId, released);
+    }
+
+    /**
+     * Give back everything held by a sale, e.g. when it is voided or abandoned
+     */
+    public void releaseAll(Long transactionId) {
+        Reservation reservation = reservations.remove(transactionId);
+        if (reservation != null) {
+            reservation.snapshot().forEach(this::returnToAvailable);
+        }
+    }
+
+    /**
+     * Turn a sale's reservation into pending stock decrements, written to
+     * pending_stock_changes in the caller's transaction. Lines that were never
+     * reserved are taken from the available count; if any line cannot be
+     * covered nothing changes and the shortfalls are reported.
+     */
+    public void commit(Long transactionId, Map<Long, Integer> required) {
+        Reservation reservation = reservations.remove(transactionId);
+        Map<Long, Integer> held = reservation == null ? Map.of() : reservation.snapshot();
+
+        Set<Long> itemIds = new HashSet<>(required.keySet());
+        itemIds.addAll(held.keySet());
+        Map<Long, ItemStock> items = new HashMap<>();
+        List<Lock> locks = lockAllTracked(itemIds, items);
+        try {
+            List<StockShortfall> shortfalls = new ArrayList<>();
+            required.forEach((id, quantity) -> {
+                int reserved = held.getOrDefault(id, 0);
+                ItemStock item = items.get(id);
+                if (quantity - reserved > item.available) {
+                    shortfalls.add(new StockShortfall(id, null, quantity, Math.max(item.available, 0) + reserved));
+                }
+            });
+            if (!shortfalls.isEmpty()) {
+                if (reservation != null) {
+                    reservations.put(transactionId, reservation);
+                }
+                throw new InsufficientStockException(shortfalls);
+            }
+
+            items.forEach((id, item) -> {
+                int reserved = held.getOrDefault(id, 0);
+                int sold = required.getOrDefault(id, 0);
+                item.held -= reserved;
+                item.available += reserved - sold;
+                item.pending += sold;
+            });
+        } finally {
+            unlockAll(locks);
+        }
+
+        TransactionHooks.afterRollback(() -> uncommit(transactionId, reservation, held, required));
+        record(required, 1);
+    }
+
+    /**
+     * Make returned or delivered units available again and queue them for the
+     * database; taken back out if the surrounding transaction rolls back
+     */
+    public void restock(Map<Long, Integer> quantities) {
+        addStock(quantities, 1);
+        TransactionHooks.afterRollback(() -> addStock(quantities, -1));
+        record(quantities, -1);
+    }
+
+    /**
+     * Follow a relative change that was already written to the database
+     */
+    public void adjust(Long itemId, int quantityChange) {
+        ItemStock item = stock.get(itemId);
+        if (item == null) {
+            return;
+        }
+
+        Lock lock = stripeFor(itemId);
+        lock.lock();
+        try {
+            item.available += quantityChange;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Follow an absolute quantity that was just written to the database
+     */
+    public void resync(Long itemId, int onHand) {
+        ItemStock item = stock.get(itemId);
+        if (item == null) {
+            return;
+        }
+
+        Lock lock = stripeFor(itemId);
+        lock.lock();
+        try {
+            // Pending sales have not reached the database yet, held units are spoken for
+            item.available = onHand - item.pending - item.held;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void forget(Long itemId) {
+        Lock lock = stripeFor(itemId);
+        lock.lock();
+        try {
+            ItemStock item = stock.remove(itemId);
+            if (item != null) {
+                item.evicted = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Apply the committed pending changes to inventory_items, a batch per transaction
+     */
+    @Scheduled(fixedDelayString = "${pos.inventory.reservations.flush-interval-ms:2000}")
+    public void flush() {
+        if (enabled) {
+            applyPendingChanges();
+        }
+    }
+
+    /**
+     * Release reservations of draft sales that have not been touched for the TTL
+     */
+    @Scheduled(fixedDelayString = "${pos.inventory.reservations.sweep-interval-ms:60000}")
+    public void expireAbandonedReservations() {
+        if (!enabled) {
+            return;
+        }
+
+        long cutoff = System.currentTimeMillis() - reservationTtlMillis;
+        reservations.forEach((transactionId, reservation) -> {
+            if (reservation.lastTouched < cutoff && reservations.remove(transactionId, reservation)) {
+                log.info("Releasing abandoned stock reservation of transaction {}", transactionId);
+                reservation.snapshot().forEach(this::returnToAvailable);
+            }
+        });
+        evictIdleItems(cutoff);
+    }
+
+    // Items nothing is held or pending for are read from the database again on their next use
+    void evictIdleItems(long cutoff) {
+        stock.forEach((id, item) -> {
+            if (item.lastUsed >= cutoff) {
+                return;
+            }
+            Lock lock = stripeFor(id);
+            lock.lock();
+            try {
+                if (item.held == 0 && item.pending == 0 && item.lastUsed < cutoff && stock.remove(id, item)) {
+                    item.evicted = true;
+                }
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * Units of an item that are free to sell, for tests
+     */
+    int available(Long itemId) {
+        ItemStock item = stock.get(itemId);
+        return item != null ? item.available : 0;
+    }
+
+    private void applyPendingChanges() {
+        if (!unflushed.getAndSet(false)) {
+            return;
+        }
+
+        flushLock.lock();
+        try {
+            AppliedBatch batch;
+            do {
+                batch = transactionTemplate.execute(status -> applyBatch());
+                // The changes are in inventory_items now, so they stop counting as pending
+                batch.deltas().forEach((id, quantity) -> {
+                    ItemStock item = stock.get(id);
+                    if (item == null) {
+                        return;
+                    }
+                    Lock lock = stripeFor(id);
+                    lock.lock();
+                    try {
+                        item.pending -= quantity;
+                    } finally {
+                        lock.unlock();
+                    }
+                });
+            } while (batch.full());
+        } catch (RuntimeException e) {
+            unflushed.set(true);
+            log.error("Stock flush failed, the pending changes are retried on the next run", e);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private AppliedBatch applyBatch() {
+        List<PendingStockChange> changes = pendingStockChangeRepository.findAllByOrderByIdAsc(PageRequest.of(0, FLUSH_BATCH));
+        if (changes.isEmpty()) {
+            return new AppliedBatch(Map.of(), false);
+        }
+
+        Map<Long, Integer> deltas = new HashMap<>();
+        changes.forEach(change -> deltas.merge(change.getInventoryItemId(), change.getQuantity(), Integer::sum));
+        // These sales are paid for, so their units come off even if stock goes negative
+        for (StockShortfall oversold : stockMutationService.applySoldStock(deltas)) {
+            log.warn("Item {} ({}) is oversold: {} on hand after a pending change of {}",
+                    oversold.getItemId(), oversold.getId(), oversold.getAvailable(), -oversold.getRequested());
+        }
+        pendingStockChangeRepository.deleteAllByIdInBatch(changes.stream().map(PendingStockChange::getId).toList());
+        return new AppliedBatch(deltas, changes.size() == FLUSH_BATCH);
+    }
+
+    // Write the changes with the caller's transaction, and have them flushed once it commits
+    private void record(Map<Long, Integer> quantities, int sign) {
+        List<PendingStockChange> changes = new ArrayList<>(quantities.size());
+        quantities.forEach((id, quantity) -> {
+            if (quantity != null && quantity != 0) {
+                changes.add(new PendingStockChange(id, sign * quantity));
+            }
+        });
+        if (!changes.isEmpty()) {
+            pendingStockChangeRepository.saveAll(changes);
+            TransactionHooks.afterCommit(() -> unflushed.set(true));
+        }
+    }
+
+    private ItemStock track(Long itemId) {
+        ItemStock item = stock.get(itemId);
+        if (item == null) {
+            // Changes still waiting in pending_stock_changes are not in the on-hand quantity yet
+            flushLock.lock();
+            try {
+                item = stock.get(itemId);
+                if (item == null) {
+                    int onHand = inventoryRepository.findQuantityById(itemId).orElse(0);
+                    long pending = pendingStockChangeRepository.sumQuantityOfItem(itemId);
+                    item = stock.computeIfAbsent(itemId, id -> new ItemStock(onHand, Math.toIntExact(pending)));
+                }
+            } finally {
+                flushLock.unlock();
+            }
+        }
+        item.lastUsed = System.currentTimeMillis();
+        return item;
+    }
+
+    // The item's stripe is locked on return; an item evicted meanwhile is read again
+    private ItemStock lockTracked(Long itemId) {
+        Lock lock = stripeFor(itemId);
+        while (true) {
+            ItemStock item = track(itemId);
+            lock.lock();
+            if (!item.evicted) {
+                return item;
+            }
+            lock.unlock();
+        }
+    }
+
+    private List<Lock> lockAllTracked(Set<Long> itemIds, Map<Long, ItemStock> items) {
+        while (true) {
+            itemIds.forEach(id -> items.put(id, track(id)));
+            List<Lock> locks = lockAll(itemIds);
+            if (items.values().stream().noneMatch(item -> item.evicted)) {
+                return locks;
+            }
+            unlockAll(locks);
+        }
+    }
+
+    // Undo a commit whose sale rolled back: the units are held by the draft sale again
+    private void uncommit(Long transactionId, Reservation reservation, Map<Long, Integer> held, Map<Long, Integer> required) {
+        Set<Long> itemIds = new HashSet<>(required.keySet());
+        itemIds.addAll(held.keySet());
+
+        List<Lock> locks = lockAll(itemIds);
+        try {
+            itemIds.forEach(id -> {
+                ItemStock item = stock.get(id);
+                if (item == null) {
+                    return;
+                }
+                int reserved = held.getOrDefault(id, 0);
+                int sold = required.getOrDefault(id, 0);
+                item.held += reserved;
+                item.available -= reserved - sold;
+                item.pending -= sold;
+            });
+        } finally {
+            unlockAll(locks);
+        }
+
+        if (reservation != null) {
+            reservations.putIfAbsent(transactionId, reservation);
+        }
+    }
+
+    private void addStock(Map<Long, Integer> quantities, int sign) {
+        quantities.forEach((id, quantity) -> {
+            Lock lock = stripeFor(id);
+            ItemStock item = lockTracked(id);
+            try {
+                item.available += sign * quantity;
+                item.pending -= sign * quantity;
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    private void returnToAvailable(Long itemId, int quantity) {
+        ItemStock item = stock.get(itemId);
+        if (item == null || quantity <= 0) {
+            return;
+        }
+
+        Lock lock = stripeFor(itemId);
+        lock.lock();
+        try {
+            item.held -= quantity;
+            item.available += quantity;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Lock stripeFor(Long itemId) {
+        return stripes[Math.floorMod(itemId.hashCode(), STRIPES)];
+    }
+
+    // Stripes are always taken in index order so two baskets cannot deadlock
+    private List<Lock> lockAll(Set<Long> itemIds) {
+        Set<Integer> indexes = new TreeSet<>();
+        itemIds.forEach(id -> indexes.add(Math.floorMod(id.hashCode(), STRIPES)));
+
+        List<Lock> locks = new ArrayList<>(indexes.size());
+        for (int index : indexes) {
+            stripes[index].lock();
+            locks.add(stripes[index]);
+        }
+        return locks;
+    }
+
+    private void unlockAll(List<Lock> locks) {
+        for (int i = locks.size() - 1; i >= 0; i--) {
+            locks.get(i).unlock();
+        }
+    }
+
+    private record AppliedBatch(Map<Long, Integer> deltas, boolean full) {
+    }
+
+    // Guarded by the item's stripe lock
+    private static final class ItemStock {
+        private int available;
+        private int held;
+        // Units sold but not yet applied to inventory_items, committed or not
+        private int pending;
+        private boolean evicted;
+        private volatile long lastUsed = System.currentTimeMillis();
+
+        private ItemStock(int onHand, int pending) {
+            this.available = onHand - pending;
+            this.pending = pending;
+        }
+    }
+
+    private static final class Reservation {
+        private final Map<Long, Integer> quantities = new ConcurrentHashMap<>();
+        private volatile long lastTouched = System.currentTimeMillis();
+
+        private void add(Long itemId, int quantity) {
+            quantities.merge(itemId, quantity, Integer::sum);
+            lastTouched = System.currentTimeMillis();
+        }
+
+        private int remove(Long itemId, int quantity) {
+            int[] removed = new int[1];
+            quantities.computeIfPresent(itemId, (id, current) -> {
+                removed[0] = Math.min(current, quantity);
+                int remaining = current - removed[0];
+                return remaining > 0 ? remaining : null;
+            });
+            lastTouched = System.currentTimeMillis();
+            return removed[0];
+        }
+
+        private Map<Long, Integer> snapshot() {
+            return new HashMap<>(quantities);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.bin.pos.service;
+
+import com.bin.pos.dal.dto.ExportFormat;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.cfg.JsonNodeFeature;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Writes query results to a response as they are read, one row at a time.
+ * The caller's transaction must stay open while the stream is consumed.
+ */
+@Service
+public class StreamingExportService {
+
+    // Rows between persistence context clears and response flushes; matches the query fetch size
+    public static final int BATCH_SIZE = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public StreamingExportService(ObjectMapper objectMapper) {
+        // Keep the scale of money values when rows pass through the tree model
+        this.objectMapper = objectMapper.copy().configure(JsonNodeFeature.STRIP_TRAILING_BIGDECIMAL_ZEROES, false);
+    }
+
+    /**
+     * Map each row and write it in the given format. Returns the number of rows written.
+     */
+    public <T, R> long export(Stream<T> rows, Function<T, R> mapper, ExportFormat format, OutputStream out)
+            throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        long count = 0;
+
+        Iterator<T> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            R row = mapper.apply(iterator.next());
+            if (format == ExportFormat.CSV) {
+                JsonNode fields = objectMapper.valueToTree(row);
+                if (count == 0) {
+                    writeCsvHeader(fields, writer);
+                }
+                writeCsvRow(fields, writer);
+            } else {
+                writer.write(objectMapper.writeValueAsString(row));
+                writer.write('\n');
+            }
+
+            // Drop entities already written so memory stays flat for any period length
+            if (++count % BATCH_SIZE == 0) {
+                entityManager.clear();
+                writer.flush();
+            }
+        }
+
+        writer.flush();
+        return count;
+    }
+
+    private void writeCsvHeader(JsonNode row, Writer writer) throws IOException {
+        StringBuilder line = new StringBuilder();
+        row.fieldNames().forEachRemaining(name -> {
+            if (line.length() > 0) {
+                line.append(',');
+            }
+            line.append(escapeCsv(name));
+        });
+        writer.write(line.append('\n').toString());
+    }
+
+    private void writeCsvRow(JsonNode row, Writer writer) throws IOException {
+        StringBuilder line = new StringBuilder();
+        Iterator<Map.Entry<String, JsonNode>> fields = row.fields();
+        boolean first = true;
+        while (fields.hasNext()) {
+            if (!first) {
+                line.append(',');
+            }
+            first = false;
+
+            JsonNode value = fields.next().getValue();
+            if (value.isNull()) {
+                continue;
+            }
+            if (value.isBigDecimal()) {
+                line.append(value.decimalValue().toPlainString());
+            } else {
+                line.append(escapeCsv(value.isValueNode() ? value.asText() : toJson(value)));
+            }
+        }
+        writer.write(line.append('\n').toString());
+    }
+
+    private String toJson(JsonNode value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String escapeCsv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -1,5 +1,6 @@
 package com.bin.pos.service;
 
+import com.bin.pos.config.security.AccountVersionCache;
 import com.bin.pos.dal.dto.UserDTO;
 import com.bin.pos.dal.model.User;
 import com.bin.pos.dal.repository.UserRepository;
@@ -26,6 +27,7 @@ public class UserService implements UserDetailsService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final AccountVersionCache accountVersionCache;
 
     // Password validation regex
 //    private static final Pattern PASSWORD_PATTERN = Pattern.compile(
@@ -33,9 +35,11 @@ public class UserService implements UserDetailsService {
 //    );
 
     @Autowired
-    public UserService(UserRepository userRepository, @Lazy PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, @Lazy PasswordEncoder passwordEncoder,
+                       AccountVersionCache accountVersionCache) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.accountVersionCache = accountVersionCache;
     }
 
     @Override
@@ -58,8 +62,11 @@ public class UserService implements UserDetailsService {
         // Set account creation time
         user.setCreatedAt(LocalDateTime.now());
         user.setActive(true);
+        user.setTokenVersion(0);
 
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        accountVersionCache.update(savedUser.getId(), savedUser.getTokenVersion(), savedUser.isActive());
+        return savedUser;
     }
 
     private void validateUserCreation(User user) {
@@ -120,12 +127,20 @@ public class UserService implements UserDetailsService {
             user.setEmail(userDetails.getEmail());
         }
 
+        boolean revokeTokens = false;
         if (userDetails.isActive() != user.isActive()) {
             user.setActive(userDetails.isActive());
+            revokeTokens = true;
         }
 
-        if (userDetails.getRoles() != null && !userDetails.getRoles().isEmpty()) {
+        if (userDetails.getRoles() != null && !userDetails.getRoles().isEmpty()
+                && !userDetails.getRoles().equals(user.getRoles())) {
             user.setRoles(userDetails.getRoles());
+            revokeTokens = true;
+        }
+
+        if (revokeTokens) {
+            bumpTokenVersion(user);
         }
 
         user.setUpdatedAt(LocalDateTime.now());
@@ -167,6 +182,7 @@ public class UserService implements UserDetailsService {
         // Encode and update new password
         user.setPassword(passwordEncoder.encode(newPassword));
         user.setPasswordChangedAt(LocalDateTime.now());
+        bumpTokenVersion(user);
         userRepository.save(user);
         return true;
     }
@@ -182,6 +198,7 @@ public class UserService implements UserDetailsService {
         // Encode and update password
         user.setPassword(passwordEncoder.encode(newPassword));
         user.setPasswordChangedAt(LocalDateTime.now());
+        bumpTokenVersion(user);
         userRepository.save(user);
     }
 
@@ -200,6 +217,7 @@ public class UserService implements UserDetailsService {
                 .orElseThrow(() -> new UserNotFoundException("User not found with id: " + id));
 
         userRepository.delete(user);
+        accountVersionCache.revoke(id);
     }
 
     @Transactional
@@ -207,9 +225,18 @@ public class UserService implements UserDetailsService {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new UserNotFoundException("User not found with id: " + id));
 
-        user.setActive(active);
+        if (user.isActive() != active) {
+            user.setActive(active);
+            bumpTokenVersion(user);
+        }
         user.setUpdatedAt(LocalDateTime.now());
 
         return userRepository.save(user);
     }
+
+    // Invalidate every token issued so far for this account
+    private void bumpTokenVersion(User user) {
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        accountVersionCache.update(user.getId(), user.getTokenVersion(), user.isActive());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,86 @@
+package com.bin.pos.controller;
+
+import com.bin.pos.dal.dto.InventoryItemDTO;
+import com.bin.pos.dal.model.Customer;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+class InventoryControllerStatementCountTest extends StatementCountTestSupport {
+
+    @Test
+    void itemListsDoNotGrowWithTheirRows() throws Exception {
+        items(2, 1);
+
+        int all = statements(get("/api/inventory"));
+        int byCategory = statements(get("/api/inventory/category/" + key));
+        int search = statements(get("/api/inventory/search").param("query", key));
+        int lowStock = statements(get("/api/inventory/low-stock"));
+
+        items(6, 1);
+
+        assertThat(statements(get("/api/inventory"))).isEqualTo(all).isLessThanOrEqualTo(1);
+        assertThat(statements(get("/api/inventory/category/" + key))).isEqualTo(byCategory).isLessThanOrEqualTo(1);
+        assertThat(statements(get("/api/inventory/search").param("query", key)))
+                .isEqualTo(search).isLessThanOrEqualTo(1);
+        assertThat(statements(get("/api/inventory/low-stock"))).isEqualTo(lowStock).isLessThanOrEqualTo(1);
+    }
+
+    @Test
+    void itemLookups() throws Exception {
+        InventoryItemDTO item = items(1, 100).get(0);
+
+        assertThat(statements(get("/api/inventory/" + item.getId()))).isLessThanOrEqualTo(1);
+        assertThat(statements(get("/api/inventory/by-item-id/" + item.getItemId()))).isLessThanOrEqualTo(2);
+        assertThat(statements(get("/api/inventory/barcode/" + item.getProduct().getBarcode()))).isLessThanOrEqualTo(1);
+    }
+
+    @Test
+    void itemChanges() throws Exception {
+        InventoryItemDTO item = items(1, 100).get(0);
+
+        String body = "{\"itemId\":\"" + key + "-NEW\",\"product\":{\"productId\":\"" + item.getProduct().getProductId()
+                + "\"},\"quantity\":5,\"price\":2.50,\"unit\":\"each\"}";
+        assertThat(statements(post("/api/inventory").contentType("application/json").content(body))).isLessThanOrEqualTo(2);
+
+        String update = "{\"itemId\":\"" + item.getItemId()
+                + "\",\"product\":{\"productId\":\"" + item.getProduct().getProductId()
+                + "\"},\"quantity\":100,\"price\":3.00,\"unit\":\"each\"}";
+        assertThat(statements(put("/api/inventory/" + item.getId()).contentType("application/json").content(update)))
+                .isLessThanOrEqualTo(3);
+        assertThat(statements(put("/api/inventory/" + item.getId() + "/quantity").param("change", "-3")))
+                .isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void stockHistoryDoesNotGrowWithItsMovements() throws Exception {
+        Customer customer = customer("1");
+        List<InventoryItemDTO> items = items(1, 100);
+        InventoryItemDTO item = items.get(0);
+        completedSale(customer, items);
+
+        String start = LocalDateTime.now().minusHours(1).toString();
+        String end = LocalDateTime.now().plusHours(1).toString();
+        int movements = statements(get("/api/inventory/by-item-id/" + item.getItemId() + "/movements")
+                .param("start", start).param("end", end));
+        int stockAt = statements(get("/api/inventory/by-item-id/" + item.getItemId() + "/stock-at").param("at", start));
+        int categoryStockAt = statements(get("/api/inventory/stock-at").param("category", key).param("at", start));
+
+        for (int i = 0; i < 5; i++) {
+            completedSale(customer, items);
+        }
+
+        assertThat(statements(get("/api/inventory/by-item-id/" + item.getItemId() + "/movements")
+                .param("start", start).param("end", end))).isEqualTo(movements).isLessThanOrEqualTo(2);
+        assertThat(statements(get("/api/inventory/by-item-id/" + item.getItemId() + "/stock-at").param("at", start)))
+                .isEqualTo(stockAt).isLessThanOrEqualTo(3);
+        assertThat(statements(get("/api/inventory/stock-at").param("category", key).param("at", start)))
+                .isEqualTo(categoryStockAt).isLessThanOrEqualTo(3);
+    }
+}
@@ -0,0 +1,95 @@
+package com.bin.pos.controller;
+
+import com.bin.pos.dal.dto.InventoryItemDTO;
+import com.bin.pos.dal.model.Customer;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+class OrderControllerStatementCountTest extends StatementCountTestSupport {
+
+    @Test
+    void orderListsDoNotGrowWithTheirRows() throws Exception {
+        Customer customer = customer("1");
+        List<InventoryItemDTO> items = items(3, 100);
+        order(customer, items);
+
+        String period = "?start=" + LocalDateTime.now().minusHours(1) + "&end=" + LocalDateTime.now().plusHours(1);
+        int all = statements(get("/api/orders"));
+        int byCustomer = statements(get("/api/orders/customer/" + customer.getCustomerId()));
+        int byStatus = statements(get("/api/orders/status/PENDING"));
+        int inPeriod = statements(get("/api/orders/period" + period));
+
+        for (int i = 0; i < 5; i++) {
+            order(customer, items);
+        }
+
+        assertThat(statements(get("/api/orders"))).isEqualTo(all).isLessThanOrEqualTo(1);
+        assertThat(statements(get("/api/orders/customer/" + customer.getCustomerId())))
+                .isEqualTo(byCustomer).isLessThanOrEqualTo(1);
+        assertThat(statements(get("/api/orders/status/PENDING"))).isEqualTo(byStatus).isLessThanOrEqualTo(1);
+        assertThat(statements(get("/api/orders/period" + period))).isEqualTo(inPeriod).isLessThanOrEqualTo(1);
+    }
+
+    @Test
+    void orderDetailDoesNotGrowWithItsLines() throws Exception {
+        Customer customer = customer("1");
+        List<InventoryItemDTO> items = items(8, 100);
+        JsonNode small = order(customer, items.subList(0, 1));
+        JsonNode large = order(customer, items);
+
+        int byId = statements(get("/api/orders/" + small.get("id").asLong()));
+        int byOrderId = statements(get("/api/orders/by-order-id/" + small.get("orderId").asText()));
+
+        assertThat(statements(get("/api/orders/" + large.get("id").asLong()))).isEqualTo(byId).isLessThanOrEqualTo(1);
+        assertThat(statements(get("/api/orders/by-order-id/" + large.get("orderId").asText())))
+                .isEqualTo(byOrderId).isLessThanOrEqualTo(1);
+    }
+
+    @Test
+    void orderSteps() throws Exception {
+        Customer customer = customer("1");
+        List<InventoryItemDTO> items = items(2, 100);
+
+        String body = "{\"customer\":{\"id\":" + customer.getId() + "},\"shippingAddress\":\"1 High Street\"}";
+        assertThat(statements(post("/api/orders").contentType("application/json").content(body))).isLessThanOrEqualTo(2);
+        long id = json(post("/api/orders").contentType("application/json").content(body)).get("id").asLong();
+
+        assertThat(statements(post("/api/orders/" + id + "/items").contentType("application/json")
+                .content(line(items.get(0))))).isLessThanOrEqualTo(5);
+        assertThat(statements(put("/api/orders/" + id + "/status").param("status", "PROCESSING"))).isLessThanOrEqualTo(2);
+        assertThat(statements(put("/api/orders/" + id + "/cancel"))).isLessThanOrEqualTo(2);
+
+        long shipped = order(customer, items).get("id").asLong();
+        assertThat(statements(put("/api/orders/" + shipped + "/tracking").param("trackingNumber", "TRK-" + key)))
+                .isLessThanOrEqualTo(2);
+        String orderId = json(get("/api/orders/" + shipped)).get("orderId").asText();
+        assertThat(statements(put("/api/orders/by-order-id/" + orderId + "/status").param("status", "DELIVERED")))
+                .isLessThanOrEqualTo(3);
+        assertThat(statements(put("/api/orders/" + shipped + "/refund"))).isLessThanOrEqualTo(2);
+    }
+
+    /**
+     * A pending order with one unit of each item
+     */
+    private JsonNode order(Customer customer, List<InventoryItemDTO> items) throws Exception {
+        JsonNode order = json(post("/api/orders").contentType("application/json")
+                .content("{\"customer\":{\"id\":" + customer.getId() + "},\"shippingAddress\":\"1 High Street\"}"));
+        for (InventoryItemDTO item : items) {
+            order = json(post("/api/orders/" + order.get("id").asLong() + "/items")
+                    .contentType("application/json").content(line(item)));
+        }
+        return order;
+    }
+
+    private String line(InventoryItemDTO item) {
+        return "{\"itemId\":" + item.getId() + ",\"quantity\":1}";
+    }
+}
@@ -0,0 +1,134 @@
+package com.bin.pos.controller;
+
+import com.bin.pos.dal.dto.InventoryItemDTO;
+import com.bin.pos.dal.dto.TransactionDTO;
+import com.bin.pos.dal.model.Customer;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+class SalesControllerStatementCountTest extends StatementCountTestSupport {
+
+    @Test
+    void transactionPagesDoNotGrowWithTheirRows() throws Exception {
+        Customer customer = customer("1");
+        List<InventoryItemDTO> items = items(3, 100);
+        completedSale(customer, items);
+
+        String period = "?start=" + LocalDateTime.now().minusHours(1) + "&end=" + LocalDateTime.now().plusHours(1);
+        int page = statements(get("/api/sales"));
+        int byCustomer = statements(get("/api/sales/customer/" + customer.getCustomerId()));
+        int byStatus = statements(get("/api/sales/status/COMPLETED"));
+        int inPeriod = statements(get("/api/sales/period" + period));
+
+        for (int i = 0; i < 5; i++) {
+            completedSale(customer, items);
+        }
+
+        assertThat(statements(get("/api/sales"))).isEqualTo(page).isLessThanOrEqualTo(1);
+        assertThat(statements(get("/api/sales/customer/" + customer.getCustomerId())))
+                .isEqualTo(byCustomer).isLessThanOrEqualTo(1);
+        assertThat(statements(get("/api/sales/status/COMPLETED"))).isEqualTo(byStatus).isLessThanOrEqualTo(1);
+        assertThat(statements(get("/api/sales/period" + period))).isEqualTo(inPeriod).isLessThanOrEqualTo(1);
+    }
+
+    @Test
+    void transactionDetailDoesNotGrowWithItsLines() throws Exception {
+        Customer customer = customer("1");
+        List<InventoryItemDTO> items = items(8, 100);
+        TransactionDTO small = completedSale(customer, items.subList(0, 1));
+        TransactionDTO large = completedSale(customer, items);
+
+        int byId = statements(get("/api/sales/" + small.getId()));
+        int byTransactionId = statements(get("/api/sales/by-transaction-id/" + small.getTransactionId()));
+
+        assertThat(statements(get("/api/sales/" + large.getId()))).isEqualTo(byId).isLessThanOrEqualTo(2);
+        assertThat(statements(get("/api/sales/by-transaction-id/" + large.getTransactionId())))
+                .isEqualTo(byTransactionId).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void draftSaleSteps() throws Exception {
+        Customer customer = customer("1");
+        List<InventoryItemDTO> items = items(2, 100);
+
+        String body = "{\"customer\":{\"id\":" + customer.getId() + "},\"taxRate\":0}";
+        assertThat(statements(post("/api/sales").contentType("application/json").content(body))).isLessThanOrEqualTo(3);
+        JsonNode sale = json(post("/api/sales").contentType("application/json").content(body));
+        long id = sale.get("id").asLong();
+
+        assertThat(statements(post("/api/sales/" + id + "/items")
+                .param("itemId", items.get(0).getItemId()).param("quantity", "2"))).isLessThanOrEqualTo(6);
+        json(post("/api/sales/" + id + "/items").param("itemId", items.get(1).getItemId()).param("quantity", "1"));
+        JsonNode lines = json(get("/api/sales/" + id)).get("items");
+        long first = lines.get(0).get("id").asLong();
+        long second = lines.get(1).get("id").asLong();
+
+        assertThat(statements(put("/api/sales/" + id + "/items/" + first + "/quantity").param("quantity", "3")))
+                .isLessThanOrEqualTo(5);
+        assertThat(statements(put("/api/sales/" + id + "/items/" + first + "/discount").param("amount", "0.50")))
+                .isLessThanOrEqualTo(5);
+        assertThat(statements(delete("/api/sales/" + id + "/items/" + second))).isLessThanOrEqualTo(5);
+        assertThat(statements(post("/api/sales/" + id + "/payment")
+                .param("paymentMethod", "CASH").param("amount", "100"))).isLessThanOrEqualTo(7);
+        assertThat(statements(post("/api/sales/" + id + "/return"))).isLessThanOrEqualTo(7);
+    }
+
+    @Test
+    void voidingADraft() throws Exception {
+        Customer customer = customer("1");
+        List<InventoryItemDTO> items = items(1, 100);
+        JsonNode sale = json(post("/api/sales").contentType("application/json")
+                .content("{\"customer\":{\"id\":" + customer.getId() + "},\"taxRate\":0}"));
+        long id = sale.get("id").asLong();
+        json(post("/api/sales/" + id + "/items").param("itemId", items.get(0).getItemId()).param("quantity", "1"));
+
+        assertThat(statements(post("/api/sales/" + id + "/void"))).isLessThanOrEqualTo(6);
+    }
+
+    @Test
+    void checkoutDoesNotGrowWithItsLines() throws Exception {
+        Customer customer = customer("1");
+        List<InventoryItemDTO> items = items(10, 100);
+
+        int single = statements(post("/api/sales/checkout").contentType("application/json")
+                .content(checkout(customer, items.subList(0, 1))));
+        // A block of sequence ids can run out on either sale
+        assertThat(statements(post("/api/sales/checkout").contentType("application/json")
+                .content(checkout(customer, items)))).isBetween(single - 1, single + 1).isLessThanOrEqualTo(7);
+    }
+
+    @Test
+    void fiftyLineSaleIsWrittenInBatches() throws Exception {
+        Customer customer = customer("1");
+        List<InventoryItemDTO> items = items(50, 100);
+
+        int tenLines = statements(post("/api/sales/checkout").contentType("application/json")
+                .content(checkout(customer, items.subList(0, 10))));
+        int fiftyLines = statements(post("/api/sales/checkout").contentType("application/json")
+                .content(checkout(customer, items)));
+
+        // Lines go out in one insert batch; only a fresh block of 50 sequence ids can add a statement
+        assertThat(fiftyLines).isLessThanOrEqualTo(tenLines + 1).isLessThanOrEqualTo(7);
+    }
+
+    private String checkout(Customer customer, List<InventoryItemDTO> items) {
+        StringBuilder lines = new StringBuilder();
+        for (InventoryItemDTO item : items) {
+            if (!lines.isEmpty()) {
+                lines.append(',');
+            }
+            lines.append("{\"itemId\":\"").append(item.getItemId()).append("\",\"quantity\":1}");
+        }
+        return "{\"customerId\":\"" + customer.getCustomerId() + "\",\"taxRate\":0,\"items\":[" + lines
+                + "],\"payments\":[{\"paymentMethod\":\"CASH\",\"amount\":" + (items.size() * 2.5) + "}]}";
+    }
+}
@@ -0,0 +1,165 @@
+package com.bin.pos.controller;
+
+import com.bin.pos.config.metrics.StatementCounter;
+import com.bin.pos.dal.dto.CheckoutRequest;
+import com.bin.pos.dal.dto.InventoryItemDTO;
+import com.bin.pos.dal.dto.ProductDTO;
+import com.bin.pos.dal.dto.TransactionDTO;
+import com.bin.pos.dal.model.Customer;
+import com.bin.pos.dal.model.CustomerType;
+import com.bin.pos.dal.model.PaymentMethod;
+import com.bin.pos.service.CustomerService;
+import com.bin.pos.service.InventoryService;
+import com.bin.pos.service.ProductService;
+import com.bin.pos.service.SalesService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs requests against the full application on H2 and counts the SQL statements
+ * each one prepares, so an N+1 or a lost fetch plan fails the build.
+ *
+ * Filters are off: security is taken from the context set here and method security
+ * still applies, and the request is counted here rather than by StatementCountFilter.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc(addFilters = false)
+@ActiveProfiles("test")
+abstract class StatementCountTestSupport {
+
+    @Autowired
+    protected MockMvc mockMvc;
+
+    @Autowired
+    protected ObjectMapper objectMapper;
+
+    @Autowired
+    protected ProductService productService;
+
+    @Autowired
+    protected InventoryService inventoryService;
+
+    @Autowired
+    protected CustomerService customerService;
+
+    @Autowired
+    protected SalesService salesService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    // Prefix of every business id a test creates; the database is shared by all tests
+    protected String key;
+
+    @BeforeEach
+    void signIn() {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                "admin", null, List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+        key = UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+    }
+
+    @AfterEach
+    void signOut() {
+        SecurityContextHolder.clearContext();
+    }
+
+    /**
+     * Statements prepared by one successful request, with every cache cold
+     */
+    protected int statements(MockHttpServletRequestBuilder request) throws Exception {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        MvcResult result;
+        int statements;
+        StatementCounter.begin();
+        try {
+            result = mockMvc.perform(request).andReturn();
+        } finally {
+            statements = StatementCounter.end();
+        }
+        assertThat(result.getResponse().getStatus())
+                .as("%s %s: %s", request.buildRequest(null).getMethod(), request.buildRequest(null).getRequestURI(),
+                        result.getResponse().getContentAsString())
+                .isBetween(200, 299);
+        return statements;
+    }
+
+    protected JsonNode json(MockHttpServletRequestBuilder request) throws Exception {
+        return objectMapper.readTree(mockMvc.perform(request).andReturn().getResponse().getContentAsString());
+    }
+
+    protected Customer customer(String suffix) {
+        Customer customer = new Customer();
+        customer.setCustomerId(key + "-C" + suffix);
+        customer.setName("Customer " + suffix);
+        customer.setEmail(key + suffix + "@example.com");
+        customer.setPhone(key + "-" + suffix);
+        customer.setType(CustomerType.REGULAR);
+        return customerService.createCustomer(customer);
+    }
+
+    /**
+     * Items of one product each, in a category of their own
+     */
+    protected List<InventoryItemDTO> items(int count, int quantity) {
+        ProductDTO product = new ProductDTO();
+        product.setProductId(key + "-P" + UUID.randomUUID().toString().substring(0, 6));
+        product.setName("Product " + key);
+        product.setCategory(key);
+        product.setUnitPrice(new BigDecimal("2.50"));
+        product.setBarcode(product.getProductId());
+        product.setStatus("ACTIVE");
+        ProductDTO saved = productService.createProduct(product);
+
+        return IntStream.range(0, count).mapToObj(i -> {
+            InventoryItemDTO item = new InventoryItemDTO();
+            item.setItemId(saved.getProductId() + "-I" + i);
+            item.setProduct(saved);
+            item.setQuantity(quantity);
+            item.setPrice(new BigDecimal("2.50"));
+            item.setUnit("each");
+            return inventoryService.createItem(item);
+        }).toList();
+    }
+
+    /**
+     * A paid sale of one unit of each item
+     */
+    protected TransactionDTO completedSale(Customer customer, List<InventoryItemDTO> items) {
+        CheckoutRequest request = new CheckoutRequest();
+        request.setCustomerId(customer.getCustomerId());
+        request.setTaxRate(BigDecimal.ZERO);
+        BigDecimal total = BigDecimal.ZERO;
+        for (InventoryItemDTO item : items) {
+            CheckoutRequest.ItemLine line = new CheckoutRequest.ItemLine();
+            line.setItemId(item.getItemId());
+            line.setQuantity(1);
+            request.getItems().add(line);
+            total = total.add(item.getPrice());
+        }
+        CheckoutRequest.Payment payment = new CheckoutRequest.Payment();
+        payment.setPaymentMethod(PaymentMethod.CASH);
+        payment.setAmount(total);
+        request.getPayments().add(payment);
+        return salesService.checkout(request);
+    }
+}
@@ -0,0 +1,148 @@
+package com.bin.pos.service;
+
+import com.bin.pos.dal.dto.BarcodeScanDTO;
+import com.bin.pos.dal.model.InventoryItem;
+import com.bin.pos.dal.model.Product;
+import com.bin.pos.dal.repository.InventoryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Barcode keys, the long-keyed table, and the lookup against a mocked repository
+ */
+class BarcodeLookupServiceTest {
+
+    private final InventoryRepository inventoryRepository = mock(InventoryRepository.class);
+    private final BarcodeLookupService service = new BarcodeLookupService(inventoryRepository, 30);
+
+    @Test
+    void numericKeyKeepsLeadingZeros() {
+        assertThat(BarcodeLookupService.numericKey("0123")).isNotEqualTo(BarcodeLookupService.numericKey("123"));
+        assertThat(BarcodeLookupService.numericKey("00")).isNotEqualTo(BarcodeLookupService.numericKey("0"));
+        assertThat(BarcodeLookupService.numericKey("0")).isGreaterThanOrEqualTo(0);
+    }
+
+    @Test
+    void numericKeyTakesUpToSeventeenDigits() {
+        long largest = BarcodeLookupService.numericKey("99999999999999999");
+        assertThat(largest).isGreaterThanOrEqualTo(0);
+        assertThat(largest).isNotEqualTo(BarcodeLookupService.numericKey("9999999999999999"));
+        assertThat(BarcodeLookupService.numericKey("12345678901234567"))
+                .isNotEqualTo(BarcodeLookupService.numericKey("12345678901234568"));
+
+        assertThat(BarcodeLookupService.numericKey("999999999999999999")).isEqualTo(-1);
+        assertThat(BarcodeLookupService.numericKey("")).isEqualTo(-1);
+        assertThat(BarcodeLookupService.numericKey("12A4")).isEqualTo(-1);
+    }
+
+    @Test
+    void tableGrowsAndKeepsItsEntries() {
+        BarcodeLookupService.LongTable table = BarcodeLookupService.LongTable.of(Collections.emptyMap());
+        int initialCapacity = table.capacity();
+
+        List<BarcodeLookupService.ScanEntry> entries = new ArrayList<>();
+        for (long id = 1; id <= 100; id++) {
+            BarcodeLookupService.ScanEntry entry = entry(id, String.format("%013d", id));
+            entries.add(entry);
+            table = table.put(entry);
+        }
+
+        assertThat(table.capacity()).isGreaterThan(initialCapacity).isGreaterThanOrEqualTo(200);
+        for (int i = 0; i < entries.size(); i++) {
+            assertThat(table.get(BarcodeLookupService.numericKey(String.format("%013d", i + 1)))).isSameAs(entries.get(i));
+        }
+        assertThat(table.get(BarcodeLookupService.numericKey("0000000000101"))).isNull();
+    }
+
+    @Test
+    void removedSlotsKeepProbesGoingAndAreReclaimed() {
+        BarcodeLookupService.LongTable table = BarcodeLookupService.LongTable.of(Collections.emptyMap());
+        for (long id = 1; id <= 10; id++) {
+            table = table.put(entry(id, Long.toString(id)));
+        }
+        for (long id = 1; id <= 10; id += 2) {
+            assertThat(table.remove(BarcodeLookupService.numericKey(Long.toString(id)))).isNotNull();
+        }
+        for (long id = 1; id <= 10; id++) {
+            BarcodeLookupService.ScanEntry found = table.get(BarcodeLookupService.numericKey(Long.toString(id)));
+            if (id % 2 == 0) {
+                assertThat(found).isNotNull();
+            } else {
+                assertThat(found).isNull();
+            }
+        }
+
+        // Churn leaves removal markers behind; the table is copied without them instead of growing
+        int capacity = table.capacity();
+        for (long id = 100; id < 1100; id++) {
+            table = table.put(entry(id, Long.toString(id)));
+            table.remove(BarcodeLookupService.numericKey(Long.toString(id)));
+        }
+        assertThat(table.capacity()).isEqualTo(capacity);
+        for (long id = 2; id <= 10; id += 2) {
+            assertThat(table.get(BarcodeLookupService.numericKey(Long.toString(id)))).isNotNull();
+        }
+    }
+
+    @Test
+    void unknownCodeIsQueriedOnceUntilItsProductChanges() {
+        when(inventoryRepository.findSellableByBarcode(anyString(), any(Pageable.class))).thenReturn(List.of());
+
+        assertThat(service.lookup("4006381333931")).isEmpty();
+        assertThat(service.lookup("4006381333931")).isEmpty();
+        verify(inventoryRepository, times(1)).findSellableByBarcode(anyString(), any(Pageable.class));
+
+        service.productChanged("4006381333931");
+        assertThat(service.lookup("4006381333931")).isEmpty();
+        verify(inventoryRepository, times(2)).findSellableByBarcode(anyString(), any(Pageable.class));
+    }
+
+    @Test
+    void reloadRetriesWhenStockChangesDuringItsQuery() {
+        when(inventoryRepository.findAllWithBarcode())
+                .thenAnswer(invocation -> {
+                    // A sale commits after the query read the item's stock
+                    service.stockChanged(Map.of(1L, -2));
+                    return List.of(item(1L, "5000112637922", 5));
+                })
+                .thenReturn(List.of(item(1L, "5000112637922", 3)));
+
+        service.reload();
+
+        assertThat(service.lookup("5000112637922")).map(BarcodeScanDTO::getQuantity).contains(3);
+        verify(inventoryRepository, times(2)).findAllWithBarcode();
+    }
+
+    private static BarcodeLookupService.ScanEntry entry(long id, String barcode) {
+        return new BarcodeLookupService.ScanEntry(barcode, item(id, barcode, 1));
+    }
+
+    private static InventoryItem item(long id, String barcode, int quantity) {
+        Product product = new Product();
+        product.setProductId("P" + id);
+        product.setName("Product " + id);
+        product.setBarcode(barcode);
+
+        InventoryItem item = new InventoryItem();
+        item.setId(id);
+        item.setItemId("I" + id);
+        item.setProduct(product);
+        item.setPrice(BigDecimal.ONE);
+        item.setQuantity(quantity);
+        return item;
+    }
+}
@@ -0,0 +1,207 @@
+package com.bin.pos.service;
+
+import com.bin.pos.dal.model.PendingStockChange;
+import com.bin.pos.dal.repository.InventoryRepository;
+import com.bin.pos.dal.repository.PendingStockChangeRepository;
+import com.bin.pos.exception.InsufficientStockException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The ledger against a stock table and a pending_stock_changes table kept in lists
+ */
+class StockReservationLedgerTest {
+
+    private static final Long ITEM = 1L;
+
+    private final InventoryRepository inventoryRepository = mock(InventoryRepository.class);
+    private final PendingStockChangeRepository pendingStockChangeRepository = mock(PendingStockChangeRepository.class);
+    private final StockMutationService stockMutationService = mock(StockMutationService.class);
+
+    // Rows of pending_stock_changes
+    private final List<PendingStockChange> journal = new ArrayList<>();
+
+    private StockReservationLedger ledger;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        when(inventoryRepository.findQuantityById(ITEM)).thenReturn(Optional.of(10));
+        when(pendingStockChangeRepository.saveAll(any())).thenAnswer(call -> {
+            Iterable<PendingStockChange> changes = call.getArgument(0);
+            changes.forEach(change -> {
+                change.setId((long) journal.size() + 1);
+                journal.add(change);
+            });
+            return changes;
+        });
+        when(pendingStockChangeRepository.findAllByOrderByIdAsc(any())).thenAnswer(call -> new ArrayList<>(journal));
+        when(pendingStockChangeRepository.sumQuantityOfItem(anyLong())).thenAnswer(call -> journal.stream()
+                .filter(change -> change.getInventoryItemId().equals(call.getArgument(0)))
+                .mapToLong(PendingStockChange::getQuantity).sum());
+        doAnswer(call -> {
+            Collection<Long> ids = call.getArgument(0);
+            journal.removeIf(change -> ids.contains(change.getId()));
+            return null;
+        }).when(pendingStockChangeRepository).deleteAllByIdInBatch(any());
+        when(stockMutationService.applySoldStock(anyMap())).thenReturn(List.of());
+
+        ledger = new StockReservationLedger(inventoryRepository, pendingStockChangeRepository, stockMutationService,
+                mock(PlatformTransactionManager.class), true, 30);
+    }
+
+    @AfterEach
+    void clearTransaction() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void reservedUnitsAreHeldUntilReleased() {
+        ledger.reserve(100L, ITEM, 4);
+        assertThat(ledger.available(ITEM)).isEqualTo(6);
+
+        assertThatThrownBy(() -> ledger.reserve(200L, ITEM, 7)).isInstanceOf(InsufficientStockException.class);
+        assertThat(ledger.available(ITEM)).isEqualTo(6);
+
+        ledger.release(100L, ITEM, 4);
+        assertThat(ledger.available(ITEM)).isEqualTo(10);
+    }
+
+    @Test
+    void committedSaleIsWrittenToThePendingChangesAndFlushed() {
+        ledger.reserve(100L, ITEM, 4);
+        ledger.commit(100L, Map.of(ITEM, 5));
+
+        assertThat(ledger.available(ITEM)).isEqualTo(5);
+        assertThat(journal).singleElement().satisfies(change -> {
+            assertThat(change.getInventoryItemId()).isEqualTo(ITEM);
+            assertThat(change.getQuantity()).isEqualTo(5);
+        });
+
+        ledger.flush();
+
+        verify(stockMutationService).applySoldStock(Map.of(ITEM, 5));
+        assertThat(journal).isEmpty();
+        // Nothing is pending any more, so the written on-hand quantity is all there is
+        ledger.resync(ITEM, 5);
+        assertThat(ledger.available(ITEM)).isEqualTo(5);
+    }
+
+    @Test
+    void commitThatCannotBeCoveredChangesNothing() {
+        ledger.reserve(100L, ITEM, 2);
+
+        assertThatThrownBy(() -> ledger.commit(100L, Map.of(ITEM, 11))).isInstanceOf(InsufficientStockException.class);
+
+        assertThat(ledger.available(ITEM)).isEqualTo(8);
+        assertThat(journal).isEmpty();
+        ledger.releaseAll(100L);
+        assertThat(ledger.available(ITEM)).isEqualTo(10);
+    }
+
+    @Test
+    void rolledBackCommitHoldsTheReservationAgain() {
+        ledger.reserve(100L, ITEM, 4);
+
+        TransactionSynchronizationManager.initSynchronization();
+        ledger.commit(100L, Map.of(ITEM, 5));
+        assertThat(ledger.available(ITEM)).isEqualTo(5);
+        rollBack();
+
+        assertThat(ledger.available(ITEM)).isEqualTo(6);
+        ledger.releaseAll(100L);
+        assertThat(ledger.available(ITEM)).isEqualTo(10);
+    }
+
+    @Test
+    void rolledBackRestockIsTakenOutAgain() {
+        TransactionSynchronizationManager.initSynchronization();
+        ledger.restock(Map.of(ITEM, 3));
+        assertThat(ledger.available(ITEM)).isEqualTo(13);
+        rollBack();
+
+        assertThat(ledger.available(ITEM)).isEqualTo(10);
+    }
+
+    @Test
+    void failedFlushIsRetried() {
+        when(stockMutationService.applySoldStock(anyMap()))
+                .thenThrow(new IllegalStateException("database unavailable"))
+                .thenReturn(List.of());
+        ledger.commit(100L, Map.of(ITEM, 3));
+
+        ledger.flush();
+        assertThat(journal).hasSize(1);
+
+        ledger.flush();
+        verify(stockMutationService, times(2)).applySoldStock(Map.of(ITEM, 3));
+        assertThat(journal).isEmpty();
+        assertThat(ledger.available(ITEM)).isEqualTo(7);
+    }
+
+    @Test
+    void changesLeftByAPreviousRunAreAppliedOnStartup() {
+        journal.add(new PendingStockChange(ITEM, 4));
+        journal.get(0).setId(1L);
+
+        ledger.afterSingletonsInstantiated();
+
+        verify(stockMutationService).applySoldStock(Map.of(ITEM, 4));
+        assertThat(journal).isEmpty();
+    }
+
+    @Test
+    void pendingChangesCountAgainstAnItemReadBeforeTheyAreApplied() {
+        journal.add(new PendingStockChange(ITEM, 4));
+        journal.get(0).setId(1L);
+
+        assertThatThrownBy(() -> ledger.reserve(100L, ITEM, 7)).isInstanceOf(InsufficientStockException.class);
+        ledger.reserve(100L, ITEM, 6);
+        assertThat(ledger.available(ITEM)).isZero();
+    }
+
+    @Test
+    void idleItemsAreReadAgain() {
+        ledger.reserve(100L, ITEM, 4);
+        ledger.evictIdleItems(Long.MAX_VALUE);
+        // Still held for a draft sale, so it stays
+        assertThat(ledger.available(ITEM)).isEqualTo(6);
+
+        ledger.releaseAll(100L);
+        ledger.evictIdleItems(Long.MAX_VALUE);
+        assertThat(ledger.available(ITEM)).isZero();
+
+        when(inventoryRepository.findQuantityById(ITEM)).thenReturn(Optional.of(8));
+        ledger.reserve(200L, ITEM, 1);
+        assertThat(ledger.available(ITEM)).isEqualTo(7);
+    }
+
+    private static void rollBack() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+    }
+}